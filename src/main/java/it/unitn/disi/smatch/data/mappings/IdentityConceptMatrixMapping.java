@@ -0,0 +1,50 @@
+package it.unitn.disi.smatch.data.mappings;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.matrices.IMatchMatrixFactory;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Mapping between acols based on a matrix, which keeps its own acol indexes instead of setting them
+ * in the acols. Contexts can therefore take part in several mappings at once.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class IdentityConceptMatrixMapping extends MatrixMapping<IAtomicConceptOfLabel> {
+
+    /**
+     * Constructor for mapping factory.
+     *
+     * @param factory matrix factory
+     */
+    public IdentityConceptMatrixMapping(IMatchMatrixFactory factory) {
+        super(factory);
+    }
+
+    public IdentityConceptMatrixMapping(IMatchMatrixFactory factory, IContext source, IContext target) {
+        super(factory, source, target, concepts(source), concepts(target));
+    }
+
+    private static List<IAtomicConceptOfLabel> concepts(IContext c) {
+        List<IAtomicConceptOfLabel> result = new ArrayList<>();
+        for (Iterator<INode> i = c.nodeIterator(); i.hasNext(); ) {
+            result.addAll(i.next().nodeData().getConcepts());
+        }
+        return result;
+    }
+
+    @Override
+    public IContextMapping<INode> getContextMappingInstance(IContext source, IContext target) {
+        return new IdentityNodesMatrixMapping(factory, source, target);
+    }
+
+    @Override
+    public IContextMapping<IAtomicConceptOfLabel> getConceptMappingInstance(IContext source, IContext target) {
+        return new IdentityConceptMatrixMapping(factory, source, target);
+    }
+}
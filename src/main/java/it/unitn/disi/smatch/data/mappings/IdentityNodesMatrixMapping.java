@@ -0,0 +1,50 @@
+package it.unitn.disi.smatch.data.mappings;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.matrices.IMatchMatrixFactory;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Mapping between context nodes based on a matrix, which keeps its own node indexes instead of setting them
+ * in the nodes. Contexts can therefore take part in several mappings at once.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class IdentityNodesMatrixMapping extends MatrixMapping<INode> {
+
+    /**
+     * Constructor for mapping factory.
+     *
+     * @param factory matrix factory
+     */
+    public IdentityNodesMatrixMapping(IMatchMatrixFactory factory) {
+        super(factory);
+    }
+
+    public IdentityNodesMatrixMapping(IMatchMatrixFactory factory, IContext source, IContext target) {
+        super(factory, source, target, nodes(source), nodes(target));
+    }
+
+    private static List<INode> nodes(IContext c) {
+        List<INode> result = new ArrayList<>(c.nodesCount());
+        for (Iterator<INode> i = c.nodeIterator(); i.hasNext(); ) {
+            result.add(i.next());
+        }
+        return result;
+    }
+
+    @Override
+    public IContextMapping<INode> getContextMappingInstance(IContext source, IContext target) {
+        return new IdentityNodesMatrixMapping(factory, source, target);
+    }
+
+    @Override
+    public IContextMapping<IAtomicConceptOfLabel> getConceptMappingInstance(IContext source, IContext target) {
+        return new IdentityConceptMatrixMapping(factory, source, target);
+    }
+}
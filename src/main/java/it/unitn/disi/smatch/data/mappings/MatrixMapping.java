@@ -28,6 +28,10 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
     private final T[] sources;
     private final T[] targets;
 
+    // object -> index, if the mapping keeps its own indexes instead of setting them in the objects
+    private final Map<T, Integer> sourceIndexes;
+    private final Map<T, Integer> targetIndexes;
+
     // for iterator
     private volatile transient int modCount;
 
@@ -112,6 +116,8 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
         this.elementCount = null;
         this.sources = null;
         this.targets = null;
+        this.sourceIndexes = null;
+        this.targetIndexes = null;
     }
 
     /**
@@ -137,11 +143,77 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
 
         initRows(sourceContext, sources);
         initCols(targetContext, targets);
+        this.sourceIndexes = null;
+        this.targetIndexes = null;
 
         this.elementCount = new AtomicInteger();
         this.modCount = 0;
     }
 
+    /**
+     * Constructor for mapping instance which keeps its own indexes of sources and targets instead of setting
+     * the indexes of the objects. Such mappings do not interfere with each other when they share contexts.
+     *
+     * @param factory       matrix factory
+     * @param sourceContext source context
+     * @param targetContext target context
+     * @param sources       sources, in row order
+     * @param targets       targets, in column order
+     */
+    @SuppressWarnings("unchecked")
+    protected MatrixMapping(IMatchMatrixFactory factory, IContext sourceContext, IContext targetContext,
+                            List<T> sources, List<T> targets) {
+        super(sourceContext, targetContext);
+
+        this.matrix = factory.getInstance(sources.size(), targets.size());
+        this.factory = factory;
+
+        this.sources = (T[]) sources.toArray(new IIndexedObject[sources.size()]);
+        this.targets = (T[]) targets.toArray(new IIndexedObject[targets.size()]);
+        this.sourceIndexes = index(this.sources);
+        this.targetIndexes = index(this.targets);
+
+        this.elementCount = new AtomicInteger();
+        this.modCount = 0;
+    }
+
+    private static <T> Map<T, Integer> index(T[] objects) {
+        Map<T, Integer> result = new IdentityHashMap<>(objects.length);
+        for (int i = 0; i < objects.length; i++) {
+            result.put(objects[i], i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the row of the source, or -1 if the source does not belong to the mapping.
+     *
+     * @param source source
+     * @return the row of the source or -1
+     */
+    protected int getSourceIndex(IIndexedObject source) {
+        return getIndex(source, sources, sourceIndexes);
+    }
+
+    /**
+     * Returns the column of the target, or -1 if the target does not belong to the mapping.
+     *
+     * @param target target
+     * @return the column of the target or -1
+     */
+    protected int getTargetIndex(IIndexedObject target) {
+        return getIndex(target, targets, targetIndexes);
+    }
+
+    private static <T> int getIndex(IIndexedObject o, T[] objects, Map<T, Integer> indexes) {
+        if (null != indexes) {
+            Integer result = indexes.get(o);
+            return null == result ? -1 : result;
+        }
+        int result = o.getIndex();
+        return 0 <= result && result < objects.length && o == objects[result] ? result : -1;
+    }
+
     protected void initCols(IContext targetContext, IIndexedObject[] targets) {
         // void
     }
@@ -152,38 +224,42 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
 
     @Override
     public char getRelation(IIndexedObject source, IIndexedObject target) {
-        return matrix.get(source.getIndex(), target.getIndex());
+        final int sIdx = getSourceIndex(source);
+        final int tIdx = getTargetIndex(target);
+        if (-1 == sIdx || -1 == tIdx) {
+            return IMappingElement.IDK;
+        }
+        return matrix.get(sIdx, tIdx);
     }
 
     @Override
     public boolean setRelation(final IIndexedObject source, final IIndexedObject target, final char relation) {
-        final boolean result =
-                source == sources[source.getIndex()] &&
-                        target == targets[target.getIndex()] &&
-                        relation == matrix.get(source.getIndex(), target.getIndex());
-
-        if (!result) {
-            if (source == sources[source.getIndex()] && target == targets[target.getIndex()]) {
-                modCount++;
-                matrix.set(source.getIndex(), target.getIndex(), relation);
-                if (IMappingElement.IDK == relation) {
-                    elementCount.decrementAndGet();
-                } else {
-                    elementCount.incrementAndGet();
-                }
-            } else {
-                throw new IllegalStateException("mapping is not initialized correctly!");
-            }
+        final int sIdx = getSourceIndex(source);
+        final int tIdx = getTargetIndex(target);
+        if (-1 == sIdx || -1 == tIdx) {
+            throw new IllegalStateException("mapping is not initialized correctly!");
         }
 
-        return !result;
+        final char old = matrix.get(sIdx, tIdx);
+        if (relation == old) {
+            return false;
+        }
+
+        modCount++;
+        matrix.set(sIdx, tIdx, relation);
+        if (IMappingElement.IDK == relation) {
+            elementCount.decrementAndGet();
+        } else if (IMappingElement.IDK == old) {
+            elementCount.incrementAndGet();
+        }
+        return true;
     }
 
     @Override
     public Set<IMappingElement<T>> getSources(final T source) {
-        final int sIdx = source.getIndex();
+        final int sIdx = getSourceIndex(source);
         Set<IMappingElement<T>> result = Collections.emptySet();
-        if (0 <= sIdx && sIdx < sources.length && (source == sources[sIdx])) {
+        if (-1 != sIdx) {
             result = new HashSet<>();
             for (int j = 0; j < targets.length; j++) {
                 char rel = matrix.get(sIdx, j);
@@ -198,9 +274,9 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
 
     @Override
     public Set<IMappingElement<T>> getTargets(T target) {
-        final int tIdx = target.getIndex();
+        final int tIdx = getTargetIndex(target);
         Set<IMappingElement<T>> result = Collections.emptySet();
-        if (0 <= tIdx && tIdx < targets.length && (target == targets[tIdx])) {
+        if (-1 != tIdx) {
             result = new HashSet<>();
             for (int i = 0; i < sources.length; i++) {
                 char rel = matrix.get(i, tIdx);
@@ -232,7 +308,7 @@ public class MatrixMapping<T extends IIndexedObject> extends BaseMapping<T> impl
                 final IIndexedObject s = (IIndexedObject) e.getSource();
                 if (e.getTarget() instanceof IIndexedObject) {
                     final IIndexedObject t = (IIndexedObject) e.getTarget();
-                    result = IMappingElement.IDK != getRelation(s, t) && s == sources[s.getIndex()] && t == targets[t.getIndex()];
+                    result = IMappingElement.IDK != getRelation(s, t);
                 }
             }
         }
@@ -0,0 +1,442 @@
+package it.unitn.disi.smatch.data.mappings;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Mapping implementation for frequent lookups. Permits only one relation between source and target.
+ * Sources and targets are numbered in order of appearance and the pairs of numbers packed into long
+ * keys of an open addressing table. Relation lookups do not allocate, while sources and targets lookups take
+ * time proportional to the amount of elements returned, thanks to the source to targets and target to sources
+ * indexes.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class PackedHashMapping<T> extends BaseMapping<T> implements IContextMapping<T>, IMappingFactory, Serializable {
+
+    private static final long EMPTY = -1L;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ReadWriteLock lock;
+
+    // sources and targets numbered in order of appearance
+    private final Map<T, Integer> sourceIds;
+    private final List<T> sources;
+    private final Map<T, Integer> targetIds;
+    private final List<T> targets;
+
+    // linear probing table, keyed by sourceId << 32 | targetId
+    private long[] keys;
+    private char[] relations;
+    private int count;
+
+    private final Adjacency sourceTargets;
+    private final Adjacency targetSources;
+
+    /**
+     * Lists of numbers adjacent to a number.
+     */
+    private static final class Adjacency implements Serializable {
+        private int[][] lists = new int[INITIAL_CAPACITY][];
+        private int[] sizes = new int[INITIAL_CAPACITY];
+
+        void add(int id, int other) {
+            if (lists.length <= id) {
+                int capacity = Math.max(id + 1, lists.length * 2);
+                lists = Arrays.copyOf(lists, capacity);
+                sizes = Arrays.copyOf(sizes, capacity);
+            }
+            if (null == lists[id]) {
+                lists[id] = new int[4];
+            } else if (sizes[id] == lists[id].length) {
+                lists[id] = Arrays.copyOf(lists[id], lists[id].length + (lists[id].length >> 1) + 1);
+            }
+            lists[id][sizes[id]++] = other;
+        }
+
+        void remove(int id, int other) {
+            final int[] list = lists[id];
+            for (int i = 0; i < sizes[id]; i++) {
+                if (other == list[i]) {
+                    sizes[id]--;
+                    list[i] = list[sizes[id]];
+                    return;
+                }
+            }
+        }
+
+        int size(int id) {
+            return id < sizes.length ? sizes[id] : 0;
+        }
+
+        int get(int id, int index) {
+            return lists[id][index];
+        }
+
+        void clear() {
+            lists = new int[INITIAL_CAPACITY][];
+            sizes = new int[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Factory constructor.
+     */
+    public PackedHashMapping() {
+        this.lock = null;
+        this.sourceIds = null;
+        this.sources = null;
+        this.targetIds = null;
+        this.targets = null;
+        this.sourceTargets = null;
+        this.targetSources = null;
+    }
+
+    /**
+     * Mapping instance constructor.
+     *
+     * @param sourceContext source context
+     * @param targetContext target context
+     */
+    public PackedHashMapping(final IContext sourceContext, final IContext targetContext) {
+        super(sourceContext, targetContext);
+        this.lock = new ReentrantReadWriteLock();
+        this.sourceIds = new IdentityHashMap<>();
+        this.sources = new ArrayList<>();
+        this.targetIds = new IdentityHashMap<>();
+        this.targets = new ArrayList<>();
+        this.sourceTargets = new Adjacency();
+        this.targetSources = new Adjacency();
+        allocate(INITIAL_CAPACITY);
+    }
+
+    @Override
+    public IContextMapping<INode> getContextMappingInstance(final IContext source, final IContext target) {
+        return new PackedHashMapping<>(source, target);
+    }
+
+    @Override
+    public IContextMapping<IAtomicConceptOfLabel> getConceptMappingInstance(final IContext source, final IContext target) {
+        return new PackedHashMapping<>(source, target);
+    }
+
+    @Override
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isEmpty() {
+        return 0 == size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof IMappingElement)) {
+            return false;
+        }
+        @SuppressWarnings("unchecked")
+        IMappingElement<T> e = (IMappingElement<T>) o;
+        return IMappingElement.IDK != e.getRelation() && e.getRelation() == getRelation(e.getSource(), e.getTarget());
+    }
+
+    @Override
+    public boolean add(final IMappingElement<T> e) {
+        return setRelation(e.getSource(), e.getTarget(), e.getRelation());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        lock.writeLock().lock();
+        try {
+            if (contains(o)) {
+                @SuppressWarnings("unchecked")
+                IMappingElement<T> e = (IMappingElement<T>) o;
+                return setRelation(e.getSource(), e.getTarget(), IMappingElement.IDK);
+            }
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            sourceIds.clear();
+            sources.clear();
+            targetIds.clear();
+            targets.clear();
+            sourceTargets.clear();
+            targetSources.clear();
+            allocate(INITIAL_CAPACITY);
+            count = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public char getRelation(final T source, final T target) {
+        lock.readLock().lock();
+        try {
+            Integer s = sourceIds.get(source);
+            Integer t = targetIds.get(target);
+            if (null == s || null == t) {
+                return IMappingElement.IDK;
+            }
+            int slot = find(key(s, t));
+            return -1 == slot ? IMappingElement.IDK : relations[slot];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean setRelation(final T source, final T target, final char relation) {
+        lock.writeLock().lock();
+        try {
+            if (IMappingElement.IDK == relation) {
+                Integer s = sourceIds.get(source);
+                Integer t = targetIds.get(target);
+                if (null == s || null == t) {
+                    return false;
+                }
+                int slot = find(key(s, t));
+                if (-1 == slot) {
+                    return false;
+                }
+                delete(slot);
+                sourceTargets.remove(s, t);
+                targetSources.remove(t, s);
+                count--;
+                return true;
+            }
+
+            final int s = id(source, sourceIds, sources);
+            final int t = id(target, targetIds, targets);
+            final long key = key(s, t);
+            final int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (EMPTY != keys[i]) {
+                if (key == keys[i]) {
+                    if (relation == relations[i]) {
+                        return false;
+                    }
+                    relations[i] = relation;
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            relations[i] = relation;
+            sourceTargets.add(s, t);
+            targetSources.add(t, s);
+            count++;
+            if (keys.length * 3 < count * 4) {
+                rehash(keys.length * 2);
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<IMappingElement<T>> getSources(final T source) {
+        lock.readLock().lock();
+        try {
+            Integer s = sourceIds.get(source);
+            if (null == s || 0 == sourceTargets.size(s)) {
+                return Collections.emptySet();
+            }
+            Set<IMappingElement<T>> result = new HashSet<>();
+            for (int i = 0; i < sourceTargets.size(s); i++) {
+                int t = sourceTargets.get(s, i);
+                result.add(new MappingElement<>(source, targets.get(t), relations[find(key(s, t))]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<IMappingElement<T>> getTargets(final T target) {
+        lock.readLock().lock();
+        try {
+            Integer t = targetIds.get(target);
+            if (null == t || 0 == targetSources.size(t)) {
+                return Collections.emptySet();
+            }
+            Set<IMappingElement<T>> result = new HashSet<>();
+            for (int i = 0; i < targetSources.size(t); i++) {
+                int s = targetSources.get(t, i);
+                result.add(new MappingElement<>(sources.get(s), target, relations[find(key(s, t))]));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Iterates over the elements present at the iterator creation, skipping those removed since.
+     */
+    private class Itr implements Iterator<IMappingElement<T>> {
+        private final long[] snapshot;
+        private int position;
+        private IMappingElement<T> next;
+        private IMappingElement<T> current;
+
+        private Itr() {
+            lock.readLock().lock();
+            try {
+                snapshot = new long[count];
+                int j = 0;
+                for (long key : keys) {
+                    if (EMPTY != key) {
+                        snapshot[j++] = key;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            next = findNext();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != next;
+        }
+
+        @Override
+        public IMappingElement<T> next() {
+            if (null == next) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = findNext();
+            return current;
+        }
+
+        @Override
+        public void remove() {
+            if (null == current) {
+                throw new IllegalStateException();
+            }
+            setRelation(current.getSource(), current.getTarget(), IMappingElement.IDK);
+            current = null;
+        }
+
+        private IMappingElement<T> findNext() {
+            lock.readLock().lock();
+            try {
+                while (position < snapshot.length) {
+                    long key = snapshot[position++];
+                    int slot = find(key);
+                    if (-1 != slot) {
+                        return new MappingElement<>(sources.get((int) (key >>> 32)), targets.get((int) key), relations[slot]);
+                    }
+                }
+                return null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public Iterator<IMappingElement<T>> iterator() {
+        return new Itr();
+    }
+
+    private static long key(final int source, final int target) {
+        return ((long) source << 32) | target;
+    }
+
+    private static int hash(final long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static <T> int id(final T o, final Map<T, Integer> ids, final List<T> objects) {
+        Integer result = ids.get(o);
+        if (null == result) {
+            result = objects.size();
+            ids.put(o, result);
+            objects.add(o);
+        }
+        return result;
+    }
+
+    private int find(final long key) {
+        final int mask = keys.length - 1;
+        int i = hash(key) & mask;
+        while (EMPTY != keys[i]) {
+            if (key == keys[i]) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    // shifts back the following entries of the probe sequence, instead of leaving a tombstone
+    private void delete(final int slot) {
+        final int mask = keys.length - 1;
+        int hole = slot;
+        int i = slot;
+        while (true) {
+            i = (i + 1) & mask;
+            final long key = keys[i];
+            if (EMPTY == key) {
+                break;
+            }
+            // the entry can move to the hole if its home slot is not between the hole and itself
+            if (((i - hole) & mask) <= ((i - hash(key)) & mask)) {
+                keys[hole] = key;
+                relations[hole] = relations[i];
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+    }
+
+    private void allocate(final int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        relations = new char[capacity];
+    }
+
+    private void rehash(final int capacity) {
+        final long[] oldKeys = keys;
+        final char[] oldRelations = relations;
+        allocate(capacity);
+        final int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (EMPTY != oldKeys[j]) {
+                int i = hash(oldKeys[j]) & mask;
+                while (EMPTY != keys[i]) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                relations[i] = oldRelations[j];
+            }
+        }
+    }
+}
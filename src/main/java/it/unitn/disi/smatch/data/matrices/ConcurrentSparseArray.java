@@ -0,0 +1,183 @@
+package it.unitn.disi.smatch.data.matrices;
+
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sparse array for concurrent use. Rows are guarded by a set of locks striped over rows, so threads working on
+ * different rows rarely wait for each other. Row capacity grows geometrically, so that inserts are amortized,
+ * and a whole row can be replaced at once with {@link #setRow(int, char[])}.
+ * Does not have max density limit. No boundary checks.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ConcurrentSparseArray implements IMatchMatrix, IMatchMatrixFactory {
+
+    private static final int INITIAL_CAPACITY = 4;
+    private static final int MAX_STRIPES = 64;
+
+    private final int rows;
+    private final int cols;
+
+    // first size[x] elements are used. keep indexes sorted.
+    private final int[][] index;
+    private final char[][] value;
+    private final int[] size;
+
+    // row x is guarded by locks[x % locks.length]
+    private final ReadWriteLock[] locks;
+
+    /**
+     * Factory constructor.
+     */
+    public ConcurrentSparseArray() {
+        this.rows = 0;
+        this.cols = 0;
+        this.index = null;
+        this.value = null;
+        this.size = null;
+        this.locks = null;
+    }
+
+    /**
+     * Matrix instance constructor.
+     *
+     * @param x row count
+     * @param y column count
+     */
+    public ConcurrentSparseArray(final int x, final int y) {
+        this.rows = x;
+        this.cols = y;
+        this.index = new int[x][];
+        this.value = new char[x][];
+        this.size = new int[x];
+        this.locks = new ReadWriteLock[Math.max(1, Math.min(x, MAX_STRIPES))];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    @Override
+    public char get(final int x, final int y) {
+        final ReadWriteLock lock = locks[x % locks.length];
+        lock.readLock().lock();
+        try {
+            if (0 < size[x]) {
+                int idx = Arrays.binarySearch(index[x], 0, size[x], y);
+                if (-1 < idx) {
+                    return value[x][idx];
+                }
+            }
+            return IMappingElement.IDK;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean set(final int x, final int y, final char aValue) {
+        final ReadWriteLock lock = locks[x % locks.length];
+        lock.writeLock().lock();
+        try {
+            int idx = 0 < size[x] ? Arrays.binarySearch(index[x], 0, size[x], y) : -1;
+            if (IMappingElement.IDK != aValue) {
+                if (-1 < idx) {//element exists
+                    boolean result = aValue != value[x][idx];
+                    value[x][idx] = aValue;
+                    return result;
+                }
+                insert(x, -(idx + 1), y, aValue);
+                return true;
+            } else {
+                if (-1 < idx) {//element exists, remove it
+                    size[x]--;
+                    if (0 == size[x]) {
+                        index[x] = null;
+                        value[x] = null;
+                    } else {
+                        System.arraycopy(index[x], idx + 1, index[x], idx, size[x] - idx);
+                        System.arraycopy(value[x], idx + 1, value[x], idx, size[x] - idx);
+                    }
+                    return true;
+                }
+                return false;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the whole row. Cheaper than setting the row elements one by one.
+     *
+     * @param x      row index
+     * @param values row values, IDK for empty elements
+     */
+    public void setRow(final int x, final char[] values) {
+        int count = 0;
+        for (char c : values) {
+            if (IMappingElement.IDK != c) {
+                count++;
+            }
+        }
+        int[] newIndexRow = null;
+        char[] newValueRow = null;
+        if (0 < count) {
+            newIndexRow = new int[count];
+            newValueRow = new char[count];
+            int j = 0;
+            for (int y = 0; y < values.length; y++) {
+                if (IMappingElement.IDK != values[y]) {
+                    newIndexRow[j] = y;
+                    newValueRow[j] = values[y];
+                    j++;
+                }
+            }
+        }
+
+        final ReadWriteLock lock = locks[x % locks.length];
+        lock.writeLock().lock();
+        try {
+            index[x] = newIndexRow;
+            value[x] = newValueRow;
+            size[x] = count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int getX() {
+        return rows;
+    }
+
+    @Override
+    public int getY() {
+        return cols;
+    }
+
+    @Override
+    public IMatchMatrix getInstance(final int x, final int y) {
+        return new ConcurrentSparseArray(x, y);
+    }
+
+    private void insert(final int x, final int insertAt, final int y, final char aValue) {
+        if (null == index[x]) {
+            index[x] = new int[INITIAL_CAPACITY];
+            value[x] = new char[INITIAL_CAPACITY];
+        } else if (size[x] == index[x].length) {
+            int capacity = index[x].length + (index[x].length >> 1) + 1;
+            index[x] = Arrays.copyOf(index[x], capacity);
+            value[x] = Arrays.copyOf(value[x], capacity);
+        }
+        //keep index sorted
+        System.arraycopy(index[x], insertAt, index[x], insertAt + 1, size[x] - insertAt);
+        System.arraycopy(value[x], insertAt, value[x], insertAt + 1, size[x] - insertAt);
+        index[x][insertAt] = y;
+        value[x][insertAt] = aValue;
+        size[x]++;
+    }
+}
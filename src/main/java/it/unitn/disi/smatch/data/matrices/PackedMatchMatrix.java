@@ -0,0 +1,123 @@
+package it.unitn.disi.smatch.data.matrices;
+
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Matrix for matching results which packs relations into 4-bit codes, 16 per long. Takes a quarter of
+ * the memory of {@link MatchMatrix}. Instead of a lock, writes compare and swap the long holding the element,
+ * therefore threads writing different elements do not wait for each other.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class PackedMatchMatrix implements IMatchMatrix, IMatchMatrixFactory {
+
+    private static final int BITS = 4;
+    private static final int ELEMENTS_PER_WORD = Long.SIZE / BITS;
+    private static final long MASK = (1L << BITS) - 1;
+
+    // code -> relation, code 0 is IDK, so that a new matrix is filled with IDK
+    private static final char[] RELATIONS = {
+            IMappingElement.IDK,
+            IMappingElement.EQUIVALENCE,
+            IMappingElement.LESS_GENERAL,
+            IMappingElement.MORE_GENERAL,
+            IMappingElement.DISJOINT,
+            IMappingElement.ENTAILED_LESS_GENERAL,
+            IMappingElement.ENTAILED_MORE_GENERAL,
+            IMappingElement.ENTAILED_DISJOINT
+    };
+
+    private final int x;
+    private final int y;
+    private final AtomicLongArray elements;
+
+    /**
+     * Factory constructor.
+     */
+    public PackedMatchMatrix() {
+        this.x = 0;
+        this.y = 0;
+        this.elements = null;
+    }
+
+    /**
+     * Matrix instance constructor.
+     *
+     * @param x row count
+     * @param y column count
+     */
+    public PackedMatchMatrix(final int x, final int y) {
+        this.x = x;
+        this.y = y;
+        long words = ((long) x * y + ELEMENTS_PER_WORD - 1) / ELEMENTS_PER_WORD;
+        if (Integer.MAX_VALUE < words) {
+            throw new IllegalArgumentException("Matrix " + x + "x" + y + " is too big");
+        }
+        this.elements = new AtomicLongArray((int) words);
+    }
+
+    @Override
+    public char get(final int x, final int y) {
+        final long index = index(x, y);
+        final int shift = shift(index);
+        return RELATIONS[(int) ((elements.get(word(index)) >>> shift) & MASK)];
+    }
+
+    @Override
+    public boolean set(final int x, final int y, final char value) {
+        final long index = index(x, y);
+        final int word = word(index);
+        final int shift = shift(index);
+        final long code = encode(value);
+        while (true) {
+            final long old = elements.get(word);
+            if (code == ((old >>> shift) & MASK)) {
+                return false;
+            }
+            if (elements.compareAndSet(word, old, (old & ~(MASK << shift)) | (code << shift))) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public int getX() {
+        return x;
+    }
+
+    @Override
+    public int getY() {
+        return y;
+    }
+
+    @Override
+    public IMatchMatrix getInstance(final int x, final int y) {
+        return new PackedMatchMatrix(x, y);
+    }
+
+    private long index(final int x, final int y) {
+        if (x < 0 || this.x <= x || y < 0 || this.y <= y) {
+            throw new ArrayIndexOutOfBoundsException("(" + x + ", " + y + ") is out of " + this.x + "x" + this.y);
+        }
+        return (long) x * this.y + y;
+    }
+
+    private static int word(final long index) {
+        return (int) (index / ELEMENTS_PER_WORD);
+    }
+
+    private static int shift(final long index) {
+        return (int) (index % ELEMENTS_PER_WORD) * BITS;
+    }
+
+    private static long encode(final char relation) {
+        for (int code = 0; code < RELATIONS.length; code++) {
+            if (relation == RELATIONS[code]) {
+                return code;
+            }
+        }
+        throw new IllegalArgumentException("Unknown relation: " + relation);
+    }
+}
@@ -35,6 +35,15 @@ public class BaseNode<E extends IBaseNode, I extends IBaseNodeData> extends Inde
     @JsonIgnore
     protected Object userObject;
 
+    // cached counts, maintained on structure changes
+    @JsonIgnore
+    private int depth;
+    @JsonIgnore
+    private int descendants;
+    // the node whose children list contains this node, descendant counts are propagated to it
+    @JsonIgnore
+    private BaseNode<?, ?> listedIn;
+
     // node counter to set unique node id during creation
     protected static final AtomicLong nodeCounter = new AtomicLong();
 
@@ -205,13 +214,34 @@ public class BaseNode<E extends IBaseNode, I extends IBaseNodeData> extends Inde
         }
     }
 
-    
+    @SuppressWarnings({"unchecked"})
     public void setChildren(List<E> children) {
         for (E child : children){
             checkChild(child);
         }
-        
+
+        List<E> oldChildren = this.children;
+        if (null != oldChildren) {
+            for (E child : oldChildren) {
+                detach(child);
+            }
+        }
         this.children = new ArrayList<>(children);
+        for (E child : this.children) {
+            attach(child);
+            if (this == child.getParent() && child instanceof BaseNode) {
+                ((BaseNode<?, ?>) child).updateDepth();
+            }
+        }
+        // children left out are no longer children
+        if (null != oldChildren) {
+            for (E child : oldChildren) {
+                if (this == child.getParent() && !this.children.contains(child)) {
+                    child.setParent(null);
+                }
+            }
+        }
+        fireTreeStructureChanged((E) this);
     }
 
     @Override
@@ -251,6 +281,7 @@ public class BaseNode<E extends IBaseNode, I extends IBaseNodeData> extends Inde
             children = new ArrayList<>();
         }
         children.add(index, child);
+        attach(child);
         fireTreeStructureChanged((E) this);
     }
 
@@ -259,6 +290,7 @@ public class BaseNode<E extends IBaseNode, I extends IBaseNodeData> extends Inde
     public void removeChild(int index) {
         E child = getChildAt(index);
         children.remove(index);
+        detach(child);
         fireTreeStructureChanged((E) this);
         child.setParent(null);
     }
@@ -283,6 +315,7 @@ public class BaseNode<E extends IBaseNode, I extends IBaseNodeData> extends Inde
     public void setParent(E newParent) {
         removeFromParent();
         parent = newParent;
+        updateDepth();
     }
 
     @Override
@@ -308,11 +341,7 @@ public class BaseNode<E extends IBaseNode, I extends IBaseNodeData> extends Inde
 
     @Override
     public int ancestorCount() {
-        int result = 0;
-        if (null != parent) {
-            result = parent.ancestorCount() + 1;
-        }
-        return result;
+        return depth;
     }
 
     @Override
@@ -323,12 +352,7 @@ public class BaseNode<E extends IBaseNode, I extends IBaseNodeData> extends Inde
 
     @Override
     public int descendantCount() {
-        int descendantCount = 0;
-        for (Iterator<E> i = descendantsIterator(); i.hasNext(); ) {
-            i.next();
-            descendantCount++;
-        }
-        return descendantCount;
+        return descendants;
     }
 
     @Override
@@ -465,6 +489,54 @@ public class BaseNode<E extends IBaseNode, I extends IBaseNodeData> extends Inde
         }
     }
 
+    /**
+     * Adds the child subtree to the descendant counts of this node and of the nodes up the children lists.
+     */
+    private void attach(E child) {
+        if (child instanceof BaseNode) {
+            ((BaseNode<?, ?>) child).listedIn = this;
+        }
+        addDescendants(child.descendantCount() + 1);
+    }
+
+    private void detach(E child) {
+        if (child instanceof BaseNode && this == ((BaseNode<?, ?>) child).listedIn) {
+            ((BaseNode<?, ?>) child).listedIn = null;
+        }
+        addDescendants(-(child.descendantCount() + 1));
+    }
+
+    private void addDescendants(int delta) {
+        BaseNode<?, ?> node = this;
+        while (null != node) {
+            node.descendants += delta;
+            node = node.listedIn;
+        }
+    }
+
+    /**
+     * Recalculates the depth of this node and of its descendants, which have their parents set consistently.
+     */
+    private void updateDepth() {
+        depth = null == parent ? 0 : parent.ancestorCount() + 1;
+        if (null != children) {
+            Deque<BaseNode<?, ?>> stack = new ArrayDeque<>();
+            stack.push(this);
+            while (!stack.isEmpty()) {
+                BaseNode<?, ?> node = stack.pop();
+                if (null != node.children) {
+                    for (Object child : node.children) {
+                        if (child instanceof BaseNode && node == ((BaseNode<?, ?>) child).parent) {
+                            BaseNode<?, ?> c = (BaseNode<?, ?>) child;
+                            c.depth = node.depth + 1;
+                            stack.push(c);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     @SuppressWarnings({"unchecked"})
     private boolean isAncestor(E node) {
         if (null == node) {
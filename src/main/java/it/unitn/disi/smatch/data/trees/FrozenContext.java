@@ -0,0 +1,396 @@
+package it.unitn.disi.smatch.data.trees;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+
+import java.util.*;
+
+/**
+ * Immutable snapshot of a context, for matching. Nodes are numbered in depth first order and their structure,
+ * concepts and compiled node formulas are kept in arrays indexed by node number. Snapshots can be shared
+ * between threads. Changes to the context made after taking the snapshot are not reflected in it.
+ * <p/>
+ * Node formulas are compiled into clauses over the concepts of the context. Literals refer to the concepts
+ * by their number, starting from 1, negative literals denote negated concepts. A formula is compiled only if it
+ * refers to the concepts of the path to root of its node.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public final class FrozenContext {
+
+    private final IContext context;
+
+    private final INode[] nodes;
+    private final Map<INode, Integer> indexes;
+
+    // -1 for none
+    private final int[] parent;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] depth;
+    private final int[] descendants;
+
+    // concepts of node i are concepts[conceptStart[i]] .. concepts[conceptStart[i + 1] - 1]
+    private final IAtomicConceptOfLabel[] concepts;
+    private final int[] conceptStart;
+
+    // both node and label formulas are present
+    private final boolean[] formulas;
+    // node formula is compiled
+    private final boolean[] compiled;
+    // clauses of node i are clauseStart[i] .. clauseStart[i + 1] - 1
+    private final int[] clauseStart;
+    // literals of clause c are literals[c == 0 ? 0 : clauseEnds[c - 1]] .. literals[clauseEnds[c] - 1]
+    private final int[] clauseEnds;
+    private final int[] literals;
+
+    /**
+     * Takes a snapshot of the context.
+     *
+     * @param context context
+     */
+    public FrozenContext(IContext context) {
+        this.context = context;
+        final int size = context.nodesCount();
+        nodes = new INode[size];
+        indexes = new IdentityHashMap<>(size);
+        parent = new int[size];
+        firstChild = new int[size];
+        nextSibling = new int[size];
+        depth = new int[size];
+        descendants = new int[size];
+        conceptStart = new int[size + 1];
+        formulas = new boolean[size];
+        compiled = new boolean[size];
+        clauseStart = new int[size + 1];
+
+        Arrays.fill(firstChild, -1);
+        Arrays.fill(nextSibling, -1);
+        // last child seen for each node, to link siblings
+        final int[] lastChild = new int[size];
+        Arrays.fill(lastChild, -1);
+        int conceptCount = 0;
+        int n = 0;
+        for (Iterator<INode> i = context.nodeIterator(); i.hasNext(); n++) {
+            final INode node = i.next();
+            nodes[n] = node;
+            indexes.put(node, n);
+            descendants[n] = node.descendantCount();
+            final Integer p = node.hasParent() ? indexes.get(node.getParent()) : null;
+            if (null == p) {
+                parent[n] = -1;
+                depth[n] = 0;
+            } else {
+                parent[n] = p;
+                depth[n] = depth[p] + 1;
+                if (-1 == lastChild[p]) {
+                    firstChild[p] = n;
+                } else {
+                    nextSibling[lastChild[p]] = n;
+                }
+                lastChild[p] = n;
+            }
+            conceptStart[n] = conceptCount;
+            conceptCount += node.nodeData().getConcepts().size();
+        }
+        conceptStart[size] = conceptCount;
+
+        concepts = new IAtomicConceptOfLabel[conceptCount];
+        // concept ids, as referred to in formulas -> concept number
+        final Map<String, Integer> conceptNumbers = new HashMap<>();
+        // concept number -> node
+        final int[] conceptNodes = new int[conceptCount];
+        for (int i = 0; i < size; i++) {
+            final List<IAtomicConceptOfLabel> nodeConcepts = nodes[i].nodeData().getConcepts();
+            for (int j = 0; j < nodeConcepts.size(); j++) {
+                final int c = conceptStart[i] + j;
+                concepts[c] = nodeConcepts.get(j);
+                conceptNodes[c] = i;
+                conceptNumbers.put(nodes[i].nodeData().getId() + "_" + Integer.toString(concepts[c].getId()), c + 1);
+            }
+        }
+
+        final List<Integer> literalList = new ArrayList<>();
+        final List<Integer> clauseEndList = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            clauseStart[i] = clauseEndList.size();
+            final INodeData data = nodes[i].nodeData();
+            final String nodeFormula = data.getNodeFormula();
+            final String labelFormula = data.getLabelFormula();
+            formulas[i] = null != nodeFormula && !nodeFormula.isEmpty() && null != labelFormula && !labelFormula.isEmpty();
+            if (formulas[i]) {
+                compiled[i] = compile(nodeFormula, i, conceptNumbers, conceptNodes, literalList, clauseEndList);
+                if (!compiled[i]) {
+                    // drop the partially compiled formula
+                    while (clauseStart[i] < clauseEndList.size()) {
+                        clauseEndList.remove(clauseEndList.size() - 1);
+                    }
+                    final int literalCount = clauseEndList.isEmpty() ? 0 : clauseEndList.get(clauseEndList.size() - 1);
+                    while (literalCount < literalList.size()) {
+                        literalList.remove(literalList.size() - 1);
+                    }
+                }
+            }
+        }
+        clauseStart[size] = clauseEndList.size();
+        clauseEnds = toArray(clauseEndList);
+        literals = toArray(literalList);
+    }
+
+    /**
+     * Compiles the formula of the node. The syntax follows the one used by the node matchers.
+     *
+     * @return false if the formula refers to unknown concepts or to the concepts outside the path to root
+     */
+    private boolean compile(String formula, int node, Map<String, Integer> conceptNumbers, int[] conceptNodes,
+                            List<Integer> literalList, List<Integer> clauseEndList) {
+        boolean savedNegation = false;
+        for (StringTokenizer clauseTokenizer = new StringTokenizer(formula, "&"); clauseTokenizer.hasMoreTokens(); ) {
+            String clause = clauseTokenizer.nextToken();
+            for (StringTokenizer varTokenizer = new StringTokenizer(clause, "|() "); varTokenizer.hasMoreTokens(); ) {
+                String var = varTokenizer.nextToken();
+                boolean negation = false;
+                if (var.startsWith("~")) {
+                    negation = true;
+                    var = var.substring(1);
+                }
+                if (var.length() < 2) {
+                    savedNegation = true;
+                    continue;
+                }
+                Integer number = conceptNumbers.get(var);
+                if (null == number || !isAncestorOrSelf(conceptNodes[number - 1], node)) {
+                    return false;
+                }
+                if (negation || savedNegation) {
+                    savedNegation = false;
+                    literalList.add(-number);
+                } else {
+                    literalList.add(number);
+                }
+            }
+            clauseEndList.add(literalList.size());
+        }
+        return true;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        final int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = list.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the context the snapshot was taken of.
+     *
+     * @return the context
+     */
+    public IContext getContext() {
+        return context;
+    }
+
+    /**
+     * Returns the amount of nodes.
+     *
+     * @return the amount of nodes
+     */
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the node with the number.
+     *
+     * @param node node number
+     * @return the node
+     */
+    public INode getNode(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * Returns the number of the node, or -1 if the node was not in the context.
+     *
+     * @param node node
+     * @return the node number or -1
+     */
+    public int indexOf(INode node) {
+        final Integer result = indexes.get(node);
+        return null == result ? -1 : result;
+    }
+
+    /**
+     * Returns the number of the parent of the node, or -1 for the root.
+     *
+     * @param node node number
+     * @return the number of the parent of the node, or -1 for the root
+     */
+    public int getParent(int node) {
+        return parent[node];
+    }
+
+    /**
+     * Returns the number of the first child of the node, or -1 for leaves.
+     *
+     * @param node node number
+     * @return the number of the first child of the node, or -1 for leaves
+     */
+    public int getFirstChild(int node) {
+        return firstChild[node];
+    }
+
+    /**
+     * Returns the number of the next sibling of the node, or -1 for the last child.
+     *
+     * @param node node number
+     * @return the number of the next sibling of the node, or -1 for the last child
+     */
+    public int getNextSibling(int node) {
+        return nextSibling[node];
+    }
+
+    /**
+     * Returns the amount of ancestors of the node.
+     *
+     * @param node node number
+     * @return the amount of ancestors of the node
+     */
+    public int getDepth(int node) {
+        return depth[node];
+    }
+
+    /**
+     * Returns the amount of descendants of the node. They are numbered right after the node.
+     *
+     * @param node node number
+     * @return the amount of descendants of the node
+     */
+    public int getDescendantCount(int node) {
+        return descendants[node];
+    }
+
+    /**
+     * Returns whether <code>ancestor</code> is a proper ancestor of <code>node</code>.
+     *
+     * @param ancestor ancestor candidate number
+     * @param node     node number
+     * @return whether <code>ancestor</code> is a proper ancestor of <code>node</code>
+     */
+    public boolean isAncestor(int ancestor, int node) {
+        return ancestor < node && node <= ancestor + descendants[ancestor];
+    }
+
+    private boolean isAncestorOrSelf(int ancestor, int node) {
+        return ancestor == node || isAncestor(ancestor, node);
+    }
+
+    /**
+     * Returns the amount of concepts in all nodes.
+     *
+     * @return the amount of concepts
+     */
+    public int getConceptCount() {
+        return concepts.length;
+    }
+
+    /**
+     * Returns the concept with the number.
+     *
+     * @param concept concept number, starting from 0
+     * @return the concept
+     */
+    public IAtomicConceptOfLabel getConcept(int concept) {
+        return concepts[concept];
+    }
+
+    /**
+     * Returns the number of the first concept of the node.
+     *
+     * @param node node number
+     * @return the number of the first concept of the node
+     */
+    public int getConceptStart(int node) {
+        return conceptStart[node];
+    }
+
+    /**
+     * Returns the number following the last concept of the node.
+     *
+     * @param node node number
+     * @return the number following the last concept of the node
+     */
+    public int getConceptEnd(int node) {
+        return conceptStart[node + 1];
+    }
+
+    /**
+     * Returns whether the node has both node and label formulas.
+     *
+     * @param node node number
+     * @return whether the node has both node and label formulas
+     */
+    public boolean hasFormulas(int node) {
+        return formulas[node];
+    }
+
+    /**
+     * Returns whether the node formula is compiled.
+     *
+     * @param node node number
+     * @return whether the node formula is compiled
+     */
+    public boolean isCompiled(int node) {
+        return compiled[node];
+    }
+
+    /**
+     * Returns the number of the first clause of the compiled node formula.
+     *
+     * @param node node number
+     * @return the number of the first clause
+     */
+    public int getClauseStart(int node) {
+        return clauseStart[node];
+    }
+
+    /**
+     * Returns the number following the last clause of the compiled node formula.
+     *
+     * @param node node number
+     * @return the number following the last clause
+     */
+    public int getClauseEnd(int node) {
+        return clauseStart[node + 1];
+    }
+
+    /**
+     * Returns the index of the first literal of the clause.
+     *
+     * @param clause clause number
+     * @return the index of the first literal
+     */
+    public int getLiteralStart(int clause) {
+        return 0 == clause ? 0 : clauseEnds[clause - 1];
+    }
+
+    /**
+     * Returns the index following the last literal of the clause.
+     *
+     * @param clause clause number
+     * @return the index following the last literal
+     */
+    public int getLiteralEnd(int clause) {
+        return clauseEnds[clause];
+    }
+
+    /**
+     * Returns the literal, a concept number starting from 1, negative for negated concepts.
+     *
+     * @param index literal index
+     * @return the literal
+     */
+    public int getLiteral(int index) {
+        return literals[index];
+    }
+}
@@ -0,0 +1,176 @@
+package it.unitn.disi.smatch.data.trees;
+
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Numbers context nodes in depth first order, so that the descendants of a node take the interval of numbers
+ * following it. This turns ancestor and descendant tests into two comparisons. The index listens for tree
+ * structure changes and is rebuilt on the first query after a change.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class TreeIntervalIndex<E extends IBaseNode> implements IBaseTreeStructureChangedListener<E> {
+
+    private final IBaseContext<E> context;
+
+    // null when invalidated
+    private volatile Tour<E> tour;
+    private volatile int version;
+    // guarded by this
+    private E listenedRoot;
+
+    private static final class Tour<E> {
+        final E root;
+        final Map<E, Integer> positions;
+        final Object[] nodes;
+        // position after the last descendant
+        final int[] ends;
+
+        Tour(E root, int size) {
+            this.root = root;
+            this.positions = new IdentityHashMap<>(size);
+            this.nodes = new Object[size];
+            this.ends = new int[size];
+        }
+    }
+
+    /**
+     * Creates the index for the context.
+     *
+     * @param context context to index
+     */
+    public TreeIntervalIndex(IBaseContext<E> context) {
+        this.context = context;
+    }
+
+    /**
+     * Returns whether <code>ancestor</code> is a proper ancestor of <code>node</code>.
+     *
+     * @param ancestor ancestor candidate
+     * @param node     node
+     * @return whether <code>ancestor</code> is a proper ancestor of <code>node</code>
+     */
+    public boolean isAncestor(E ancestor, E node) {
+        final Tour<E> t = getTour();
+        final Integer a = t.positions.get(ancestor);
+        final Integer n = t.positions.get(node);
+        return null != a && null != n && a < n && n < t.ends[a];
+    }
+
+    /**
+     * Returns whether <code>descendant</code> is a proper descendant of <code>node</code>.
+     *
+     * @param descendant descendant candidate
+     * @param node       node
+     * @return whether <code>descendant</code> is a proper descendant of <code>node</code>
+     */
+    public boolean isDescendant(E descendant, E node) {
+        return isAncestor(node, descendant);
+    }
+
+    /**
+     * Returns the position of the node in depth first order, or -1 if the node does not belong to the context.
+     * The descendants of the node take positions from this one exclusive to {@link #getEnd(IBaseNode)} exclusive.
+     *
+     * @param node node
+     * @return the position of the node or -1
+     */
+    public int getPosition(E node) {
+        final Integer result = getTour().positions.get(node);
+        return null == result ? -1 : result;
+    }
+
+    /**
+     * Returns the position following the last descendant of the node, or -1 if the node does not belong to the context.
+     *
+     * @param node node
+     * @return the position following the last descendant of the node or -1
+     */
+    public int getEnd(E node) {
+        final Tour<E> t = getTour();
+        final Integer result = t.positions.get(node);
+        return null == result ? -1 : t.ends[result];
+    }
+
+    /**
+     * Returns the node at the position.
+     *
+     * @param position position in depth first order
+     * @return the node at the position
+     */
+    @SuppressWarnings("unchecked")
+    public E getNode(int position) {
+        return (E) getTour().nodes[position];
+    }
+
+    /**
+     * Returns the amount of indexed nodes.
+     *
+     * @return the amount of indexed nodes
+     */
+    public int size() {
+        return getTour().nodes.length;
+    }
+
+    /**
+     * Stops listening for the tree structure changes.
+     */
+    public synchronized void dispose() {
+        if (null != listenedRoot) {
+            listenedRoot.removeTreeStructureChangedListener(this);
+            listenedRoot = null;
+        }
+        tour = null;
+    }
+
+    @Override
+    public void treeStructureChanged(E node) {
+        version++;
+        tour = null;
+    }
+
+    private Tour<E> getTour() {
+        Tour<E> result = tour;
+        if (null == result || result.root != context.getRoot()) {
+            result = build();
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private synchronized Tour<E> build() {
+        final E root = context.getRoot();
+        final Tour<E> current = tour;
+        if (null != current && current.root == root) {
+            // built by another thread
+            return current;
+        }
+        if (listenedRoot != root) {
+            if (null != listenedRoot) {
+                listenedRoot.removeTreeStructureChangedListener(this);
+            }
+            if (null != root) {
+                root.addTreeStructureChangedListener(this);
+            }
+            listenedRoot = root;
+        }
+
+        final int startVersion = version;
+        final Tour<E> result = new Tour<>(root, context.nodesCount());
+        int position = 0;
+        for (Iterator<E> i = context.nodeIterator(); i.hasNext(); ) {
+            E node = i.next();
+            result.positions.put(node, position);
+            result.nodes[position] = node;
+            result.ends[position] = position + 1 + node.descendantCount();
+            position++;
+        }
+        // publish only if the tree has not changed meanwhile
+        if (startVersion == version) {
+            tour = result;
+        }
+        return result;
+    }
+}
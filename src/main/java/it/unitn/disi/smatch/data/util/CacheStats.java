@@ -0,0 +1,68 @@
+package it.unitn.disi.smatch.data.util;
+
+/**
+ * A snapshot of cache statistics.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long size;
+    private final long estimatedBytes;
+
+    public CacheStats(long hits, long misses, long evictions, long size, long estimatedBytes) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.size = size;
+        this.estimatedBytes = estimatedBytes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * Returns the amount of entries in the cache.
+     *
+     * @return the amount of entries in the cache
+     */
+    public long getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the estimated amount of memory taken by the cache entries, in bytes.
+     *
+     * @return the estimated amount of memory taken by the cache entries
+     */
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+    /**
+     * Returns the share of lookups answered from the cache.
+     *
+     * @return the share of lookups answered from the cache, 0 if there were no lookups
+     */
+    public double getHitRate() {
+        final long lookups = hits + misses;
+        return 0 == lookups ? 0.0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return "hits: " + hits + ", misses: " + misses + ", hit rate: " + String.format("%.1f%%", 100 * getHitRate())
+                + ", evictions: " + evictions + ", size: " + size + ", estimated bytes: " + estimatedBytes;
+    }
+}
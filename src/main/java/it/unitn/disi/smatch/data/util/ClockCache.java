@@ -0,0 +1,168 @@
+package it.unitn.disi.smatch.data.util;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe cache bounded by the amount of entries and by the estimated amount of memory they take. When
+ * a bound is exceeded, entries are evicted following the CLOCK (second chance) policy: an entry which was read
+ * since the clock hand passed it last time survives one more round. Reads do not take locks, they only mark
+ * the entry as referenced.
+ * <p/>
+ * Null keys and values are not allowed.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ClockCache<K, V> {
+
+    // estimated size of an entry with its map node, without the key and the value
+    private static final int ENTRY_BYTES = 72;
+
+    private final int maxEntries;
+    private final long maxBytes;
+
+    private final ConcurrentHashMap<K, Entry<K, V>> entries = new ConcurrentHashMap<>();
+
+    // guarded by itself, as well as entryCount and estimatedBytes
+    private final ArrayDeque<Entry<K, V>> clock = new ArrayDeque<>();
+    private int entryCount;
+    private long estimatedBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    private static final class Entry<K, V> {
+        final K key;
+        final V value;
+        final long bytes;
+        volatile boolean referenced;
+
+        Entry(K key, V value, long bytes) {
+            this.key = key;
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Creates a cache bounded by the amount of entries.
+     *
+     * @param maxEntries maximum amount of entries
+     */
+    public ClockCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE);
+    }
+
+    /**
+     * Creates a cache bounded by the amount of entries and by the estimated amount of memory they take.
+     *
+     * @param maxEntries maximum amount of entries
+     * @param maxBytes   maximum estimated amount of memory taken by the entries, in bytes
+     */
+    public ClockCache(int maxEntries, long maxBytes) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries should be positive, found: " + maxEntries);
+        }
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes should be positive, found: " + maxBytes);
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the value cached for the key and counts a hit, or returns null and counts a miss.
+     *
+     * @param key key
+     * @return the value or null
+     */
+    public V get(K key) {
+        final V result = peek(key);
+        if (null != result) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value cached for the key, or null, without counting it. For caches which decide themselves
+     * whether the value answers the lookup, see {@link #countHit()} and {@link #countMiss()}.
+     *
+     * @param key key
+     * @return the value or null
+     */
+    public V peek(K key) {
+        final Entry<K, V> entry = entries.get(key);
+        if (null == entry) {
+            return null;
+        }
+        entry.referenced = true;
+        return entry.value;
+    }
+
+    /**
+     * Caches the value for the key, unless another thread has cached a value meanwhile, and evicts entries
+     * while the cache exceeds its bounds.
+     *
+     * @param key   key
+     * @param value value
+     * @param bytes estimated amount of memory taken by the key and the value, in bytes
+     * @return the value cached for the key
+     */
+    public V putIfAbsent(K key, V value, long bytes) {
+        final Entry<K, V> entry = new Entry<>(key, value, ENTRY_BYTES + bytes);
+        final Entry<K, V> existing = entries.putIfAbsent(key, entry);
+        if (null != existing) {
+            return existing.value;
+        }
+        synchronized (clock) {
+            clock.addLast(entry);
+            entryCount++;
+            estimatedBytes += entry.bytes;
+            while ((entryCount > maxEntries || estimatedBytes > maxBytes) && !clock.isEmpty()) {
+                final Entry<K, V> candidate = clock.pollFirst();
+                if (candidate.referenced) {
+                    candidate.referenced = false;
+                    clock.addLast(candidate);
+                } else {
+                    entries.remove(candidate.key, candidate);
+                    entryCount--;
+                    estimatedBytes -= candidate.bytes;
+                    evictions.incrementAndGet();
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Counts a lookup answered from the cache.
+     */
+    public void countHit() {
+        hits.incrementAndGet();
+    }
+
+    /**
+     * Counts a lookup not answered from the cache.
+     */
+    public void countMiss() {
+        misses.incrementAndGet();
+    }
+
+    /**
+     * Returns the cache statistics.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getStats() {
+        synchronized (clock) {
+            return new CacheStats(hits.get(), misses.get(), evictions.get(), entryCount, estimatedBytes);
+        }
+    }
+}
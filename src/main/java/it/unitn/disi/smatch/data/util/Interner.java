@@ -0,0 +1,86 @@
+package it.unitn.disi.smatch.data.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns values into numbers, so that caches can key their entries by numbers instead of the values. The numbers
+ * are kept in a {@link ClockCache} bounded by the amount of entries. A value evicted from the interner gets a new
+ * number the next time it is interned, and numbers are not given twice, so the entries keyed by the old number
+ * are never found again and age out of their caches.
+ * <p/>
+ * The numbers are not given twice until the counter wraps around after 2<sup>32</sup> numbers.
+ *
+ * @param <T> value type
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class Interner<T> {
+
+    /**
+     * Returned by {@link #find(Object)} for values which are not interned.
+     */
+    public static final int NONE = -1;
+
+    private final ClockCache<T, Integer> numbers;
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * Creates an interner bounded by the amount of values.
+     *
+     * @param maxEntries maximum amount of values
+     */
+    public Interner(int maxEntries) {
+        this.numbers = new ClockCache<>(maxEntries);
+    }
+
+    /**
+     * Returns the number of the value, giving it a new number if the value is not interned.
+     *
+     * @param value value, it should not be modified after it is interned
+     * @param bytes estimated amount of memory taken by the value, in bytes
+     * @return the number of the value
+     */
+    public int intern(T value, long bytes) {
+        final Integer result = numbers.get(value);
+        if (null != result) {
+            return result;
+        }
+        return add(value, bytes);
+    }
+
+    /**
+     * Returns the number of the value, or {@link #NONE} if the value is not interned. Lets the callers look up
+     * values with a reusable probe and intern a copy only when the value is not found.
+     *
+     * @param value value
+     * @return the number of the value or {@link #NONE}
+     */
+    public int find(T value) {
+        final Integer result = numbers.get(value);
+        return null == result ? NONE : result;
+    }
+
+    /**
+     * Gives the value a new number, unless another thread has interned the value meanwhile.
+     *
+     * @param value value, it should not be modified after it is interned
+     * @param bytes estimated amount of memory taken by the value, in bytes
+     * @return the number of the value
+     */
+    public int add(T value, long bytes) {
+        // skips NONE when the counter wraps around
+        int number = count.getAndIncrement();
+        if (NONE == number) {
+            number = count.getAndIncrement();
+        }
+        return numbers.putIfAbsent(value, number, 16 + bytes);
+    }
+
+    /**
+     * Returns the interner statistics.
+     *
+     * @return the interner statistics
+     */
+    public CacheStats getStats() {
+        return numbers.getStats();
+    }
+}
@@ -0,0 +1,127 @@
+package it.unitn.disi.smatch.deciders;
+
+/**
+ * Base class for SAT solvers which accept problems in DIMACS format only. Converts problems passed as
+ * {@link ICNF} into DIMACS and passes them to {@link #isSatisfiable(String)}.
+ * Also hosts conversions between DIMACS and {@link ICNF} shared by the solvers.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public abstract class BaseSATSolver implements ICNFSATSolver {
+
+    @Override
+    public boolean isSatisfiable(ICNF problem) throws SATSolverException {
+        return isSatisfiable(toDIMACS(problem));
+    }
+
+    @Override
+    public ISATSession newSession() {
+        return new SolverSession(this);
+    }
+
+    /**
+     * Returns the solver itself if it takes {@link ICNF} problems, otherwise wraps it into a solver which
+     * converts the problems into DIMACS.
+     *
+     * @param satSolver a solver
+     * @return a solver taking {@link ICNF} problems
+     */
+    public static ICNFSATSolver adapt(final ISATSolver satSolver) {
+        if (satSolver instanceof ICNFSATSolver) {
+            return (ICNFSATSolver) satSolver;
+        }
+        return new BaseSATSolver() {
+            @Override
+            public boolean isSatisfiable(String input) throws SATSolverException {
+                return satSolver.isSatisfiable(input);
+            }
+        };
+    }
+
+    /**
+     * Converts the problem into DIMACS format.
+     *
+     * @param problem a problem
+     * @return the problem in DIMACS format
+     */
+    public static String toDIMACS(ICNF problem) {
+        if (problem instanceof CNFBuilder) {
+            return ((CNFBuilder) problem).toDIMACS();
+        }
+        StringBuilder result = new StringBuilder();
+        result.append("p cnf ").append(problem.getVariableCount()).append(' ').append(problem.getClauseCount()).append('\n');
+        for (int c = 0; c < problem.getClauseCount(); c++) {
+            for (int l = 0; l < problem.getClauseSize(c); l++) {
+                result.append(problem.getLiteral(c, l)).append(' ');
+            }
+            result.append("0\n");
+        }
+        return result.toString();
+    }
+
+    /**
+     * Parses a problem in DIMACS format. Comment lines are skipped, the problem line declares
+     * the amount of variables, clauses are terminated by 0.
+     *
+     * @param input  a problem in DIMACS format
+     * @param result where to put the problem
+     * @throws SATSolverException SATSolverException
+     */
+    public static void parseDIMACS(String input, CNFBuilder result) throws SATSolverException {
+        result.clear();
+        final int length = input.length();
+        int i = 0;
+        boolean clauseOpen = false;
+        while (i < length) {
+            char c = input.charAt(i);
+            if ('c' == c || 'p' == c || '%' == c) {
+                int lineEnd = input.indexOf('\n', i);
+                if (-1 == lineEnd) {
+                    lineEnd = length;
+                }
+                if ('p' == c) {
+                    // p cnf <variables> <clauses>
+                    String[] tokens = input.substring(i, lineEnd).trim().split("\\s+");
+                    if (4 != tokens.length || !"cnf".equals(tokens[1])) {
+                        throw new SATSolverException("Malformed problem line: " + input.substring(i, lineEnd));
+                    }
+                    try {
+                        result.setVariableCount(Math.max(result.getVariableCount(), Integer.parseInt(tokens[2])));
+                    } catch (NumberFormatException e) {
+                        throw new SATSolverException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+                    }
+                }
+                i = lineEnd;
+            } else if ('-' == c || ('0' <= c && c <= '9')) {
+                boolean negative = '-' == c;
+                if (negative) {
+                    i++;
+                }
+                int value = 0;
+                int digits = 0;
+                while (i < length && '0' <= (c = input.charAt(i)) && c <= '9') {
+                    value = 10 * value + (c - '0');
+                    digits++;
+                    i++;
+                }
+                if (0 == digits) {
+                    throw new SATSolverException("Malformed literal at position " + i);
+                }
+                if (0 == value) {
+                    result.endClause();
+                    clauseOpen = false;
+                } else {
+                    result.addLiteral(negative ? -value : value);
+                    clauseOpen = true;
+                }
+            } else if (Character.isWhitespace(c)) {
+                i++;
+            } else {
+                throw new SATSolverException("Unexpected character '" + c + "' at position " + i);
+            }
+        }
+        if (clauseOpen) {
+            result.endClause();
+        }
+    }
+}
@@ -0,0 +1,582 @@
+package it.unitn.disi.smatch.deciders;
+
+import java.util.Arrays;
+
+/**
+ * In-process conflict-driven clause learning SAT solver. Uses two watched literals propagation,
+ * first UIP clause learning, VSIDS-like variable activities with phase saving and Luby restarts.
+ * <p/>
+ * The solver is tuned for the many tiny problems node matching produces: tens of variables and
+ * hundreds of clauses. Therefore decisions scan activities linearly instead of keeping a heap and learned
+ * clauses are never deleted. Each thread keeps its own search state, which is reused from one call
+ * to the next, so after warming up the solver allocates next to nothing. Sessions solve incrementally.
+ * <p/>
+ * Thread-safe.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CDCLSolver implements ICNFSATSolver {
+
+    private final ThreadLocal<Search> searches = new ThreadLocal<Search>() {
+        @Override
+        protected Search initialValue() {
+            return new Search();
+        }
+    };
+
+    /**
+     * Checks whether the problem is satisfiable or not.
+     *
+     * @param input The String that contains sat problem in DIMACS format
+     * @return boolean True if the formula is satisfiable, false otherwise
+     * @throws SATSolverException SATSolverException
+     */
+    public boolean isSatisfiable(String input) throws SATSolverException {
+        Search search = searches.get();
+        BaseSATSolver.parseDIMACS(input, search.problem);
+        return search.solve(search.problem);
+    }
+
+    /**
+     * Checks whether the problem is satisfiable or not.
+     *
+     * @param problem problem in CNF
+     * @return boolean True if the formula is satisfiable, false otherwise
+     * @throws SATSolverException SATSolverException
+     */
+    public boolean isSatisfiable(ICNF problem) throws SATSolverException {
+        return searches.get().solve(problem);
+    }
+
+    /**
+     * Creates an incremental session, which keeps learned clauses, variable activities and phases
+     * from one check to the next.
+     *
+     * @return a new session
+     */
+    public ISATSession newSession() {
+        return new Session();
+    }
+
+    /**
+     * Incremental session. Groups of clauses opened by push are guarded by selector variables, which are assumed
+     * true while the group is open and set false when it is popped. Learned clauses depending on a group contain
+     * the negation of its selector, therefore they stay valid after the group is popped. Selectors are numbered
+     * together with the variables of the caller, which are renumbered in the order of appearance.
+     */
+    private static final class Session implements ISATSession {
+
+        private final Search search = new Search();
+        private final CNFBuilder translated = new CNFBuilder();
+
+        // caller variable -> search variable, 0 if not seen yet
+        private int[] variables = new int[64];
+        private int maxVariable;
+        private int variableCount;
+
+        private int[] selectors = new int[4];
+        private int depth;
+
+        private int[] assumptions = new int[8];
+
+        public void clear() {
+            search.clear();
+            Arrays.fill(variables, 0, maxVariable + 1, 0);
+            maxVariable = 0;
+            variableCount = 0;
+            depth = 0;
+        }
+
+        public void addClauses(ICNF clauses) {
+            translated.clear();
+            for (int c = 0; c < clauses.getClauseCount(); c++) {
+                for (int l = 0; l < clauses.getClauseSize(c); l++) {
+                    translated.addLiteral(translate(clauses.getLiteral(c, l)));
+                }
+                if (0 < depth) {
+                    translated.addLiteral(-selectors[depth - 1]);
+                }
+                translated.endClause();
+            }
+            search.addClauses(translated);
+        }
+
+        public void push() {
+            if (depth == selectors.length) {
+                selectors = Arrays.copyOf(selectors, 2 * depth);
+            }
+            selectors[depth++] = ++variableCount;
+        }
+
+        public void pop() {
+            if (0 == depth) {
+                throw new IllegalStateException("pop() without push()");
+            }
+            translated.clear();
+            translated.addClause(-selectors[--depth]);
+            search.addClauses(translated);
+        }
+
+        public boolean isSatisfiable(int... assumptions) {
+            final int count = depth + assumptions.length;
+            if (this.assumptions.length < count) {
+                this.assumptions = new int[Math.max(count, 2 * this.assumptions.length)];
+            }
+            System.arraycopy(selectors, 0, this.assumptions, 0, depth);
+            for (int i = 0; i < assumptions.length; i++) {
+                this.assumptions[depth + i] = translate(assumptions[i]);
+            }
+            search.ensureVariables(variableCount);
+            return search.solve(this.assumptions, count);
+        }
+
+        private int translate(int literal) {
+            final int variable = Math.abs(literal);
+            if (variable >= variables.length) {
+                variables = Arrays.copyOf(variables, Math.max(variable + 1, 2 * variables.length));
+            }
+            if (0 == variables[variable]) {
+                variables[variable] = ++variableCount;
+                maxVariable = Math.max(maxVariable, variable);
+            }
+            return 0 < literal ? variables[variable] : -variables[variable];
+        }
+    }
+
+    /**
+     * Search state of one thread. Variables are numbered from 0, the literal of the variable v is 2v,
+     * the negated literal is 2v+1.
+     */
+    private static final class Search {
+
+        private static final int UNDEFINED = -1;
+        private static final int RESTART_BASE = 32;
+        private static final double ACTIVITY_DECAY = 0.95;
+        private static final double ACTIVITY_LIMIT = 1e100;
+        private static final int[] NO_ASSUMPTIONS = new int[0];
+
+        // the problem parsed from DIMACS
+        final CNFBuilder problem = new CNFBuilder();
+
+        private int variableCount;
+
+        // clauses, original and learned, one after another
+        private int[] literals = new int[256];
+        private int literalCount;
+        private int[] clauseStarts = new int[64];
+        private int[] clauseSizes = new int[64];
+        private int clauseCount;
+
+        // watches[l] lists the clauses watching the literal l
+        private int[][] watches = new int[0][];
+        private int[] watchCounts = new int[0];
+
+        // per variable: 1 true, -1 false, 0 unassigned
+        private byte[] values = new byte[0];
+        private byte[] phases = new byte[0];
+        private byte[] seen = new byte[0];
+        private int[] levels = new int[0];
+        private int[] reasons = new int[0];
+        private double[] activities = new double[0];
+        private double activityIncrement;
+
+        private int[] trail = new int[0];
+        private int trailSize;
+        private int propagated;
+        private int[] levelStarts = new int[0];
+        private int decisionLevel;
+
+        private int[] learned = new int[16];
+        private int learnedSize;
+
+        // per literal marks used to drop duplicate literals and tautologies
+        private int[] literalMarks = new int[0];
+        private int mark;
+
+        // false once a conflict without decisions has been found
+        private boolean consistent = true;
+
+        /**
+         * Removes all clauses and variables.
+         */
+        void clear() {
+            variableCount = 0;
+            literalCount = 0;
+            clauseCount = 0;
+            trailSize = 0;
+            propagated = 0;
+            decisionLevel = 0;
+            activityIncrement = 1.0;
+            consistent = true;
+        }
+
+        /**
+         * Adds clauses. Literals false without decisions are dropped, clauses true without decisions are skipped.
+         */
+        void addClauses(ICNF cnf) {
+            backtrack(0);
+            int variables = Math.max(variableCount, cnf.getVariableCount());
+            final int clauses = cnf.getClauseCount();
+            for (int c = 0; c < clauses; c++) {
+                for (int l = cnf.getClauseSize(c) - 1; l >= 0; l--) {
+                    variables = Math.max(variables, Math.abs(cnf.getLiteral(c, l)));
+                }
+            }
+            ensureVariables(variables);
+
+            for (int c = 0; c < clauses && consistent; c++) {
+                final int size = cnf.getClauseSize(c);
+                learnedSize = 0;
+                boolean satisfied = false;
+                mark++;
+                for (int l = 0; l < size; l++) {
+                    final int literal = toLiteral(cnf.getLiteral(c, l));
+                    final int value = valueOf(literal);
+                    if (0 < value || mark == literalMarks[literal ^ 1]) {
+                        satisfied = true;
+                        break;
+                    }
+                    if (0 == value && mark != literalMarks[literal]) {
+                        literalMarks[literal] = mark;
+                        addLearned(literal);
+                    }
+                }
+                if (satisfied) {
+                    continue;
+                }
+                if (0 == learnedSize) {
+                    consistent = false;
+                } else if (1 == learnedSize) {
+                    // propagation starts only when solving, so units may be assigned right away
+                    assign(learned[0], UNDEFINED);
+                } else {
+                    addClause(learned, learnedSize);
+                }
+            }
+        }
+
+        boolean solve(ICNF cnf) {
+            clear();
+            addClauses(cnf);
+            return solve(NO_ASSUMPTIONS, 0);
+        }
+
+        /**
+         * Checks satisfiability assuming the literals are true. Assumptions take the first decision levels.
+         */
+        boolean solve(int[] assumptions, int assumptionCount) {
+            if (!consistent) {
+                return false;
+            }
+            backtrack(0);
+            if (levelStarts.length < variableCount + assumptionCount + 1) {
+                levelStarts = new int[variableCount + assumptionCount + 1];
+            }
+            int restarts = 0;
+            int conflicts = 0;
+            int conflictLimit = RESTART_BASE * luby(restarts);
+            try {
+                while (true) {
+                    int conflict = propagate();
+                    if (UNDEFINED != conflict) {
+                        if (0 == decisionLevel) {
+                            consistent = false;
+                            return false;
+                        }
+                        conflicts++;
+                        int backjumpLevel = analyze(conflict);
+                        backtrack(backjumpLevel);
+                        if (1 == learnedSize) {
+                            assign(learned[0], UNDEFINED);
+                        } else {
+                            int clause = addClause(learned, learnedSize);
+                            assign(learned[0], clause);
+                        }
+                        activityIncrement /= ACTIVITY_DECAY;
+                    } else {
+                        if (conflicts >= conflictLimit) {
+                            backtrack(0);
+                            restarts++;
+                            conflicts = 0;
+                            conflictLimit = RESTART_BASE * luby(restarts);
+                        }
+                        int literal;
+                        if (decisionLevel < assumptionCount) {
+                            literal = toLiteral(assumptions[decisionLevel]);
+                            int value = valueOf(literal);
+                            if (0 > value) {
+                                return false;
+                            } else if (0 < value) {
+                                // keep assumptions and levels aligned with an empty level
+                                levelStarts[decisionLevel++] = trailSize;
+                                continue;
+                            }
+                        } else {
+                            int variable = pickBranchVariable();
+                            if (UNDEFINED == variable) {
+                                return true;
+                            }
+                            literal = 2 * variable + (0 < phases[variable] ? 0 : 1);
+                        }
+                        levelStarts[decisionLevel++] = trailSize;
+                        assign(literal, UNDEFINED);
+                    }
+                }
+            } finally {
+                backtrack(0);
+            }
+        }
+
+        /**
+         * Grows the arrays to hold the variables, keeping the state of the existing ones.
+         */
+        private void ensureVariables(int variables) {
+            if (values.length < variables) {
+                int capacity = Math.max(variables, 2 * values.length);
+                values = Arrays.copyOf(values, capacity);
+                phases = Arrays.copyOf(phases, capacity);
+                seen = Arrays.copyOf(seen, capacity);
+                levels = Arrays.copyOf(levels, capacity);
+                reasons = Arrays.copyOf(reasons, capacity);
+                activities = Arrays.copyOf(activities, capacity);
+                trail = Arrays.copyOf(trail, capacity);
+                levelStarts = Arrays.copyOf(levelStarts, capacity + 1);
+            }
+            if (watches.length < 2 * variables) {
+                int capacity = Math.max(2 * variables, 2 * watches.length);
+                int[][] newWatches = Arrays.copyOf(watches, capacity);
+                for (int l = watches.length; l < capacity; l++) {
+                    newWatches[l] = new int[4];
+                }
+                watches = newWatches;
+                watchCounts = Arrays.copyOf(watchCounts, capacity);
+                literalMarks = new int[capacity];
+                mark = 0;
+            }
+            if (variableCount < variables) {
+                Arrays.fill(values, variableCount, variables, (byte) 0);
+                Arrays.fill(phases, variableCount, variables, (byte) 0);
+                Arrays.fill(activities, variableCount, variables, 0.0);
+                Arrays.fill(watchCounts, 2 * variableCount, 2 * variables, 0);
+                variableCount = variables;
+            }
+        }
+
+        private static int toLiteral(int dimacs) {
+            return 0 < dimacs ? 2 * (dimacs - 1) : 2 * (-dimacs - 1) + 1;
+        }
+
+        /**
+         * Returns 1 if the literal is true, -1 if false and 0 if unassigned.
+         */
+        private int valueOf(int literal) {
+            int value = values[literal >> 1];
+            return 0 == (literal & 1) ? value : -value;
+        }
+
+        private void assign(int literal, int reason) {
+            final int variable = literal >> 1;
+            values[variable] = (byte) (0 == (literal & 1) ? 1 : -1);
+            levels[variable] = decisionLevel;
+            reasons[variable] = reason;
+            trail[trailSize++] = literal;
+        }
+
+        private int addClause(int[] clause, int size) {
+            if (literalCount + size > literals.length) {
+                literals = Arrays.copyOf(literals, Math.max(literalCount + size, 2 * literals.length));
+            }
+            if (clauseCount == clauseStarts.length) {
+                clauseStarts = Arrays.copyOf(clauseStarts, 2 * clauseStarts.length);
+                clauseSizes = Arrays.copyOf(clauseSizes, 2 * clauseSizes.length);
+            }
+            System.arraycopy(clause, 0, literals, literalCount, size);
+            final int index = clauseCount++;
+            clauseStarts[index] = literalCount;
+            clauseSizes[index] = size;
+            literalCount += size;
+            watch(clause[0], index);
+            watch(clause[1], index);
+            return index;
+        }
+
+        private void watch(int literal, int clause) {
+            int[] list = watches[literal];
+            if (watchCounts[literal] == list.length) {
+                list = Arrays.copyOf(list, 2 * list.length);
+                watches[literal] = list;
+            }
+            list[watchCounts[literal]++] = clause;
+        }
+
+        /**
+         * Propagates the assignments on the trail. Returns the conflicting clause or UNDEFINED.
+         * The first literal of a clause is the one it implies, the first two literals are watched.
+         */
+        private int propagate() {
+            while (propagated < trailSize) {
+                final int falseLiteral = trail[propagated++] ^ 1;
+                final int[] list = watches[falseLiteral];
+                final int count = watchCounts[falseLiteral];
+                int i = 0;
+                int j = 0;
+                while (i < count) {
+                    final int clause = list[i++];
+                    final int start = clauseStarts[clause];
+                    if (literals[start] == falseLiteral) {
+                        literals[start] = literals[start + 1];
+                        literals[start + 1] = falseLiteral;
+                    }
+                    final int first = literals[start];
+                    if (0 < valueOf(first)) {
+                        list[j++] = clause;
+                        continue;
+                    }
+                    boolean moved = false;
+                    final int end = start + clauseSizes[clause];
+                    for (int k = start + 2; k < end; k++) {
+                        int literal = literals[k];
+                        if (0 <= valueOf(literal)) {
+                            literals[start + 1] = literal;
+                            literals[k] = falseLiteral;
+                            watch(literal, clause);
+                            moved = true;
+                            break;
+                        }
+                    }
+                    if (moved) {
+                        continue;
+                    }
+                    list[j++] = clause;
+                    if (0 > valueOf(first)) {
+                        while (i < count) {
+                            list[j++] = list[i++];
+                        }
+                        watchCounts[falseLiteral] = j;
+                        propagated = trailSize;
+                        return clause;
+                    }
+                    assign(first, clause);
+                }
+                watchCounts[falseLiteral] = j;
+            }
+            return UNDEFINED;
+        }
+
+        /**
+         * Derives the first UIP clause from the conflict into learned, asserting literal first and
+         * the literal of the highest remaining level second. Returns the level to backjump to.
+         */
+        private int analyze(int conflict) {
+            learnedSize = 0;
+            addLearned(0);
+            int pending = 0;
+            int literal = UNDEFINED;
+            int index = trailSize - 1;
+            int clause = conflict;
+            do {
+                final int start = clauseStarts[clause];
+                final int end = start + clauseSizes[clause];
+                for (int k = UNDEFINED == literal ? start : start + 1; k < end; k++) {
+                    final int q = literals[k];
+                    final int variable = q >> 1;
+                    if (0 == seen[variable] && 0 < levels[variable]) {
+                        seen[variable] = 1;
+                        bump(variable);
+                        if (levels[variable] >= decisionLevel) {
+                            pending++;
+                        } else {
+                            addLearned(q);
+                        }
+                    }
+                }
+                while (0 == seen[trail[index] >> 1]) {
+                    index--;
+                }
+                literal = trail[index--];
+                clause = reasons[literal >> 1];
+                seen[literal >> 1] = 0;
+                pending--;
+            } while (0 < pending);
+            learned[0] = literal ^ 1;
+
+            int backjumpLevel = 0;
+            int highest = 1;
+            for (int k = 1; k < learnedSize; k++) {
+                final int variable = learned[k] >> 1;
+                seen[variable] = 0;
+                if (levels[variable] > backjumpLevel) {
+                    backjumpLevel = levels[variable];
+                    highest = k;
+                }
+            }
+            if (1 < learnedSize) {
+                int swap = learned[1];
+                learned[1] = learned[highest];
+                learned[highest] = swap;
+            }
+            return backjumpLevel;
+        }
+
+        private void addLearned(int literal) {
+            if (learnedSize == learned.length) {
+                learned = Arrays.copyOf(learned, 2 * learned.length);
+            }
+            learned[learnedSize++] = literal;
+        }
+
+        private void bump(int variable) {
+            activities[variable] += activityIncrement;
+            if (activities[variable] > ACTIVITY_LIMIT) {
+                for (int v = 0; v < variableCount; v++) {
+                    activities[v] /= ACTIVITY_LIMIT;
+                }
+                activityIncrement /= ACTIVITY_LIMIT;
+            }
+        }
+
+        private void backtrack(int level) {
+            if (decisionLevel > level) {
+                final int start = levelStarts[level];
+                for (int i = trailSize - 1; i >= start; i--) {
+                    final int variable = trail[i] >> 1;
+                    phases[variable] = values[variable];
+                    values[variable] = 0;
+                }
+                trailSize = start;
+                propagated = start;
+                decisionLevel = level;
+            }
+        }
+
+        private int pickBranchVariable() {
+            int best = UNDEFINED;
+            double bestActivity = -1.0;
+            for (int v = 0; v < variableCount; v++) {
+                if (0 == values[v] && activities[v] > bestActivity) {
+                    best = v;
+                    bestActivity = activities[v];
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Returns the element of the Luby sequence 1, 1, 2, 1, 1, 2, 4, ... at the given index.
+         */
+        private static int luby(int index) {
+            int size = 1;
+            int sequence = 0;
+            while (size < index + 1) {
+                sequence++;
+                size = 2 * size + 1;
+            }
+            while (size - 1 != index) {
+                size = (size - 1) >> 1;
+                sequence--;
+                index = index % size;
+            }
+            return 1 << sequence;
+        }
+    }
+}
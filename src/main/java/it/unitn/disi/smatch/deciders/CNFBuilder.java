@@ -0,0 +1,262 @@
+package it.unitn.disi.smatch.deciders;
+
+import java.util.Arrays;
+
+/**
+ * Accumulates a SAT problem in conjunctive normal form as integer literals stored in flat growable arrays.
+ * Variables are numbered from 1 as in DIMACS, negative literals denote negated variables.
+ * <p/>
+ * The builder is meant to be cleared and reused from one problem to the next, therefore after warming up
+ * it does not allocate. Binary clauses added with {@link #addUniqueClause(int, int)} are deduplicated
+ * through a hash set of clause keys packed into longs.
+ * <p/>
+ * Not thread-safe.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CNFBuilder implements ICNF {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int variableCount;
+
+    // literals of all clauses one after another
+    private int[] literals;
+    private int literalCount;
+
+    // clauseEnds[i] is the index in literals after the last literal of the clause i
+    private int[] clauseEnds;
+    private int clauseCount;
+
+    // open addressing hash set of packed binary clauses, 0 marks a free slot
+    private long[] binaryKeys;
+    private int binaryKeyCount;
+
+    public CNFBuilder() {
+        this.literals = new int[DEFAULT_CAPACITY];
+        this.clauseEnds = new int[DEFAULT_CAPACITY];
+        this.binaryKeys = new long[DEFAULT_CAPACITY];
+    }
+
+    /**
+     * Removes all clauses and variables, keeping the allocated arrays.
+     */
+    public void clear() {
+        variableCount = 0;
+        literalCount = 0;
+        clauseCount = 0;
+        if (0 < binaryKeyCount) {
+            Arrays.fill(binaryKeys, 0L);
+            binaryKeyCount = 0;
+        }
+    }
+
+    @Override
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Sets the amount of variables in the problem. Variables which do not appear in clauses count too.
+     *
+     * @param variableCount the amount of variables
+     */
+    public void setVariableCount(int variableCount) {
+        this.variableCount = variableCount;
+    }
+
+    /**
+     * Allocates a new variable.
+     *
+     * @return the number of the new variable
+     */
+    public int newVariable() {
+        return ++variableCount;
+    }
+
+    @Override
+    public int getClauseCount() {
+        return clauseCount;
+    }
+
+    @Override
+    public int getClauseSize(int clause) {
+        return clauseEnds[clause] - getClauseStart(clause);
+    }
+
+    @Override
+    public int getLiteral(int clause, int index) {
+        return literals[getClauseStart(clause) + index];
+    }
+
+    /**
+     * Appends a literal to the clause being built. The clause is closed by {@link #endClause()}.
+     *
+     * @param literal a literal, positive or negative variable number
+     */
+    public void addLiteral(int literal) {
+        if (literalCount == literals.length) {
+            literals = Arrays.copyOf(literals, literals.length << 1);
+        }
+        literals[literalCount++] = literal;
+        final int variable = literal < 0 ? -literal : literal;
+        if (variable > variableCount) {
+            variableCount = variable;
+        }
+    }
+
+    /**
+     * Closes the clause made of the literals added since the previous clause was closed.
+     */
+    public void endClause() {
+        if (clauseCount == clauseEnds.length) {
+            clauseEnds = Arrays.copyOf(clauseEnds, clauseEnds.length << 1);
+        }
+        clauseEnds[clauseCount++] = literalCount;
+    }
+
+    /**
+     * Adds a unit clause.
+     *
+     * @param literal a literal
+     */
+    public void addClause(int literal) {
+        addLiteral(literal);
+        endClause();
+    }
+
+    /**
+     * Adds a binary clause.
+     *
+     * @param first  first literal
+     * @param second second literal
+     */
+    public void addClause(int first, int second) {
+        addLiteral(first);
+        addLiteral(second);
+        endClause();
+    }
+
+    /**
+     * Adds a binary clause unless the same clause has been added by this method before.
+     *
+     * @param first  first literal
+     * @param second second literal
+     * @return true if the clause was added
+     */
+    public boolean addUniqueClause(int first, int second) {
+        final long key = ((long) first << 32) | (second & 0xFFFFFFFFL);
+        if ((binaryKeyCount + 1) << 1 > binaryKeys.length) {
+            rehash(binaryKeys.length << 1);
+        }
+        final int mask = binaryKeys.length - 1;
+        int slot = mix(key) & mask;
+        while (0L != binaryKeys[slot]) {
+            if (key == binaryKeys[slot]) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        binaryKeys[slot] = key;
+        binaryKeyCount++;
+        addClause(first, second);
+        return true;
+    }
+
+    /**
+     * Appends all clauses of another problem.
+     *
+     * @param other a problem to copy clauses from
+     */
+    public void addClauses(CNFBuilder other) {
+        if (literalCount + other.literalCount > literals.length) {
+            literals = Arrays.copyOf(literals, Math.max(literals.length << 1, literalCount + other.literalCount));
+        }
+        if (clauseCount + other.clauseCount > clauseEnds.length) {
+            clauseEnds = Arrays.copyOf(clauseEnds, Math.max(clauseEnds.length << 1, clauseCount + other.clauseCount));
+        }
+        System.arraycopy(other.literals, 0, literals, literalCount, other.literalCount);
+        for (int i = 0; i < other.clauseCount; i++) {
+            clauseEnds[clauseCount + i] = literalCount + other.clauseEnds[i];
+        }
+        literalCount += other.literalCount;
+        clauseCount += other.clauseCount;
+        if (other.variableCount > variableCount) {
+            variableCount = other.variableCount;
+        }
+    }
+
+    /**
+     * Removes the clauses following the first clauseCount ones. The amount of variables is kept.
+     * Not supported after {@link #addUniqueClause(int, int)}, because removed clauses would stay in the set
+     * of known clauses.
+     *
+     * @param clauseCount the amount of clauses to keep
+     */
+    public void truncate(int clauseCount) {
+        if (0 < binaryKeyCount) {
+            throw new IllegalStateException("Unique clauses can not be truncated");
+        }
+        if (clauseCount < this.clauseCount) {
+            this.clauseCount = clauseCount;
+            literalCount = getClauseStart(clauseCount);
+        }
+    }
+
+    /**
+     * Appends clauses in DIMACS format, without the problem line.
+     *
+     * @param out where to append
+     * @return out
+     */
+    public StringBuilder appendClauses(StringBuilder out) {
+        int l = 0;
+        for (int c = 0; c < clauseCount; c++) {
+            for (; l < clauseEnds[c]; l++) {
+                out.append(literals[l]).append(' ');
+            }
+            out.append("0\n");
+        }
+        return out;
+    }
+
+    /**
+     * Returns the problem in DIMACS format.
+     *
+     * @return the problem in DIMACS format
+     */
+    public String toDIMACS() {
+        StringBuilder result = new StringBuilder(16 + 8 * literalCount);
+        result.append("p cnf ").append(variableCount).append(' ').append(clauseCount).append('\n');
+        return appendClauses(result).toString();
+    }
+
+    @Override
+    public String toString() {
+        return toDIMACS();
+    }
+
+    private int getClauseStart(int clause) {
+        return 0 == clause ? 0 : clauseEnds[clause - 1];
+    }
+
+    private void rehash(int capacity) {
+        final long[] oldKeys = binaryKeys;
+        binaryKeys = new long[capacity];
+        final int mask = capacity - 1;
+        for (long key : oldKeys) {
+            if (0L != key) {
+                int slot = mix(key) & mask;
+                while (0L != binaryKeys[slot]) {
+                    slot = (slot + 1) & mask;
+                }
+                binaryKeys[slot] = key;
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+}
@@ -1,22 +1,132 @@
 package it.unitn.disi.smatch.deciders;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import it.unitn.disi.smatch.data.util.CacheStats;
+import it.unitn.disi.smatch.data.util.ClockCache;
+
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * SAT solver which caches answers. Observed cache hit rates vary from 70% on small (dozens of nodes) matching tasks
- * to 99% on large (hundreds of nodes) tasks.
+ * SAT solver which caches answers in a {@link ClockCache}, bounded by the amount of entries and by the estimated
+ * amount of memory the entries take.
+ * <p/>
+ * Problems are brought to a {@link CanonicalCNF canonical form}, so problems differing only in variable numbering,
+ * clause and literal order share an entry. The cache keeps only the 128-bit fingerprint of the form. In the
+ * verification mode it also keeps the form itself and checks it on hits, to rule out fingerprint collisions.
+ * <p/>
+ * Observed cache hit rates depend on the task, use {@link #getStats()} to measure them.
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class CachingSolver implements ISATSolver {
+public class CachingSolver implements ICNFSATSolver {
+
+    // estimated size of an answer, without the canonical form
+    private static final int ANSWER_BYTES = 40;
 
     protected final ISATSolver satSolver;
+    // the same solver, taking ICNF problems
+    private final ICNFSATSolver cnfSolver;
+
+    private final boolean verify;
+
+    // answers are kept under themselves
+    private final ClockCache<Key, Answer> solutionsCache;
+
+    private final AtomicLong collisions = new AtomicLong();
+
+    private final ThreadLocal<CanonicalCNF> canonicalForms = new ThreadLocal<CanonicalCNF>() {
+        @Override
+        protected CanonicalCNF initialValue() {
+            return new CanonicalCNF();
+        }
+    };
+
+    // the problem parsed from DIMACS, per thread
+    private final ThreadLocal<CNFBuilder> problems = new ThreadLocal<CNFBuilder>() {
+        @Override
+        protected CNFBuilder initialValue() {
+            return new CNFBuilder();
+        }
+    };
+
+    private static class Key {
+        final long high;
+        final long low;
+
+        Key(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return high == key.high && low == key.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (low ^ (low >>> 32));
+        }
+    }
 
-    private final Map<String, Boolean> solutionsCache = new ConcurrentHashMap<>();
+    private static final class Answer extends Key {
+        final boolean value;
+        // the canonical form in the verification mode
+        final int[] form;
 
+        Answer(long high, long low, boolean value, int[] form) {
+            super(high, low);
+            this.value = value;
+            this.form = form;
+        }
+
+        long bytes() {
+            return ANSWER_BYTES + (null == form ? 0 : 16 + 4L * form.length);
+        }
+    }
+
+    /**
+     * Creates an unbounded cache.
+     *
+     * @param satSolver solver to call on cache misses
+     */
     public CachingSolver(ISATSolver satSolver) {
+        this(satSolver, Integer.MAX_VALUE, Long.MAX_VALUE, false);
+    }
+
+    /**
+     * Creates a cache bounded by the amount of entries and by the estimated amount of memory they take.
+     *
+     * @param satSolver  solver to call on cache misses
+     * @param maxEntries maximum amount of entries
+     * @param maxBytes   maximum estimated amount of memory taken by the entries, in bytes
+     */
+    public CachingSolver(ISATSolver satSolver, int maxEntries, long maxBytes) {
+        this(satSolver, maxEntries, maxBytes, false);
+    }
+
+    /**
+     * Creates a cache bounded by the amount of entries and by the estimated amount of memory they take.
+     *
+     * @param satSolver  solver to call on cache misses
+     * @param maxEntries maximum amount of entries
+     * @param maxBytes   maximum estimated amount of memory taken by the entries, in bytes
+     * @param verify     whether to keep canonical forms and compare them on hits
+     */
+    public CachingSolver(ISATSolver satSolver, int maxEntries, long maxBytes, boolean verify) {
+        if (maxEntries <= 0 || maxBytes <= 0) {
+            throw new IllegalArgumentException("Cache bounds should be positive");
+        }
         this.satSolver = satSolver;
+        this.cnfSolver = BaseSATSolver.adapt(satSolver);
+        this.verify = verify;
+        this.solutionsCache = new ClockCache<>(maxEntries, maxBytes);
     }
 
     /**
@@ -27,11 +137,81 @@ public class CachingSolver implements ISATSolver {
      * @throws SATSolverException SATSolverException
      */
     public boolean isSatisfiable(String input) throws SATSolverException {
-        Boolean result = solutionsCache.get(input);
-        if (null == result) {
-            result = satSolver.isSatisfiable(input);
-            solutionsCache.put(input, result);
+        CNFBuilder problem = problems.get();
+        BaseSATSolver.parseDIMACS(input, problem);
+        CanonicalCNF form = canonicalForms.get();
+        form.canonicalize(problem);
+        Answer answer = lookup(form);
+        if (null != answer) {
+            return answer.value;
         }
+        boolean result = satSolver.isSatisfiable(input);
+        cache(form, result);
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Calls the solver and caches the answer.
+     *
+     * @param problem problem in CNF
+     * @return boolean True if the formula is satisfiable, false otherwise
+     * @throws SATSolverException SATSolverException
+     */
+    public boolean isSatisfiable(ICNF problem) throws SATSolverException {
+        CanonicalCNF form = canonicalForms.get();
+        form.canonicalize(problem);
+        Answer answer = lookup(form);
+        if (null != answer) {
+            return answer.value;
+        }
+        boolean result = cnfSolver.isSatisfiable(form);
+        cache(form, result);
+        return result;
+    }
+
+    /**
+     * Creates a session which checks each problem through the cache.
+     *
+     * @return a new session
+     */
+    public ISATSession newSession() {
+        return new SolverSession(this);
+    }
+
+    /**
+     * Returns the amount of fingerprint collisions detected in the verification mode.
+     *
+     * @return the amount of fingerprint collisions
+     */
+    public long getCollisionCount() {
+        return collisions.get();
+    }
+
+    /**
+     * Returns the cache statistics.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getStats() {
+        return solutionsCache.getStats();
+    }
+
+    private Answer lookup(CanonicalCNF form) {
+        Answer answer = solutionsCache.peek(new Key(form.getHigh(), form.getLow()));
+        if (null != answer) {
+            if (null == answer.form || form.equalsArray(answer.form)) {
+                solutionsCache.countHit();
+                return answer;
+            }
+            collisions.incrementAndGet();
+        }
+        solutionsCache.countMiss();
+        return null;
+    }
+
+    private void cache(CanonicalCNF form, boolean value) {
+        Answer answer = new Answer(form.getHigh(), form.getLow(), value, verify ? form.toArray() : null);
+        // another thread might have solved the same problem meanwhile or the fingerprints collide
+        solutionsCache.putIfAbsent(answer, answer, answer.bytes());
+    }
+}
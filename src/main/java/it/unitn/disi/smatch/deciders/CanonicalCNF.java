@@ -0,0 +1,399 @@
+package it.unitn.disi.smatch.deciders;
+
+import java.util.Arrays;
+
+/**
+ * Brings a problem to a canonical form and computes its 128-bit fingerprint.
+ * <p/>
+ * Variables are renumbered by their occurrence signature, which does not depend on numbering, ties are broken
+ * by the first occurrence. Duplicate literals, tautologies and duplicate clauses are dropped, literals within
+ * clauses and clauses within the problem are sorted. Renumbering and sorting are repeated, so that the result
+ * depends little on the original order. Problems which differ only in variable numbering, clause order and
+ * literal order get the same form in all practical cases, while the same form always means that the problems
+ * are equisatisfiable, because the forms are obtained by renaming variables and by dropping redundant parts.
+ * <p/>
+ * Reused from one problem to the next. Not thread-safe.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CanonicalCNF implements ICNF {
+
+    private static final int ROUNDS = 2;
+
+    private int variableCount;
+
+    // clauses one after another, clause c is literals[starts[c]..starts[c+1])
+    private int[] literals = new int[64];
+    private int[] starts = new int[17];
+    private int clauseCount;
+
+    // the same for the next round
+    private int[] nextLiterals = new int[64];
+    private int[] nextStarts = new int[17];
+
+    private int[] order = new int[16];
+    private int[] sortBuffer = new int[16];
+    private int[] renumbering = new int[16];
+    // occurrence signatures of variables and variables sorted by signature and first occurrence
+    private long[] signatures = new long[16];
+    private long[] nextSignatures = new long[16];
+    private long[] sortedVariables = new long[16];
+
+    private long high;
+    private long low;
+
+    /**
+     * Brings the problem to the canonical form and computes the fingerprint.
+     *
+     * @param problem a problem
+     */
+    public void canonicalize(ICNF problem) {
+        int variables = problem.getVariableCount();
+        int literalCount = 0;
+        clauseCount = problem.getClauseCount();
+        for (int c = 0; c < clauseCount; c++) {
+            literalCount += problem.getClauseSize(c);
+        }
+        literals = ensure(literals, literalCount);
+        nextLiterals = ensure(nextLiterals, literalCount);
+        starts = ensure(starts, clauseCount + 1);
+        nextStarts = ensure(nextStarts, clauseCount + 1);
+        order = ensure(order, clauseCount);
+        sortBuffer = ensure(sortBuffer, clauseCount);
+        int l = 0;
+        for (int c = 0; c < clauseCount; c++) {
+            starts[c] = l;
+            for (int i = 0, size = problem.getClauseSize(c); i < size; i++) {
+                final int literal = problem.getLiteral(c, i);
+                literals[l++] = literal;
+                variables = Math.max(variables, Math.abs(literal));
+            }
+        }
+        starts[clauseCount] = l;
+        renumbering = ensure(renumbering, variables + 1);
+        if (signatures.length < variables + 1) {
+            signatures = new long[Math.max(variables + 1, 2 * signatures.length)];
+            nextSignatures = new long[signatures.length];
+            sortedVariables = new long[signatures.length];
+        }
+        computeSignatures(variables);
+
+        for (int round = 0; round < ROUNDS; round++) {
+            renumber(variables);
+            normalizeClauses();
+            sortClauses();
+        }
+        fingerprint();
+    }
+
+    /**
+     * Returns the high half of the fingerprint.
+     *
+     * @return the high half of the fingerprint
+     */
+    public long getHigh() {
+        return high;
+    }
+
+    /**
+     * Returns the low half of the fingerprint.
+     *
+     * @return the low half of the fingerprint
+     */
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * Returns a compact copy of the canonical form: clause count, then for each clause its size and literals.
+     *
+     * @return a copy of the canonical form
+     */
+    public int[] toArray() {
+        int[] result = new int[1 + clauseCount + starts[clauseCount]];
+        int r = 0;
+        result[r++] = clauseCount;
+        for (int c = 0; c < clauseCount; c++) {
+            result[r++] = starts[c + 1] - starts[c];
+            for (int l = starts[c]; l < starts[c + 1]; l++) {
+                result[r++] = literals[l];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether the canonical form equals to the one returned earlier by {@link #toArray()}.
+     *
+     * @param array canonical form
+     * @return true if the forms are equal
+     */
+    public boolean equalsArray(int[] array) {
+        if (array.length != 1 + clauseCount + starts[clauseCount] || array[0] != clauseCount) {
+            return false;
+        }
+        int r = 1;
+        for (int c = 0; c < clauseCount; c++) {
+            if (array[r++] != starts[c + 1] - starts[c]) {
+                return false;
+            }
+            for (int l = starts[c]; l < starts[c + 1]; l++) {
+                if (array[r++] != literals[l]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    @Override
+    public int getClauseCount() {
+        return clauseCount;
+    }
+
+    @Override
+    public int getClauseSize(int clause) {
+        return starts[clause + 1] - starts[clause];
+    }
+
+    @Override
+    public int getLiteral(int clause, int index) {
+        return literals[starts[clause] + index];
+    }
+
+    @Override
+    public String toString() {
+        return BaseSATSolver.toDIMACS(this);
+    }
+
+    /**
+     * Computes signatures of variables from the sizes of clauses they occur in, with polarity,
+     * refined once with the signatures of their neighbours.
+     */
+    private void computeSignatures(int variables) {
+        Arrays.fill(signatures, 0, variables + 1, 0L);
+        for (int c = 0; c < clauseCount; c++) {
+            final long size = starts[c + 1] - starts[c];
+            for (int l = starts[c]; l < starts[c + 1]; l++) {
+                final int literal = literals[l];
+                signatures[Math.abs(literal)] += mix(0 < literal ? size : -size);
+            }
+        }
+        System.arraycopy(signatures, 0, nextSignatures, 0, variables + 1);
+        for (int c = 0; c < clauseCount; c++) {
+            long sum = 0;
+            for (int l = starts[c]; l < starts[c + 1]; l++) {
+                final int literal = literals[l];
+                sum += 0 < literal ? signatures[literal] : mix(signatures[-literal]);
+            }
+            for (int l = starts[c]; l < starts[c + 1]; l++) {
+                final int literal = literals[l];
+                final long own = 0 < literal ? signatures[literal] : mix(signatures[-literal]);
+                nextSignatures[Math.abs(literal)] += mix(sum - own) * (0 < literal ? 3 : 5);
+            }
+        }
+        long[] t = signatures;
+        signatures = nextSignatures;
+        nextSignatures = t;
+    }
+
+    /**
+     * Renumbers variables in the order of their signatures and first occurrences.
+     */
+    private void renumber(int variables) {
+        final int end = starts[clauseCount];
+        // first occurrences are packed below the signature bits, fall back to them alone for huge problems
+        final boolean useSignatures = end < (1 << 24);
+        Arrays.fill(renumbering, 0, variables + 1, 0);
+        int count = 0;
+        for (int l = 0; l < end; l++) {
+            final int variable = Math.abs(literals[l]);
+            if (0 == renumbering[variable]) {
+                renumbering[variable] = -1;
+                sortedVariables[count++] = useSignatures ? (signatures[variable] >>> 24 << 24) | l : l;
+            }
+        }
+        Arrays.sort(sortedVariables, 0, count);
+        for (int i = 0; i < count; i++) {
+            final int first = (int) (useSignatures ? sortedVariables[i] & 0xFFFFFF : sortedVariables[i]);
+            final int variable = Math.abs(literals[first]);
+            renumbering[variable] = i + 1;
+            nextSignatures[i + 1] = signatures[variable];
+        }
+        long[] t = signatures;
+        signatures = nextSignatures;
+        nextSignatures = t;
+        variableCount = count;
+        for (int l = 0; l < end; l++) {
+            final int literal = literals[l];
+            final int variable = Math.abs(literal);
+            literals[l] = 0 < literal ? renumbering[variable] : -renumbering[variable];
+        }
+    }
+
+    /**
+     * Sorts literals within clauses, drops duplicate literals and tautologies.
+     */
+    private void normalizeClauses() {
+        int l = 0;
+        int count = 0;
+        for (int c = 0; c < clauseCount; c++) {
+            final int start = l;
+            // insertion sort, clauses are short
+            for (int i = starts[c]; i < starts[c + 1]; i++) {
+                final int literal = literals[i];
+                final int key = key(literal);
+                int j = l;
+                while (j > start && key(nextLiterals[j - 1]) > key) {
+                    nextLiterals[j] = nextLiterals[j - 1];
+                    j--;
+                }
+                nextLiterals[j] = literal;
+                l++;
+            }
+            // after sorting x and -x are neighbours
+            int w = start;
+            boolean tautology = false;
+            for (int i = start; i < l; i++) {
+                if (w > start && nextLiterals[w - 1] == nextLiterals[i]) {
+                    continue;
+                }
+                if (w > start && nextLiterals[w - 1] == -nextLiterals[i]) {
+                    tautology = true;
+                    break;
+                }
+                nextLiterals[w++] = nextLiterals[i];
+            }
+            if (tautology) {
+                l = start;
+            } else {
+                l = w;
+                nextStarts[count++] = start;
+            }
+        }
+        nextStarts[count] = l;
+        clauseCount = count;
+        swap();
+    }
+
+    /**
+     * Sorts clauses by size, then lexicographically, and drops duplicates.
+     */
+    private void sortClauses() {
+        for (int c = 0; c < clauseCount; c++) {
+            order[c] = c;
+        }
+        // bottom-up merge sort of clause indexes
+        int[] from = order;
+        int[] to = sortBuffer;
+        for (int width = 1; width < clauseCount; width <<= 1) {
+            for (int left = 0; left < clauseCount; left += width << 1) {
+                final int middle = Math.min(left + width, clauseCount);
+                final int right = Math.min(left + (width << 1), clauseCount);
+                int i = left;
+                int j = middle;
+                int k = left;
+                while (i < middle && j < right) {
+                    to[k++] = compareClauses(from[i], from[j]) <= 0 ? from[i++] : from[j++];
+                }
+                while (i < middle) {
+                    to[k++] = from[i++];
+                }
+                while (j < right) {
+                    to[k++] = from[j++];
+                }
+            }
+            int[] t = from;
+            from = to;
+            to = t;
+        }
+
+        int l = 0;
+        int count = 0;
+        for (int i = 0; i < clauseCount; i++) {
+            final int c = from[i];
+            if (0 < i && 0 == compareClauses(from[i - 1], c)) {
+                continue;
+            }
+            nextStarts[count++] = l;
+            for (int j = starts[c]; j < starts[c + 1]; j++) {
+                nextLiterals[l++] = literals[j];
+            }
+        }
+        nextStarts[count] = l;
+        clauseCount = count;
+        swap();
+    }
+
+    private int compareClauses(int a, int b) {
+        final int sizeA = starts[a + 1] - starts[a];
+        final int sizeB = starts[b + 1] - starts[b];
+        if (sizeA != sizeB) {
+            return sizeA < sizeB ? -1 : 1;
+        }
+        for (int i = starts[a], j = starts[b], end = starts[a + 1]; i < end; i++, j++) {
+            final int keyA = key(literals[i]);
+            final int keyB = key(literals[j]);
+            if (keyA != keyB) {
+                return keyA < keyB ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Orders literals by variable, positive first.
+     */
+    private static int key(int literal) {
+        return 0 < literal ? literal << 1 : ((-literal) << 1) | 1;
+    }
+
+    private void swap() {
+        int[] t = literals;
+        literals = nextLiterals;
+        nextLiterals = t;
+        t = starts;
+        starts = nextStarts;
+        nextStarts = t;
+    }
+
+    private void fingerprint() {
+        long h1 = 0x9E3779B97F4A7C15L ^ clauseCount;
+        long h2 = 0xC2B2AE3D27D4EB4FL + variableCount;
+        for (int c = 0; c < clauseCount; c++) {
+            for (int l = starts[c]; l < starts[c + 1]; l++) {
+                h1 = Long.rotateLeft(h1 ^ (literals[l] * 0x87C37B91114253D5L), 31) * 0x4CF5AD432745937FL;
+                h2 = Long.rotateLeft(h2 + (literals[l] * 0x4CF5AD432745937FL), 33) * 0x87C37B91114253D5L;
+            }
+            // clause separator
+            h1 = Long.rotateLeft(h1 ^ 0x52DCE729L, 27) * 5 + 0x38495AB5L;
+            h2 = Long.rotateLeft(h2 ^ 0x38495AB5L, 29) * 5 + 0x52DCE729L;
+        }
+        h1 += h2;
+        h2 += h1;
+        h1 = mix(h1);
+        h2 = mix(h2);
+        h1 += h2;
+        h2 += h1;
+        high = h1;
+        low = h2;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int[] ensure(int[] array, int size) {
+        return size <= array.length ? array : new int[Math.max(size, 2 * array.length)];
+    }
+}
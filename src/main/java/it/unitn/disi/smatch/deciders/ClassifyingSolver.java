@@ -0,0 +1,381 @@
+package it.unitn.disi.smatch.deciders;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * SAT solver which recognizes problems from polynomial fragments and decides them in linear time.
+ * 2-SAT problems, where no clause has more than two literals, are decided by looking for strongly connected
+ * components of the implication graph that contain a variable together with its negation. Horn problems,
+ * where no clause has more than one positive literal, and dual Horn problems, where no clause has more than
+ * one negative literal, are decided by unit propagation. Other problems are passed to the underlying solver.
+ * <p/>
+ * Node matching produces many such problems: the axioms are binary clauses and the formulas of many nodes
+ * are conjunctions. Counters show how many problems each path has decided.
+ * <p/>
+ * Thread-safe if the underlying solver is.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ClassifyingSolver implements ICNFSATSolver {
+
+    protected final ISATSolver satSolver;
+    // the same solver, taking ICNF problems
+    private final ICNFSATSolver cnfSolver;
+
+    private final AtomicLong twoSATCount = new AtomicLong();
+    private final AtomicLong hornCount = new AtomicLong();
+    private final AtomicLong dualHornCount = new AtomicLong();
+    private final AtomicLong generalCount = new AtomicLong();
+
+    private final ThreadLocal<Scratch> scratches = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    public ClassifyingSolver(ISATSolver satSolver) {
+        this.satSolver = satSolver;
+        this.cnfSolver = BaseSATSolver.adapt(satSolver);
+    }
+
+    /**
+     * Decides the problem if it belongs to a known fragment, otherwise calls the underlying solver.
+     *
+     * @param input The String that contains sat problem in DIMACS format
+     * @return boolean True if the formula is satisfiable, false otherwise
+     * @throws SATSolverException SATSolverException
+     */
+    public boolean isSatisfiable(String input) throws SATSolverException {
+        Scratch scratch = scratches.get();
+        BaseSATSolver.parseDIMACS(input, scratch.problem);
+        Boolean result = decide(scratch.problem, scratch);
+        if (null == result) {
+            generalCount.incrementAndGet();
+            return satSolver.isSatisfiable(input);
+        }
+        return result;
+    }
+
+    /**
+     * Decides the problem if it belongs to a known fragment, otherwise calls the underlying solver.
+     *
+     * @param problem problem in CNF
+     * @return boolean True if the formula is satisfiable, false otherwise
+     * @throws SATSolverException SATSolverException
+     */
+    public boolean isSatisfiable(ICNF problem) throws SATSolverException {
+        Boolean result = decide(problem, scratches.get());
+        if (null == result) {
+            generalCount.incrementAndGet();
+            return cnfSolver.isSatisfiable(problem);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a session which classifies each problem.
+     *
+     * @return a new session
+     */
+    public ISATSession newSession() {
+        return new SolverSession(this);
+    }
+
+    /**
+     * Returns the amount of problems decided as 2-SAT.
+     *
+     * @return the amount of problems decided as 2-SAT
+     */
+    public long getTwoSATCount() {
+        return twoSATCount.get();
+    }
+
+    /**
+     * Returns the amount of problems decided as Horn.
+     *
+     * @return the amount of problems decided as Horn
+     */
+    public long getHornCount() {
+        return hornCount.get();
+    }
+
+    /**
+     * Returns the amount of problems decided as dual Horn.
+     *
+     * @return the amount of problems decided as dual Horn
+     */
+    public long getDualHornCount() {
+        return dualHornCount.get();
+    }
+
+    /**
+     * Returns the amount of problems passed to the underlying solver.
+     *
+     * @return the amount of problems passed to the underlying solver
+     */
+    public long getGeneralCount() {
+        return generalCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return "2-SAT: " + twoSATCount.get() + ", Horn: " + hornCount.get() + ", dual Horn: " + dualHornCount.get()
+                + ", general: " + generalCount.get();
+    }
+
+    /**
+     * Returns the answer or null if the problem does not belong to a known fragment.
+     */
+    private Boolean decide(ICNF problem, Scratch scratch) {
+        int variables = problem.getVariableCount();
+        int maxClauseSize = 0;
+        boolean horn = true;
+        boolean dualHorn = true;
+        for (int c = problem.getClauseCount() - 1; c >= 0; c--) {
+            final int size = problem.getClauseSize(c);
+            int positives = 0;
+            for (int l = 0; l < size; l++) {
+                int literal = problem.getLiteral(c, l);
+                if (0 < literal) {
+                    positives++;
+                }
+                int variable = Math.abs(literal);
+                if (variable > variables) {
+                    variables = variable;
+                }
+            }
+            maxClauseSize = Math.max(maxClauseSize, size);
+            horn = horn && positives <= 1;
+            dualHorn = dualHorn && size - positives <= 1;
+        }
+
+        if (maxClauseSize <= 2) {
+            twoSATCount.incrementAndGet();
+            return scratch.isTwoSATSatisfiable(problem, variables);
+        } else if (horn) {
+            hornCount.incrementAndGet();
+            return scratch.isHornSatisfiable(problem, variables, 1);
+        } else if (dualHorn) {
+            dualHornCount.incrementAndGet();
+            return scratch.isHornSatisfiable(problem, variables, -1);
+        }
+        return null;
+    }
+
+    /**
+     * Working arrays of one thread. The literal of the variable v is 2(v-1), the negated literal is 2(v-1)+1.
+     */
+    private static final class Scratch {
+
+        // the problem parsed from DIMACS
+        final CNFBuilder problem = new CNFBuilder();
+
+        // adjacency lists: the targets of the node n are edges[edgeStarts[n]..edgeStarts[n+1])
+        private int[] edgeStarts = new int[0];
+        private int[] edges = new int[0];
+
+        // Tarjan's algorithm
+        private int[] indexes = new int[0];
+        private int[] lowLinks = new int[0];
+        private int[] components = new int[0];
+        private int[] stack = new int[0];
+        private int[] callStack = new int[0];
+        private int[] callEdges = new int[0];
+
+        // unit propagation
+        private int[] heads = new int[0];
+        private int[] counts = new int[0];
+        private boolean[] truths = new boolean[0];
+        private int[] queue = new int[0];
+
+        boolean isTwoSATSatisfiable(ICNF problem, int variables) {
+            final int clauses = problem.getClauseCount();
+            final int nodes = 2 * variables;
+            // a clause a | b gives edges ~a -> b and ~b -> a, a unit clause a gives ~a -> a
+            edgeStarts = ensure(edgeStarts, nodes + 1);
+            Arrays.fill(edgeStarts, 0, nodes + 1, 0);
+            int edgeCount = 0;
+            for (int c = 0; c < clauses; c++) {
+                final int size = problem.getClauseSize(c);
+                if (0 == size) {
+                    return false;
+                }
+                final int a = toLiteral(problem.getLiteral(c, 0));
+                final int b = 1 == size ? a : toLiteral(problem.getLiteral(c, 1));
+                edgeStarts[(a ^ 1) + 1]++;
+                edgeStarts[(b ^ 1) + 1]++;
+                edgeCount += 2;
+            }
+            for (int n = 0; n < nodes; n++) {
+                edgeStarts[n + 1] += edgeStarts[n];
+            }
+            edges = ensure(edges, edgeCount);
+            // fill using the starts as cursors, then shift them back
+            for (int c = 0; c < clauses; c++) {
+                final int size = problem.getClauseSize(c);
+                final int a = toLiteral(problem.getLiteral(c, 0));
+                final int b = 1 == size ? a : toLiteral(problem.getLiteral(c, 1));
+                edges[edgeStarts[a ^ 1]++] = b;
+                edges[edgeStarts[b ^ 1]++] = a;
+            }
+            for (int n = nodes; n > 0; n--) {
+                edgeStarts[n] = edgeStarts[n - 1];
+            }
+            edgeStarts[0] = 0;
+
+            findComponents(nodes);
+            for (int n = 0; n < nodes; n += 2) {
+                if (components[n] == components[n + 1]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Iterative Tarjan's algorithm. A visited node without a component is on the stack.
+         */
+        private void findComponents(int nodes) {
+            indexes = ensure(indexes, nodes);
+            lowLinks = ensure(lowLinks, nodes);
+            components = ensure(components, nodes);
+            stack = ensure(stack, nodes);
+            callStack = ensure(callStack, nodes);
+            callEdges = ensure(callEdges, nodes);
+            Arrays.fill(indexes, 0, nodes, -1);
+            Arrays.fill(components, 0, nodes, -1);
+            int index = 0;
+            int componentCount = 0;
+            int stackSize = 0;
+            for (int root = 0; root < nodes; root++) {
+                if (-1 != indexes[root]) {
+                    continue;
+                }
+                int depth = 0;
+                indexes[root] = lowLinks[root] = index++;
+                stack[stackSize++] = root;
+                callStack[depth] = root;
+                callEdges[depth++] = edgeStarts[root];
+                while (0 < depth) {
+                    final int node = callStack[depth - 1];
+                    if (callEdges[depth - 1] < edgeStarts[node + 1]) {
+                        final int target = edges[callEdges[depth - 1]++];
+                        if (-1 == indexes[target]) {
+                            indexes[target] = lowLinks[target] = index++;
+                            stack[stackSize++] = target;
+                            callStack[depth] = target;
+                            callEdges[depth++] = edgeStarts[target];
+                        } else if (-1 == components[target]) {
+                            lowLinks[node] = Math.min(lowLinks[node], indexes[target]);
+                        }
+                    } else {
+                        depth--;
+                        if (lowLinks[node] == indexes[node]) {
+                            int member;
+                            do {
+                                member = stack[--stackSize];
+                                components[member] = componentCount;
+                            } while (member != node);
+                            componentCount++;
+                        }
+                        if (0 < depth) {
+                            final int parent = callStack[depth - 1];
+                            lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[node]);
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Computes the minimal model by unit propagation. With sign -1 literals are negated,
+         * which turns a dual Horn problem into a Horn one.
+         */
+        boolean isHornSatisfiable(ICNF problem, int variables, int sign) {
+            final int clauses = problem.getClauseCount();
+            heads = ensure(heads, clauses);
+            counts = ensure(counts, clauses);
+            // edges of the variable v list the clauses having ~v in the body
+            edgeStarts = ensure(edgeStarts, variables + 2);
+            Arrays.fill(edgeStarts, 0, variables + 2, 0);
+            int occurrences = 0;
+            for (int c = 0; c < clauses; c++) {
+                int head = 0;
+                int count = 0;
+                for (int l = problem.getClauseSize(c) - 1; l >= 0; l--) {
+                    final int literal = sign * problem.getLiteral(c, l);
+                    if (0 < literal) {
+                        head = literal;
+                    } else {
+                        edgeStarts[-literal + 1]++;
+                        count++;
+                    }
+                }
+                heads[c] = head;
+                counts[c] = count;
+                occurrences += count;
+            }
+            for (int v = 1; v <= variables; v++) {
+                edgeStarts[v + 1] += edgeStarts[v];
+            }
+            edges = ensure(edges, occurrences);
+            for (int c = 0; c < clauses; c++) {
+                for (int l = problem.getClauseSize(c) - 1; l >= 0; l--) {
+                    final int literal = sign * problem.getLiteral(c, l);
+                    if (0 > literal) {
+                        edges[edgeStarts[-literal]++] = c;
+                    }
+                }
+            }
+            for (int v = variables + 1; v > 0; v--) {
+                edgeStarts[v] = edgeStarts[v - 1];
+            }
+            edgeStarts[0] = 0;
+
+            truths = variables + 1 <= truths.length ? truths : new boolean[Math.max(variables + 1, 2 * truths.length)];
+            Arrays.fill(truths, 0, variables + 1, false);
+            queue = ensure(queue, variables);
+            int queueHead = 0;
+            int queueTail = 0;
+            for (int c = 0; c < clauses; c++) {
+                if (0 == counts[c]) {
+                    final int head = heads[c];
+                    if (0 == head) {
+                        return false;
+                    }
+                    if (!truths[head]) {
+                        truths[head] = true;
+                        queue[queueTail++] = head;
+                    }
+                }
+            }
+            while (queueHead < queueTail) {
+                final int variable = queue[queueHead++];
+                for (int e = edgeStarts[variable], end = edgeStarts[variable + 1]; e < end; e++) {
+                    final int c = edges[e];
+                    if (0 == --counts[c]) {
+                        final int head = heads[c];
+                        if (0 == head) {
+                            return false;
+                        }
+                        if (!truths[head]) {
+                            truths[head] = true;
+                            queue[queueTail++] = head;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        private static int toLiteral(int dimacs) {
+            return 0 < dimacs ? 2 * (dimacs - 1) : 2 * (-dimacs - 1) + 1;
+        }
+
+        private static int[] ensure(int[] array, int size) {
+            return size <= array.length ? array : new int[Math.max(size, 2 * array.length)];
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package it.unitn.disi.smatch.deciders;
+
+/**
+ * A SAT problem in conjunctive normal form. Variables are numbered from 1 as in DIMACS,
+ * a literal is a variable number, negative for a negated variable.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface ICNF {
+
+    /**
+     * Returns the amount of variables in the problem.
+     *
+     * @return the amount of variables in the problem
+     */
+    int getVariableCount();
+
+    /**
+     * Returns the amount of clauses in the problem.
+     *
+     * @return the amount of clauses in the problem
+     */
+    int getClauseCount();
+
+    /**
+     * Returns the amount of literals in the clause.
+     *
+     * @param clause clause index
+     * @return the amount of literals in the clause
+     */
+    int getClauseSize(int clause);
+
+    /**
+     * Returns the literal of the clause.
+     *
+     * @param clause clause index
+     * @param index  literal index within the clause
+     * @return the literal
+     */
+    int getLiteral(int clause, int index);
+}
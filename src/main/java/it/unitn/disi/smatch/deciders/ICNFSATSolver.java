@@ -0,0 +1,30 @@
+package it.unitn.disi.smatch.deciders;
+
+/**
+ * SAT solver which also takes problems as an {@link ICNF} with integer literals, which saves callers and
+ * solvers from serializing and parsing the problem. Series of related problems go through
+ * a {@link ISATSession session}.
+ * <p/>
+ * Solvers which understand only DIMACS can extend {@link BaseSATSolver} and implement only
+ * {@link #isSatisfiable(String)}. Plain {@link ISATSolver}s are adapted by {@link BaseSATSolver#adapt(ISATSolver)}.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface ICNFSATSolver extends ISATSolver {
+
+    /**
+     * Checks whether the problem is satisfiable or not.
+     *
+     * @param problem problem in CNF
+     * @return whether problem is satisfiable or not
+     * @throws SATSolverException SATSolverException
+     */
+    boolean isSatisfiable(ICNF problem) throws SATSolverException;
+
+    /**
+     * Creates a new session for solving a series of related problems.
+     *
+     * @return a new session
+     */
+    ISATSession newSession();
+}
@@ -0,0 +1,47 @@
+package it.unitn.disi.smatch.deciders;
+
+/**
+ * A SAT solver session for a series of related problems. Clauses are loaded once and then the problem is checked
+ * several times under different assumptions, therefore solvers able to solve incrementally can keep what they have
+ * learned from one check to the next. Assumptions are literals, that are assumed true during a single check.
+ * Clauses added after {@link #push()} are removed by the matching {@link #pop()}, which allows checking several
+ * problems sharing a common part.
+ * <p/>
+ * A session is meant to be used by one thread at a time and can be reused after clearing.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface ISATSession {
+
+    /**
+     * Removes all clauses.
+     */
+    void clear();
+
+    /**
+     * Adds clauses to the problem.
+     *
+     * @param clauses clauses to add
+     * @throws SATSolverException SATSolverException
+     */
+    void addClauses(ICNF clauses) throws SATSolverException;
+
+    /**
+     * Opens a group of clauses, that is removed by the matching {@link #pop()}.
+     */
+    void push();
+
+    /**
+     * Removes the clauses added since the matching {@link #push()}.
+     */
+    void pop();
+
+    /**
+     * Checks whether the problem is satisfiable when the assumptions are true.
+     *
+     * @param assumptions literals assumed true
+     * @return whether problem is satisfiable or not
+     * @throws SATSolverException SATSolverException
+     */
+    boolean isSatisfiable(int... assumptions) throws SATSolverException;
+}
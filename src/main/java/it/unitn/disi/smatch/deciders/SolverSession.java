@@ -0,0 +1,74 @@
+package it.unitn.disi.smatch.deciders;
+
+import java.util.Arrays;
+
+/**
+ * Session for solvers which do not solve incrementally. Accumulates clauses and for each check passes them
+ * to the solver, together with the assumptions as unit clauses.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class SolverSession implements ISATSession {
+
+    private final ICNFSATSolver satSolver;
+    private final CNFBuilder clauses = new CNFBuilder();
+    private final CNFBuilder problem = new CNFBuilder();
+
+    // clause and variable counts at each push
+    private int[] clauseMarks = new int[4];
+    private int[] variableMarks = new int[4];
+    private int depth;
+
+    public SolverSession(ICNFSATSolver satSolver) {
+        this.satSolver = satSolver;
+    }
+
+    public void clear() {
+        clauses.clear();
+        depth = 0;
+    }
+
+    public void addClauses(ICNF clauses) {
+        if (clauses instanceof CNFBuilder) {
+            this.clauses.addClauses((CNFBuilder) clauses);
+        } else {
+            this.clauses.setVariableCount(Math.max(this.clauses.getVariableCount(), clauses.getVariableCount()));
+            for (int c = 0; c < clauses.getClauseCount(); c++) {
+                for (int l = 0; l < clauses.getClauseSize(c); l++) {
+                    this.clauses.addLiteral(clauses.getLiteral(c, l));
+                }
+                this.clauses.endClause();
+            }
+        }
+    }
+
+    public void push() {
+        if (depth == clauseMarks.length) {
+            clauseMarks = Arrays.copyOf(clauseMarks, 2 * depth);
+            variableMarks = Arrays.copyOf(variableMarks, 2 * depth);
+        }
+        clauseMarks[depth] = clauses.getClauseCount();
+        variableMarks[depth++] = clauses.getVariableCount();
+    }
+
+    public void pop() {
+        if (0 == depth) {
+            throw new IllegalStateException("pop() without push()");
+        }
+        depth--;
+        clauses.truncate(clauseMarks[depth]);
+        clauses.setVariableCount(variableMarks[depth]);
+    }
+
+    public boolean isSatisfiable(int... assumptions) throws SATSolverException {
+        if (0 == assumptions.length) {
+            return satSolver.isSatisfiable(clauses);
+        }
+        problem.clear();
+        problem.addClauses(clauses);
+        for (int assumption : assumptions) {
+            problem.addClause(assumption);
+        }
+        return satSolver.isSatisfiable(problem);
+    }
+}
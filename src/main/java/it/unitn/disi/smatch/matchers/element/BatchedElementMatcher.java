@@ -0,0 +1,203 @@
+package it.unitn.disi.smatch.matchers.element;
+
+import it.unitn.disi.smatch.async.AsyncTask;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IMappingFactory;
+import it.unitn.disi.smatch.data.trees.FrozenContext;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * An Element Matcher that executes element level matchers in parallel, in batches. The source nodes are split
+ * into blocks and one task matches the concepts of a block with all the concepts of the target context, then writes
+ * the block rows into the mapping at once. The executor is supplied by the caller and can be shared
+ * between matchers.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BatchedElementMatcher extends ElementMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchedElementMatcher.class);
+
+    /**
+     * Default amount of source nodes matched by one task.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 16;
+
+    /**
+     * An executor which runs the matchers.
+     */
+    private final Executor executor;
+
+    /**
+     * Amount of source nodes matched by one task.
+     */
+    private final int blockSize;
+
+    public BatchedElementMatcher(IMappingFactory mappingFactory, ISenseMatcher senseMatcher, Executor executor) {
+        this(mappingFactory, senseMatcher, true, null, null, null, executor, DEFAULT_BLOCK_SIZE);
+    }
+
+    public BatchedElementMatcher(IMappingFactory mappingFactory, ISenseMatcher senseMatcher, Executor executor,
+                                 IContext sourceContext, IContext targetContext) {
+        this(mappingFactory, senseMatcher, true, null, null, null, executor, DEFAULT_BLOCK_SIZE, sourceContext, targetContext);
+    }
+
+    public BatchedElementMatcher(IMappingFactory mappingFactory, ISenseMatcher senseMatcher,
+                                 boolean useWeakSemanticsElementLevelMatchersLibrary,
+                                 List<IStringBasedElementLevelSemanticMatcher> stringMatchers,
+                                 List<ISenseGlossBasedElementLevelSemanticMatcher> senseGlossMatchers,
+                                 RelationMemo relationMemo,
+                                 Executor executor, int blockSize) {
+        super(mappingFactory, senseMatcher, useWeakSemanticsElementLevelMatchersLibrary, stringMatchers, senseGlossMatchers, relationMemo);
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize should be positive, found: " + blockSize);
+        }
+        this.executor = executor;
+        this.blockSize = blockSize;
+    }
+
+    public BatchedElementMatcher(IMappingFactory mappingFactory, ISenseMatcher senseMatcher,
+                                 boolean useWeakSemanticsElementLevelMatchersLibrary,
+                                 List<IStringBasedElementLevelSemanticMatcher> stringMatchers,
+                                 List<ISenseGlossBasedElementLevelSemanticMatcher> senseGlossMatchers,
+                                 RelationMemo relationMemo,
+                                 Executor executor, int blockSize,
+                                 IContext sourceContext, IContext targetContext) {
+        super(mappingFactory, senseMatcher, useWeakSemanticsElementLevelMatchersLibrary, stringMatchers, senseGlossMatchers, relationMemo, sourceContext, targetContext);
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("blockSize should be positive, found: " + blockSize);
+        }
+        this.executor = executor;
+        this.blockSize = blockSize;
+    }
+
+    @Override
+    public AsyncTask<IContextMapping<IAtomicConceptOfLabel>, IMappingElement<IAtomicConceptOfLabel>>
+    asyncElementLevelMatching(IContext sourceContext, IContext targetContext) {
+        return new BatchedElementMatcher(mappingFactory, senseMatcher, useWeakSemanticsElementLevelMatchersLibrary,
+                stringMatchers, senseGlossMatchers, relationMemo, executor, blockSize, sourceContext, targetContext);
+    }
+
+    @Override
+    public IContextMapping<IAtomicConceptOfLabel> elementLevelMatching(final IContext sourceContext, final IContext targetContext) throws ElementMatcherException {
+        setTotal((long) sourceContext.nodesCount() * (long) targetContext.nodesCount());
+        setProgress(0);
+
+        final IContextMapping<IAtomicConceptOfLabel> mapping = mappingFactory.getConceptMappingInstance(sourceContext, targetContext);
+        final FrozenContext source = new FrozenContext(sourceContext);
+        final FrozenContext target = new FrozenContext(targetContext);
+        final long[] sourceNumbers = getConceptNumbers(source);
+        final long[] targetNumbers = getConceptNumbers(target);
+        final AtomicReference<ElementMatcherException> productionException = new AtomicReference<>(null);
+
+        final int blockCount = (source.size() + blockSize - 1) / blockSize;
+        log.debug("Running with " + blockCount + " blocks of " + blockSize + " source nodes");
+        final CountDownLatch remaining = new CountDownLatch(blockCount);
+        for (int b = 0; b < blockCount; b++) {
+            final int sourceStart = b * blockSize;
+            final int sourceEnd = Math.min(source.size(), sourceStart + blockSize);
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            matchBlock(mapping, source, sourceNumbers, sourceStart, sourceEnd, target, targetNumbers,
+                                    productionException);
+                        } finally {
+                            remaining.countDown();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                productionException.compareAndSet(null, new ElementMatcherException(e.getClass().getSimpleName() + ": " + e.getMessage(), e));
+                // this and the following blocks will never run
+                for (int r = b; r < blockCount; r++) {
+                    remaining.countDown();
+                }
+                break;
+            }
+        }
+
+        try {
+            remaining.await();
+        } catch (InterruptedException e) {
+            productionException.compareAndSet(null, new ElementMatcherException(e.getClass().getSimpleName() + ": " + e.getMessage(), e));
+            Thread.currentThread().interrupt();
+        }
+
+        //noinspection ThrowableResultOfMethodCallIgnored
+        if (null != productionException.get()) {
+            throw productionException.get();
+        }
+
+        return mapping;
+    }
+
+    /**
+     * Matches the concepts of the source nodes from sourceStart to sourceEnd with all concepts of the target.
+     * Stops early once another block has failed.
+     */
+    private void matchBlock(IContextMapping<IAtomicConceptOfLabel> mapping,
+                            FrozenContext source, long[] sourceNumbers, int sourceStart, int sourceEnd,
+                            FrozenContext target, long[] targetNumbers,
+                            AtomicReference<ElementMatcherException> productionException) {
+        final int sourceConceptStart = source.getConceptStart(sourceStart);
+        final int sourceConceptEnd = source.getConceptEnd(sourceEnd - 1);
+        final int targetConcepts = target.getConceptCount();
+        // cells of the block rows with a relation, as indexes into the rows, and their relations
+        int[] cells = new int[16];
+        char[] relations = new char[16];
+        int found = 0;
+        try {
+            int k = 0;
+            for (int s = sourceConceptStart; s < sourceConceptEnd; s++) {
+                //noinspection ThrowableResultOfMethodCallIgnored
+                if (null != productionException.get()) {
+                    return;
+                }
+                final IAtomicConceptOfLabel sourceACoL = source.getConcept(s);
+                final long sourceNumber = sourceNumbers[s];
+                for (int t = 0; t < targetConcepts; t++, k++) {
+                    final char relation = getRelation(sourceACoL, sourceNumber, target.getConcept(t), targetNumbers[t]);
+                    if (IMappingElement.IDK != relation) {
+                        if (found == cells.length) {
+                            cells = Arrays.copyOf(cells, 2 * found);
+                            relations = Arrays.copyOf(relations, 2 * found);
+                        }
+                        cells[found] = k;
+                        relations[found++] = relation;
+                    }
+                }
+            }
+        } catch (ElementMatcherException e) {
+            productionException.compareAndSet(null, e);
+            return;
+        } catch (RuntimeException e) {
+            productionException.compareAndSet(null, new ElementMatcherException(e.getClass().getSimpleName() + ": " + e.getMessage(), e));
+            return;
+        }
+
+        // mappings are not required to be thread-safe, so the whole block is written under one lock.
+        // the mapping is new, so IDK need not be set.
+        synchronized (mapping) {
+            for (int i = 0; i < found; i++) {
+                mapping.setRelation(source.getConcept(sourceConceptStart + cells[i] / targetConcepts),
+                        target.getConcept(cells[i] % targetConcepts), relations[i]);
+            }
+            // progress by node rather than by acol because task can be created on non-preprocessed contexts...
+            progress((long) (sourceEnd - sourceStart) * target.size());
+        }
+    }
+}
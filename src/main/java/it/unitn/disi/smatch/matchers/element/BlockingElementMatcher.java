@@ -0,0 +1,320 @@
+package it.unitn.disi.smatch.matchers.element;
+
+import it.unitn.disi.smatch.async.AsyncTask;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IMappingFactory;
+import it.unitn.disi.smatch.data.trees.FrozenContext;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.oracles.IBlockableSenseMatcher;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * An Element Matcher that matches each source concept only with the target concepts which might be related to it.
+ * Target concepts are indexed by the keys of their lemmas and senses, and the candidates of a source concept are
+ * the target concepts sharing a key with it. Keys are provided by the matchers implementing
+ * {@link IBlockableStringMatcher} and {@link IBlockableSenseMatcher}.
+ * <p/>
+ * By default the blocking is exact and produces the same mapping as {@link ElementMatcher}. If any of the matchers
+ * can not tell exactly which concepts can not match, all concepts are matched, as {@link ElementMatcher} does.
+ * With the approximate blocking, inexact keys are accepted too, and the matchers without keys are limited to the
+ * concepts sharing a lemma or a sense, therefore some relations may be missed.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class BlockingElementMatcher extends ElementMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockingElementMatcher.class);
+
+    // key of the concepts with senses, for the sense and gloss matchers which are blocked exactly
+    private static final String HAS_SENSES = "";
+
+    // whether inexact blocking is allowed
+    private final boolean approximate;
+
+    /**
+     * Provides the keys of a stage of the element matching.
+     */
+    private abstract static class Stage {
+        abstract void addSourceKeys(IAtomicConceptOfLabel acol, Collection<String> keys);
+
+        abstract void addTargetKeys(IAtomicConceptOfLabel acol, Collection<String> keys);
+    }
+
+    private static final class StringStage extends Stage {
+        private final IBlockableStringMatcher matcher;
+
+        StringStage(IBlockableStringMatcher matcher) {
+            this.matcher = matcher;
+        }
+
+        @Override
+        void addSourceKeys(IAtomicConceptOfLabel acol, Collection<String> keys) {
+            matcher.addSourceKeys(acol.getLemma(), keys);
+        }
+
+        @Override
+        void addTargetKeys(IAtomicConceptOfLabel acol, Collection<String> keys) {
+            matcher.addTargetKeys(acol.getLemma(), keys);
+        }
+    }
+
+    private static final class SenseStage extends Stage {
+        private final IBlockableSenseMatcher matcher;
+
+        SenseStage(IBlockableSenseMatcher matcher) {
+            this.matcher = matcher;
+        }
+
+        @Override
+        void addSourceKeys(IAtomicConceptOfLabel acol, Collection<String> keys) {
+            matcher.addSourceKeys(acol.getSenses(), keys);
+        }
+
+        @Override
+        void addTargetKeys(IAtomicConceptOfLabel acol, Collection<String> keys) {
+            matcher.addTargetKeys(acol.getSenses(), keys);
+        }
+    }
+
+    /**
+     * Keys concepts by their lemma, for the approximate blocking of string matchers.
+     */
+    private static final class LemmaStage extends Stage {
+        @Override
+        void addSourceKeys(IAtomicConceptOfLabel acol, Collection<String> keys) {
+            addTargetKeys(acol, keys);
+        }
+
+        @Override
+        void addTargetKeys(IAtomicConceptOfLabel acol, Collection<String> keys) {
+            if (null != acol.getLemma()) {
+                keys.add(acol.getLemma());
+            }
+        }
+    }
+
+    /**
+     * Keys concepts by their sense ids for the approximate blocking, or by the presence of senses for the exact one.
+     */
+    private static final class SenseIdStage extends Stage {
+        private final boolean byId;
+
+        SenseIdStage(boolean byId) {
+            this.byId = byId;
+        }
+
+        @Override
+        void addSourceKeys(IAtomicConceptOfLabel acol, Collection<String> keys) {
+            addTargetKeys(acol, keys);
+        }
+
+        @Override
+        void addTargetKeys(IAtomicConceptOfLabel acol, Collection<String> keys) {
+            final List<ISense> senses = acol.getSenses();
+            if (null != senses && !senses.isEmpty()) {
+                if (byId) {
+                    for (ISense sense : senses) {
+                        keys.add(sense.getId());
+                    }
+                } else {
+                    keys.add(HAS_SENSES);
+                }
+            }
+        }
+    }
+
+    /**
+     * Growable list of target concept numbers.
+     */
+    private static final class Postings {
+        private int[] items = new int[4];
+        private int size;
+
+        void add(int item) {
+            // a concept adds its keys in turn, so duplicates come last
+            if (0 < size && item == items[size - 1]) {
+                return;
+            }
+            if (size == items.length) {
+                items = Arrays.copyOf(items, items.length + (items.length >> 1) + 1);
+            }
+            items[size++] = item;
+        }
+    }
+
+    public BlockingElementMatcher(IMappingFactory mappingFactory, ISenseMatcher senseMatcher,
+                                  boolean useWeakSemanticsElementLevelMatchersLibrary,
+                                  List<IStringBasedElementLevelSemanticMatcher> stringMatchers,
+                                  List<ISenseGlossBasedElementLevelSemanticMatcher> senseGlossMatchers,
+                                  RelationMemo relationMemo, boolean approximate) {
+        super(mappingFactory, senseMatcher, useWeakSemanticsElementLevelMatchersLibrary, stringMatchers, senseGlossMatchers, relationMemo);
+        this.approximate = approximate;
+    }
+
+    public BlockingElementMatcher(IMappingFactory mappingFactory, ISenseMatcher senseMatcher,
+                                  boolean useWeakSemanticsElementLevelMatchersLibrary,
+                                  List<IStringBasedElementLevelSemanticMatcher> stringMatchers,
+                                  List<ISenseGlossBasedElementLevelSemanticMatcher> senseGlossMatchers,
+                                  RelationMemo relationMemo, boolean approximate,
+                                  IContext sourceContext, IContext targetContext) {
+        super(mappingFactory, senseMatcher, useWeakSemanticsElementLevelMatchersLibrary, stringMatchers, senseGlossMatchers, relationMemo, sourceContext, targetContext);
+        this.approximate = approximate;
+    }
+
+    @Override
+    public AsyncTask<IContextMapping<IAtomicConceptOfLabel>, IMappingElement<IAtomicConceptOfLabel>>
+    asyncElementLevelMatching(IContext sourceContext, IContext targetContext) {
+        return new BlockingElementMatcher(mappingFactory, senseMatcher, useWeakSemanticsElementLevelMatchersLibrary,
+                stringMatchers, senseGlossMatchers, relationMemo, approximate, sourceContext, targetContext);
+    }
+
+    @Override
+    public IContextMapping<IAtomicConceptOfLabel> elementLevelMatching(IContext sourceContext, IContext targetContext) throws ElementMatcherException {
+        final List<Stage> stages = getStages();
+        if (null == stages) {
+            return super.elementLevelMatching(sourceContext, targetContext);
+        }
+
+        setTotal((long) sourceContext.nodesCount() * (long) targetContext.nodesCount());
+        setProgress(0);
+
+        final IContextMapping<IAtomicConceptOfLabel> result = mappingFactory.getConceptMappingInstance(sourceContext, targetContext);
+        final FrozenContext source = new FrozenContext(sourceContext);
+        final FrozenContext target = new FrozenContext(targetContext);
+        final long[] targetNumbers = getConceptNumbers(target);
+
+        final List<String> keys = new ArrayList<>();
+        final Map<String, Postings> index = new HashMap<>();
+        for (int t = 0; t < target.getConceptCount(); t++) {
+            keys.clear();
+            addKeys(stages, target.getConcept(t), false, keys);
+            for (String key : keys) {
+                Postings postings = index.get(key);
+                if (null == postings) {
+                    postings = new Postings();
+                    index.put(key, postings);
+                }
+                postings.add(t);
+            }
+        }
+
+        // candidates of the current source concept, marked with its number to skip duplicates
+        final int[] marks = new int[target.getConceptCount()];
+        Arrays.fill(marks, -1);
+        int[] candidates = new int[16];
+        long candidateCount = 0;
+        for (int i = 0; i < source.size(); i++) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            for (int s = source.getConceptStart(i); s < source.getConceptEnd(i); s++) {
+                final IAtomicConceptOfLabel sourceACoL = source.getConcept(s);
+                keys.clear();
+                addKeys(stages, sourceACoL, true, keys);
+                int size = 0;
+                for (String key : keys) {
+                    final Postings postings = index.get(key);
+                    if (null != postings) {
+                        for (int k = 0; k < postings.size; k++) {
+                            final int t = postings.items[k];
+                            if (s != marks[t]) {
+                                marks[t] = s;
+                                if (size == candidates.length) {
+                                    candidates = Arrays.copyOf(candidates, candidates.length * 2);
+                                }
+                                candidates[size++] = t;
+                            }
+                        }
+                    }
+                }
+                candidateCount += size;
+
+                final long sourceNumber = 0 == size ? 0 : getConceptNumber(sourceACoL);
+                for (int k = 0; k < size; k++) {
+                    final IAtomicConceptOfLabel targetACoL = target.getConcept(candidates[k]);
+                    final char relation = getRelation(sourceACoL, sourceNumber, targetACoL, targetNumbers[candidates[k]]);
+                    if (IMappingElement.IDK != relation) {
+                        result.setRelation(sourceACoL, targetACoL, relation);
+                    }
+                }
+            }
+
+            // progress by node rather than by acol because task can be created on non-preprocessed contexts...
+            progress(target.size());
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Matched " + candidateCount + " candidate pairs out of "
+                    + (long) source.getConceptCount() * target.getConceptCount());
+        }
+
+        return result;
+    }
+
+    /**
+     * Adds the keys of all stages, each prefixed with the stage number to keep stages apart.
+     */
+    private static void addKeys(List<Stage> stages, IAtomicConceptOfLabel acol, boolean source, List<String> keys) {
+        final List<String> stageKeys = new ArrayList<>();
+        for (int i = 0; i < stages.size(); i++) {
+            stageKeys.clear();
+            if (source) {
+                stages.get(i).addSourceKeys(acol, stageKeys);
+            } else {
+                stages.get(i).addTargetKeys(acol, stageKeys);
+            }
+            final String prefix = Integer.toString(i) + ':';
+            for (String key : stageKeys) {
+                keys.add(prefix + key);
+            }
+        }
+    }
+
+    /**
+     * Returns the stages following the matchers used by {@link #getRelation(IAtomicConceptOfLabel, IAtomicConceptOfLabel)},
+     * or null if some matcher can not be blocked. Logs a warning naming the matcher which can not be blocked exactly,
+     * since matching all concepts can take much longer than expected.
+     *
+     * @return the stages or null
+     */
+    private List<Stage> getStages() {
+        final List<Stage> result = new ArrayList<>();
+        if (senseMatcher instanceof IBlockableSenseMatcher
+                && (approximate || ((IBlockableSenseMatcher) senseMatcher).isExactBlocking())) {
+            result.add(new SenseStage((IBlockableSenseMatcher) senseMatcher));
+        } else if (approximate) {
+            result.add(new SenseIdStage(true));
+        } else {
+            log.warn("Sense matcher " + senseMatcher.getClass().getName()
+                    + " can not be blocked exactly, matching all concepts");
+            return null;
+        }
+
+        if (useWeakSemanticsElementLevelMatchersLibrary) {
+            for (IStringBasedElementLevelSemanticMatcher matcher : stringMatchers) {
+                if (matcher instanceof IBlockableStringMatcher
+                        && (approximate || ((IBlockableStringMatcher) matcher).isExactBlocking())) {
+                    result.add(new StringStage((IBlockableStringMatcher) matcher));
+                } else if (approximate) {
+                    result.add(new LemmaStage());
+                } else {
+                    log.warn("String matcher " + matcher.getClass().getName()
+                            + " can not be blocked exactly, matching all concepts");
+                    return null;
+                }
+            }
+            if (!senseGlossMatchers.isEmpty()) {
+                // sense and gloss matchers are asked only about the concepts with senses
+                result.add(new SenseIdStage(approximate));
+            }
+        }
+        return result;
+    }
+}
@@ -6,6 +6,7 @@ import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.data.mappings.IMappingFactory;
+import it.unitn.disi.smatch.data.trees.FrozenContext;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.oracles.ISenseMatcher;
@@ -15,8 +16,8 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Performs all element level matching routines and provides the library of element level matchers. Needs the
@@ -36,6 +37,8 @@ import java.util.List;
  * senseGlossMatchers - a ; separated list of class names implementing ISenseGlossBasedElementLevelSemanticMatcher
  * interface
  * <p/>
+ * relationMemo - an instance of RelationMemo, to reuse relations computed for the same lemmas and senses
+ * <p/>
  * mappingFactory - an instance of IMappingFactory
  *
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
@@ -46,6 +49,9 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
 
     private static final Logger log = LoggerFactory.getLogger(ElementMatcher.class);
 
+    // batched matcher class -> whether its batched method is consistent with its pair method, see isBatched
+    private static final ConcurrentHashMap<Class<?>, Boolean> BATCHED_CLASSES = new ConcurrentHashMap<>();
+
     protected final IMappingFactory mappingFactory;
     protected final ISenseMatcher senseMatcher;
 
@@ -58,6 +64,9 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
     // contains the classes of sense and gloss based matchers (Implementations of ISenseGlossBasedElementLevelSemanticMatcher interface)
     protected final List<ISenseGlossBasedElementLevelSemanticMatcher> senseGlossMatchers;
 
+    // relations memoized across matching tasks, null if not used
+    protected final RelationMemo relationMemo;
+
     // for task parameters
     protected final IContext sourceContext;
     protected final IContext targetContext;
@@ -70,6 +79,7 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
         stringMatchers = Collections.emptyList();
         senseGlossMatchers = Collections.emptyList();
 
+        this.relationMemo = null;
         this.sourceContext = null;
         this.targetContext = null;
     }
@@ -82,6 +92,7 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
         stringMatchers = Collections.emptyList();
         senseGlossMatchers = Collections.emptyList();
 
+        this.relationMemo = null;
         this.sourceContext = sourceContext;
         this.targetContext = targetContext;
 
@@ -98,6 +109,7 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
         stringMatchers = Collections.emptyList();
         senseGlossMatchers = Collections.emptyList();
 
+        this.relationMemo = null;
         this.sourceContext = null;
         this.targetContext = null;
     }
@@ -112,6 +124,7 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
         stringMatchers = Collections.emptyList();
         senseGlossMatchers = Collections.emptyList();
 
+        this.relationMemo = null;
         this.sourceContext = sourceContext;
         this.targetContext = targetContext;
         setTotal((long) sourceContext.nodesCount() * (long) targetContext.nodesCount());
@@ -134,6 +147,54 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
         } else {
             this.senseGlossMatchers = senseGlossMatchers;
         }
+        this.relationMemo = null;
+        this.sourceContext = null;
+        this.targetContext = null;
+    }
+
+    public ElementMatcher(IMappingFactory mappingFactory, ISenseMatcher senseMatcher,
+                          boolean useWeakSemanticsElementLevelMatchersLibrary,
+                          List<IStringBasedElementLevelSemanticMatcher> stringMatchers,
+                          List<ISenseGlossBasedElementLevelSemanticMatcher> senseGlossMatchers,
+                          IContext sourceContext, IContext targetContext) {
+        this.mappingFactory = mappingFactory;
+        this.senseMatcher = senseMatcher;
+        this.useWeakSemanticsElementLevelMatchersLibrary = useWeakSemanticsElementLevelMatchersLibrary;
+        if (null == stringMatchers) {
+            this.stringMatchers = Collections.emptyList();
+        } else {
+            this.stringMatchers = stringMatchers;
+        }
+        if (null == senseGlossMatchers) {
+            this.senseGlossMatchers = Collections.emptyList();
+        } else {
+            this.senseGlossMatchers = senseGlossMatchers;
+        }
+        this.relationMemo = null;
+        this.sourceContext = sourceContext;
+        this.targetContext = targetContext;
+        setTotal((long) sourceContext.nodesCount() * (long) targetContext.nodesCount());
+    }
+
+    public ElementMatcher(IMappingFactory mappingFactory, ISenseMatcher senseMatcher,
+                          boolean useWeakSemanticsElementLevelMatchersLibrary,
+                          List<IStringBasedElementLevelSemanticMatcher> stringMatchers,
+                          List<ISenseGlossBasedElementLevelSemanticMatcher> senseGlossMatchers,
+                          RelationMemo relationMemo) {
+        this.mappingFactory = mappingFactory;
+        this.senseMatcher = senseMatcher;
+        this.useWeakSemanticsElementLevelMatchersLibrary = useWeakSemanticsElementLevelMatchersLibrary;
+        if (null == stringMatchers) {
+            this.stringMatchers = Collections.emptyList();
+        } else {
+            this.stringMatchers = stringMatchers;
+        }
+        if (null == senseGlossMatchers) {
+            this.senseGlossMatchers = Collections.emptyList();
+        } else {
+            this.senseGlossMatchers = senseGlossMatchers;
+        }
+        this.relationMemo = relationMemo;
         this.sourceContext = null;
         this.targetContext = null;
     }
@@ -142,6 +203,7 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
                           boolean useWeakSemanticsElementLevelMatchersLibrary,
                           List<IStringBasedElementLevelSemanticMatcher> stringMatchers,
                           List<ISenseGlossBasedElementLevelSemanticMatcher> senseGlossMatchers,
+                          RelationMemo relationMemo,
                           IContext sourceContext, IContext targetContext) {
         this.mappingFactory = mappingFactory;
         this.senseMatcher = senseMatcher;
@@ -156,6 +218,7 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
         } else {
             this.senseGlossMatchers = senseGlossMatchers;
         }
+        this.relationMemo = relationMemo;
         this.sourceContext = sourceContext;
         this.targetContext = targetContext;
         setTotal((long) sourceContext.nodesCount() * (long) targetContext.nodesCount());
@@ -169,24 +232,30 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
 
         final IContextMapping<IAtomicConceptOfLabel> result = mappingFactory.getConceptMappingInstance(sourceContext, targetContext);
 
-        for (Iterator<INode> i = sourceContext.nodeIterator(); i.hasNext(); ) {
-            final INode sourceNode = i.next();
-            for (Iterator<INode> j = targetContext.nodeIterator(); j.hasNext(); ) {
-                final INode targetNode = j.next();
-                for (IAtomicConceptOfLabel sourceACoL : sourceNode.nodeData().getConcepts()) {
-                    for (IAtomicConceptOfLabel targetACoL : targetNode.nodeData().getConcepts()) {
+        final FrozenContext source = new FrozenContext(sourceContext);
+        final FrozenContext target = new FrozenContext(targetContext);
+        final long[] sourceNumbers = getConceptNumbers(source);
+        final long[] targetNumbers = getConceptNumbers(target);
+        for (int i = 0; i < source.size(); i++) {
+            for (int j = 0; j < target.size(); j++) {
+                for (int s = source.getConceptStart(i); s < source.getConceptEnd(i); s++) {
+                    final IAtomicConceptOfLabel sourceACoL = source.getConcept(s);
+                    for (int t = target.getConceptStart(j); t < target.getConceptEnd(j); t++) {
+                        final IAtomicConceptOfLabel targetACoL = target.getConcept(t);
                         if (Thread.currentThread().isInterrupted()) {
                             break;
                         }
 
                         //Use Element level semantic matchers library
                         //to check the relation holding between two ACoLs represented by lists of WN senses and tokens
-                        final char relation = getRelation(sourceACoL, targetACoL);
+                        final char relation = getRelation(sourceACoL, sourceNumbers[s], targetACoL, targetNumbers[t]);
                         result.setRelation(sourceACoL, targetACoL, relation);
 
 
                         if (log.isTraceEnabled()) {
                             if (IMappingElement.IDK != relation) {
+                                final INode sourceNode = source.getNode(i);
+                                final INode targetNode = target.getNode(j);
                                 log.trace(sourceNode.nodeData().getId() +
                                                 ".[" + sourceNode.nodeData().getName() + "]." +
                                                 sourceACoL.getId() + "." + sourceACoL.getToken() +
@@ -226,11 +295,11 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
     @Override
     public AsyncTask<IContextMapping<IAtomicConceptOfLabel>, IMappingElement<IAtomicConceptOfLabel>> asyncElementLevelMatching(IContext sourceContext, IContext targetContext) {
         return new ElementMatcher(mappingFactory, senseMatcher, useWeakSemanticsElementLevelMatchersLibrary,
-                stringMatchers, senseGlossMatchers, sourceContext, targetContext);
+                stringMatchers, senseGlossMatchers, relationMemo, sourceContext, targetContext);
     }
 
     /**
-     * Returns a semantic relation between two atomic concepts.
+     * Returns a semantic relation between two atomic concepts. Consults the relation memo first, if there is one.
      *
      * @param sourceACoL source concept
      * @param targetACoL target concept
@@ -238,6 +307,78 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
      * @throws ElementMatcherException ElementMatcherException
      */
     protected char getRelation(IAtomicConceptOfLabel sourceACoL, IAtomicConceptOfLabel targetACoL) throws ElementMatcherException {
+        if (null == relationMemo) {
+            return computeRelation(sourceACoL, targetACoL);
+        }
+        final RelationMemo.Key key = relationMemo.key(sourceACoL, targetACoL);
+        char relation = relationMemo.get(key);
+        if (RelationMemo.NONE == relation) {
+            relation = computeRelation(sourceACoL, targetACoL);
+            relationMemo.put(key, relation);
+        }
+        return relation;
+    }
+
+    /**
+     * Returns a semantic relation between two atomic concepts numbered by {@link #getConceptNumbers(FrozenContext)}.
+     * Consults the relation memo first, if there is one.
+     *
+     * @param sourceACoL   source concept
+     * @param sourceNumber source concept number
+     * @param targetACoL   target concept
+     * @param targetNumber target concept number
+     * @return relation between concepts
+     * @throws ElementMatcherException ElementMatcherException
+     */
+    protected char getRelation(IAtomicConceptOfLabel sourceACoL, long sourceNumber,
+                               IAtomicConceptOfLabel targetACoL, long targetNumber) throws ElementMatcherException {
+        if (null == relationMemo) {
+            return computeRelation(sourceACoL, targetACoL);
+        }
+        final RelationMemo.Key key = relationMemo.key(sourceNumber, targetNumber);
+        char relation = relationMemo.get(key);
+        if (RelationMemo.NONE == relation) {
+            relation = computeRelation(sourceACoL, targetACoL);
+            relationMemo.put(key, relation);
+        }
+        return relation;
+    }
+
+    /**
+     * Numbers the concepts of the context for the relation memo, once per matching task.
+     *
+     * @param context context snapshot
+     * @return the numbers of the concepts, in the snapshot order, or zeros if there is no relation memo
+     */
+    protected long[] getConceptNumbers(FrozenContext context) {
+        final long[] result = new long[context.getConceptCount()];
+        if (null != relationMemo) {
+            for (int i = 0; i < result.length; i++) {
+                result[i] = relationMemo.number(context.getConcept(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of the concept for the relation memo, see {@link #getConceptNumbers(FrozenContext)}.
+     *
+     * @param acol concept
+     * @return the number of the concept, or zero if there is no relation memo
+     */
+    protected long getConceptNumber(IAtomicConceptOfLabel acol) {
+        return null == relationMemo ? 0 : relationMemo.number(acol);
+    }
+
+    /**
+     * Computes a semantic relation between two atomic concepts with the element level matchers.
+     *
+     * @param sourceACoL source concept
+     * @param targetACoL target concept
+     * @return relation between concepts
+     * @throws ElementMatcherException ElementMatcherException
+     */
+    private char computeRelation(IAtomicConceptOfLabel sourceACoL, IAtomicConceptOfLabel targetACoL) throws ElementMatcherException {
         try {
             char relation = senseMatcher.getRelation(sourceACoL.getSenses(), targetACoL.getSenses());
 
@@ -291,7 +432,8 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
     }
 
     /**
-     * Returns semantic relation between two sets of senses by WordNet sense-based matchers.
+     * Returns semantic relation between two sets of senses by WordNet sense-based matchers. The matchers are
+     * asked in turn about all pairs of senses, until one of them finds a relation.
      *
      * @param sourceSenses source senses
      * @param targetSenses target senses
@@ -300,28 +442,80 @@ public class ElementMatcher extends AsyncTask<IContextMapping<IAtomicConceptOfLa
      */
     private char getRelationFromSenseGlossMatchers(List<ISense> sourceSenses, List<ISense> targetSenses) throws ElementMatcherException {
         char relation = IMappingElement.IDK;
-        if (0 < senseGlossMatchers.size()) {
-            for (ISense sourceSense : sourceSenses) {
-                //noinspection LoopStatementThatDoesntLoop
-                for (ISense targetSense : targetSenses) {
-                    int k = 0;
-                    while ((relation == IMappingElement.IDK) && (k < senseGlossMatchers.size())) {
-                        relation = senseGlossMatchers.get(k).match(sourceSense, targetSense);
-                        if (log.isTraceEnabled()) {
-                            if (IMappingElement.IDK != relation) {
-                                String className = senseGlossMatchers.get(k).getClass().getSimpleName();
-                                log.trace(className + "\t" + sourceSense.getId() + "\t" + relation + "\t" + targetSense.getId()
-                                        + "\t\t" + Arrays.toString(sourceSense.getLemmas().toArray())
-                                        + "\t" + relation
-                                        + "\t" + Arrays.toString(targetSense.getLemmas().toArray()));
-                            }
-                        }
-                        k++;
+        if (0 < senseGlossMatchers.size() && !sourceSenses.isEmpty() && !targetSenses.isEmpty()) {
+            int k = 0;
+            while ((relation == IMappingElement.IDK) && (k < senseGlossMatchers.size())) {
+                final ISenseGlossBasedElementLevelSemanticMatcher matcher = senseGlossMatchers.get(k);
+                if (isBatched(matcher)) {
+                    relation = ((IBatchedSenseGlossMatcher) matcher).match(sourceSenses, targetSenses);
+                } else {
+                    relation = matchSensePairs(matcher, sourceSenses, targetSenses);
+                }
+                if (log.isTraceEnabled()) {
+                    if (IMappingElement.IDK != relation) {
+                        log.trace(matcher.getClass().getSimpleName() + "\t" + relation
+                                + "\t\t" + Arrays.toString(sourceSenses.toArray())
+                                + "\t" + relation
+                                + "\t" + Arrays.toString(targetSenses.toArray()));
                     }
-                    return relation;
                 }
+                k++;
             }
         }
         return relation;
     }
+
+    /**
+     * Returns whether the matcher matches all pairs of senses in one call. A subclass of a batched matcher which
+     * overrides only {@link ISenseGlossBasedElementLevelSemanticMatcher#match(ISense, ISense)} is asked pair by pair,
+     * since the batched method it inherits does not know about the override.
+     *
+     * @param matcher sense and gloss based matcher
+     * @return whether to call the batched method
+     */
+    private static boolean isBatched(ISenseGlossBasedElementLevelSemanticMatcher matcher) {
+        if (!(matcher instanceof IBatchedSenseGlossMatcher)) {
+            return false;
+        }
+        final Class<?> matcherClass = matcher.getClass();
+        Boolean result = BATCHED_CLASSES.get(matcherClass);
+        if (null == result) {
+            try {
+                final Class<?> pairClass = matcherClass.getMethod("match", ISense.class, ISense.class).getDeclaringClass();
+                final Class<?> batchClass = matcherClass.getMethod("match", List.class, List.class).getDeclaringClass();
+                result = pairClass.isAssignableFrom(batchClass);
+            } catch (NoSuchMethodException e) {
+                result = false;
+            }
+            BATCHED_CLASSES.put(matcherClass, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the first relation found by the matcher between the source and target senses.
+     *
+     * @param matcher      sense and gloss based matcher
+     * @param sourceSenses source senses
+     * @param targetSenses target senses
+     * @return the first relation found or IDK
+     * @throws ElementMatcherException ElementMatcherException
+     */
+    private static char matchSensePairs(ISenseGlossBasedElementLevelSemanticMatcher matcher,
+                                        List<ISense> sourceSenses, List<ISense> targetSenses) throws ElementMatcherException {
+        final IPrecheckedSenseGlossMatcher precheck =
+                matcher instanceof IPrecheckedSenseGlossMatcher ? (IPrecheckedSenseGlossMatcher) matcher : null;
+        for (ISense sourceSense : sourceSenses) {
+            for (ISense targetSense : targetSenses) {
+                if (null != precheck && !precheck.mayMatch(sourceSense, targetSense)) {
+                    continue;
+                }
+                final char relation = matcher.match(sourceSense, targetSense);
+                if (IMappingElement.IDK != relation) {
+                    return relation;
+                }
+            }
+        }
+        return IMappingElement.IDK;
+    }
 }
\ No newline at end of file
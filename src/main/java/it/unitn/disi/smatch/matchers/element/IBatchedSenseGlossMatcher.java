@@ -0,0 +1,27 @@
+package it.unitn.disi.smatch.matchers.element;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+
+import java.util.List;
+
+/**
+ * An interface for sense and gloss based element level matchers which match all pairs of senses in one call,
+ * sharing the work between the pairs. Element matchers call the batched method only if it is declared by the class
+ * declaring {@link #match(ISense, ISense)} or by its subclass, so that a subclass overriding only the pair method
+ * is still asked pair by pair.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface IBatchedSenseGlossMatcher extends ISenseGlossBasedElementLevelSemanticMatcher {
+
+    /**
+     * Returns the first relation other than IDK found by {@link #match(ISense, ISense)} for the pairs of source
+     * and target senses, taken in order of source senses, then target senses. Returns IDK if there is none.
+     *
+     * @param sourceSenses source senses
+     * @param targetSenses target senses
+     * @return a relation between the first related source and target senses, or IDK
+     * @throws ElementMatcherException ElementMatcherException
+     */
+    char match(List<ISense> sourceSenses, List<ISense> targetSenses) throws ElementMatcherException;
+}
@@ -0,0 +1,36 @@
+package it.unitn.disi.smatch.matchers.element;
+
+import java.util.Collection;
+
+/**
+ * Interface for string-based element-level matchers which tell which strings can not match, so that element
+ * matching can skip them. The matcher returns IDK for a source and a target string which have no key in common.
+ * If the blocking is not exact, the matcher may miss some relations when used with blocking.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface IBlockableStringMatcher extends IStringBasedElementLevelSemanticMatcher {
+
+    /**
+     * Returns whether the matcher returns IDK for all source and target strings without common keys.
+     *
+     * @return whether the blocking is exact
+     */
+    boolean isExactBlocking();
+
+    /**
+     * Adds the keys of the source string.
+     *
+     * @param source the string of source label
+     * @param keys   keys to add to
+     */
+    void addSourceKeys(String source, Collection<String> keys);
+
+    /**
+     * Adds the keys of the target string.
+     *
+     * @param target the string of target label
+     * @param keys   keys to add to
+     */
+    void addTargetKeys(String target, Collection<String> keys);
+}
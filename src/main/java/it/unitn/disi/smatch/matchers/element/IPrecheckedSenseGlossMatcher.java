@@ -0,0 +1,21 @@
+package it.unitn.disi.smatch.matchers.element;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+
+/**
+ * An interface for sense and gloss based element level matchers which can cheaply tell that a pair of senses
+ * is not related, so that the expensive match can be skipped.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface IPrecheckedSenseGlossMatcher extends ISenseGlossBasedElementLevelSemanticMatcher {
+
+    /**
+     * Returns false if {@link #match(ISense, ISense)} returns IDK for the senses.
+     *
+     * @param source source sense
+     * @param target target sense
+     * @return false if the senses are not related, true if they might be
+     */
+    boolean mayMatch(ISense source, ISense target);
+}
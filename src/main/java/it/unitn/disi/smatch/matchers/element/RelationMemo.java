@@ -0,0 +1,165 @@
+package it.unitn.disi.smatch.matchers.element;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.util.CacheStats;
+import it.unitn.disi.smatch.data.util.ClockCache;
+import it.unitn.disi.smatch.data.util.Interner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memo of relations between atomic concepts, for element matchers. The relation computed by an element matcher
+ * depends only on the lemmas and the senses of the concepts, which repeat a lot in real contexts. Lemmas and
+ * sense id lists are {@link Interner interned} into numbers, and the relation is kept under the four numbers of
+ * a concept pair. Element matchers number each concept once per matching task, see {@link #number}.
+ * <p/>
+ * A memo can be shared between element matchers and threads, as long as the matchers are configured the same.
+ * The memo can be bounded by the amount of entries, which bounds the relations and each of the interners.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class RelationMemo {
+
+    /**
+     * Returned by {@link #get(Key)} for unknown pairs.
+     */
+    static final char NONE = 0;
+
+    // estimated size of a key
+    private static final int KEY_BYTES = 32;
+
+    private final Interner<String> lemmaIds;
+    private final Interner<List<String>> senseIds;
+
+    private final ClockCache<Key, Character> relations;
+
+    static class Key {
+        // source lemma and senses numbers
+        final long source;
+        // target lemma and senses numbers
+        final long target;
+
+        Key(long source, long target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return source == key.source && target == key.target;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = source * 0x9E3779B97F4A7C15L + target;
+            h *= 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * Creates an unbounded memo.
+     */
+    public RelationMemo() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a memo bounded by the amount of entries.
+     *
+     * @param maxEntries maximum amount of entries
+     */
+    public RelationMemo(int maxEntries) {
+        this.relations = new ClockCache<>(maxEntries);
+        this.lemmaIds = new Interner<>(maxEntries);
+        this.senseIds = new Interner<>(maxEntries);
+    }
+
+    /**
+     * Returns the memo statistics. The size counts the relations, while the estimated bytes include the interned
+     * lemmas and sense lists.
+     *
+     * @return the memo statistics
+     */
+    public CacheStats getStats() {
+        final CacheStats r = relations.getStats();
+        return new CacheStats(r.getHits(), r.getMisses(), r.getEvictions(), r.getSize(), r.getEstimatedBytes()
+                + lemmaIds.getStats().getEstimatedBytes() + senseIds.getStats().getEstimatedBytes());
+    }
+
+    /**
+     * Returns the key of the concept pair.
+     *
+     * @param sourceACoL source concept
+     * @param targetACoL target concept
+     * @return the key of the concept pair
+     */
+    Key key(IAtomicConceptOfLabel sourceACoL, IAtomicConceptOfLabel targetACoL) {
+        return new Key(number(sourceACoL), number(targetACoL));
+    }
+
+    /**
+     * Returns the key of the concept pair.
+     *
+     * @param source source concept number, see {@link #number(IAtomicConceptOfLabel)}
+     * @param target target concept number, see {@link #number(IAtomicConceptOfLabel)}
+     * @return the key of the concept pair
+     */
+    Key key(long source, long target) {
+        return new Key(source, target);
+    }
+
+    /**
+     * Returns the relation memoized for the key, or {@link #NONE}.
+     *
+     * @param key key of the concept pair
+     * @return the relation or {@link #NONE}
+     */
+    char get(Key key) {
+        final Character relation = relations.get(key);
+        return null == relation ? NONE : relation;
+    }
+
+    /**
+     * Memoizes the relation for the key.
+     *
+     * @param key      key of the concept pair
+     * @param relation relation
+     */
+    void put(Key key, char relation) {
+        // another thread might have computed the same relation meanwhile
+        relations.putIfAbsent(key, relation, KEY_BYTES);
+    }
+
+    /**
+     * Returns the number of the concept, made of the numbers of its lemma and its sense id list. A number stays
+     * correct after the lemma or the senses are evicted from the interners, the concepts numbered later just get
+     * a new number.
+     *
+     * @param acol concept
+     * @return the number of the concept
+     */
+    long number(IAtomicConceptOfLabel acol) {
+        final String lemma = null == acol.getLemma() ? "" : acol.getLemma();
+        final int lemmaId = lemmaIds.intern(lemma, 40 + 2L * lemma.length());
+        final List<String> ids = new ArrayList<>();
+        long bytes = 40;
+        if (null != acol.getSenses()) {
+            for (ISense sense : acol.getSenses()) {
+                ids.add(sense.getId());
+                bytes += 8 + 40 + 2L * sense.getId().length();
+            }
+        }
+        final int senses = senseIds.intern(ids, bytes);
+        return ((long) lemmaId << 32) | (senses & 0xFFFFFFFFL);
+    }
+}
@@ -164,11 +164,36 @@ public class RunnableElementMatcher extends ElementMatcher {
         this.threadLimiter = new Semaphore(maxThreadCount);
     }
 
+    public RunnableElementMatcher(IMappingFactory mappingFactory, ISenseMatcher senseMatcher,
+                                  boolean useWeakSemanticsElementLevelMatchersLibrary,
+                                  List<IStringBasedElementLevelSemanticMatcher> stringMatchers,
+                                  List<ISenseGlossBasedElementLevelSemanticMatcher> senseGlossMatchers,
+                                  RelationMemo relationMemo,
+                                  Executor executor, int maxThreadCount) {
+        super(mappingFactory, senseMatcher, useWeakSemanticsElementLevelMatchersLibrary, stringMatchers, senseGlossMatchers, relationMemo);
+        this.executor = executor;
+        this.maxThreadCount = maxThreadCount;
+        this.threadLimiter = new Semaphore(maxThreadCount);
+    }
+
+    public RunnableElementMatcher(IMappingFactory mappingFactory, ISenseMatcher senseMatcher,
+                                  boolean useWeakSemanticsElementLevelMatchersLibrary,
+                                  List<IStringBasedElementLevelSemanticMatcher> stringMatchers,
+                                  List<ISenseGlossBasedElementLevelSemanticMatcher> senseGlossMatchers,
+                                  RelationMemo relationMemo,
+                                  Executor executor, int maxThreadCount,
+                                  IContext sourceContext, IContext targetContext) {
+        super(mappingFactory, senseMatcher, useWeakSemanticsElementLevelMatchersLibrary, stringMatchers, senseGlossMatchers, relationMemo, sourceContext, targetContext);
+        this.executor = executor;
+        this.maxThreadCount = maxThreadCount;
+        this.threadLimiter = new Semaphore(maxThreadCount);
+    }
+
     @Override
     public AsyncTask<IContextMapping<IAtomicConceptOfLabel>, IMappingElement<IAtomicConceptOfLabel>>
     asyncElementLevelMatching(IContext sourceContext, IContext targetContext) {
         return new RunnableElementMatcher(mappingFactory, senseMatcher, useWeakSemanticsElementLevelMatchersLibrary,
-                stringMatchers, senseGlossMatchers, executor, maxThreadCount, sourceContext, targetContext);
+                stringMatchers, senseGlossMatchers, relationMemo, executor, maxThreadCount, sourceContext, targetContext);
     }
 
     @Override
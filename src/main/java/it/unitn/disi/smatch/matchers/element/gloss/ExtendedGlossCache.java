@@ -0,0 +1,178 @@
+package it.unitn.disi.smatch.matchers.element.gloss;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.util.CacheStats;
+import it.unitn.disi.smatch.data.util.ClockCache;
+import it.unitn.disi.smatch.oracles.LinguisticOracleException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringTokenizer;
+
+/**
+ * Cache of extended glosses, see {@link BaseGlossMatcher#getExtendedGloss(ISense, int, char)}, and of the glosses
+ * of senses. Extended glosses are built by the matcher owning the cache, so that the matchers overriding
+ * {@link BaseGlossMatcher#getExtendedGloss(ISense, int, char)} are cached too. An extended gloss is kept under the sense id, the depth and the direction as an array of tokens
+ * without meaningless words, by default lowercased, ready to be compared. The cache is bounded by the amount of
+ * entries.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ExtendedGlossCache {
+
+    /**
+     * Default maximum amount of entries.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    // estimated size of a key, without the sense id
+    private static final int KEY_BYTES = 64;
+
+    /**
+     * Default token delimiters.
+     */
+    public static final String DEFAULT_DELIMITERS = " ,.\"'();";
+
+    // direction of the key of the gloss of a sense
+    private static final char GLOSS = 0;
+
+    private final BaseGlossMatcher matcher;
+    private final String meaninglessWords;
+    private final String delimiters;
+    private final boolean lowercase;
+
+    private final ClockCache<Key, String[]> glosses;
+
+    private static final class Key {
+        final String senseId;
+        final int depth;
+        final char direction;
+
+        Key(String senseId, int depth, char direction) {
+            this.senseId = senseId;
+            this.depth = depth;
+            this.direction = direction;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return depth == key.depth && direction == key.direction && senseId.equals(key.senseId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * senseId.hashCode() + depth) + direction;
+        }
+    }
+
+    /**
+     * Creates a cache bounded by {@link #DEFAULT_MAX_ENTRIES} entries.
+     *
+     * @param matcher          matcher building the extended glosses
+     * @param meaninglessWords words to leave out
+     */
+    public ExtendedGlossCache(BaseGlossMatcher matcher, String meaninglessWords) {
+        this(matcher, meaninglessWords, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates a cache bounded by the amount of entries.
+     *
+     * @param matcher          matcher building the extended glosses
+     * @param meaninglessWords words to leave out
+     * @param maxEntries       maximum amount of entries
+     */
+    public ExtendedGlossCache(BaseGlossMatcher matcher, String meaninglessWords, int maxEntries) {
+        this(matcher, meaninglessWords, DEFAULT_DELIMITERS, true, maxEntries);
+    }
+
+    /**
+     * Creates a cache bounded by the amount of entries, which tokenizes glosses as configured.
+     *
+     * @param matcher          matcher building the extended glosses
+     * @param meaninglessWords words to leave out
+     * @param delimiters       token delimiters
+     * @param lowercase        whether to lowercase the tokens
+     * @param maxEntries       maximum amount of entries
+     */
+    public ExtendedGlossCache(BaseGlossMatcher matcher, String meaninglessWords, String delimiters, boolean lowercase,
+                              int maxEntries) {
+        this.matcher = matcher;
+        this.meaninglessWords = meaninglessWords;
+        this.delimiters = delimiters;
+        this.lowercase = lowercase;
+        this.glosses = new ClockCache<>(maxEntries);
+    }
+
+    /**
+     * Returns the tokens of the extended gloss. The array is shared and should not be modified.
+     *
+     * @param sense     sense
+     * @param depth     how much depth the gloss should be taken
+     * @param direction for less than relation get child gloss and vice versa
+     * @return meaningful tokens of the extended gloss
+     * @throws LinguisticOracleException LinguisticOracleException
+     */
+    public String[] getTokens(ISense sense, int depth, char direction) throws LinguisticOracleException {
+        final Key key = new Key(sense.getId(), depth, direction);
+        final String[] cached = glosses.get(key);
+        if (null != cached) {
+            return cached;
+        }
+        return put(key, tokenize(matcher.getExtendedGloss(sense, depth, direction)));
+    }
+
+    /**
+     * Returns the tokens of the gloss of the sense. The array is shared and should not be modified.
+     *
+     * @param sense sense
+     * @return meaningful tokens of the gloss
+     */
+    public String[] getGlossTokens(ISense sense) {
+        final Key key = new Key(sense.getId(), 0, GLOSS);
+        final String[] cached = glosses.get(key);
+        if (null != cached) {
+            return cached;
+        }
+        return put(key, tokenize(sense.getGloss()));
+    }
+
+    /**
+     * Returns the cache statistics.
+     *
+     * @return the cache statistics
+     */
+    public CacheStats getStats() {
+        return glosses.getStats();
+    }
+
+    private String[] put(Key key, String[] tokens) {
+        long bytes = KEY_BYTES + 2L * key.senseId.length() + 16 + 8L * tokens.length;
+        for (String token : tokens) {
+            bytes += 48 + 2 * token.length();
+        }
+        // another thread might have built the same gloss meanwhile
+        return glosses.putIfAbsent(key, tokens, bytes);
+    }
+
+    private String[] tokenize(String gloss) {
+        final List<String> result = new ArrayList<>();
+        final StringTokenizer st = new StringTokenizer(gloss, delimiters);
+        while (st.hasMoreTokens()) {
+            final String token = st.nextToken();
+            // meaningless words are matched before lowercasing, as the matchers always did
+            if (!meaninglessWords.contains(token)) {
+                result.add(lowercase ? token.toLowerCase(Locale.ENGLISH) : token);
+            }
+        }
+        return result.toArray(new String[result.size()]);
+    }
+}
@@ -2,6 +2,7 @@ package it.unitn.disi.smatch.matchers.element.gloss;
 
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.util.CacheStats;
 import it.unitn.disi.smatch.matchers.element.ElementMatcherException;
 import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
 import it.unitn.disi.smatch.oracles.ILinguisticOracle;
@@ -9,7 +10,7 @@ import it.unitn.disi.smatch.oracles.ISenseMatcher;
 import it.unitn.disi.smatch.oracles.LinguisticOracleException;
 
 import java.util.List;
-import java.util.StringTokenizer;
+import java.util.Locale;
 
 /**
  * Implements WNExtendedGlossComparison matcher. See Element Level Semantic matchers paper for more details.
@@ -18,6 +19,9 @@ import java.util.StringTokenizer;
  * threshold - integer parameter, which by default equals 5.
  * <p/>
  * meaninglessWords - string parameter which indicates words to ignore. Check the source file for default value.
+ * <p/>
+ * maxExtendedGlosses - integer parameter, the maximum amount of extended glosses kept tokenized, which by default
+ * equals {@link ExtendedGlossCache#DEFAULT_MAX_ENTRIES}.
  *
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
@@ -29,23 +33,35 @@ public class WNExtendedGloss extends BaseGlossMatcher implements ISenseGlossBase
 
     protected final int threshold;
     protected final String meaninglessWords;
+    protected final ExtendedGlossCache extendedGlosses;
 
     public WNExtendedGloss(ILinguisticOracle linguisticOracle, ISenseMatcher senseMatcher) {
-        super(linguisticOracle, senseMatcher);
-        this.threshold = 5;
-        this.meaninglessWords = DEFAULT_MEANINGLESS_WORDS;
+        this(linguisticOracle, senseMatcher, 5);
     }
 
     public WNExtendedGloss(ILinguisticOracle linguisticOracle, ISenseMatcher senseMatcher, int threshold) {
-        super(linguisticOracle, senseMatcher);
-        this.threshold = threshold;
-        this.meaninglessWords = DEFAULT_MEANINGLESS_WORDS;
+        this(linguisticOracle, senseMatcher, threshold, DEFAULT_MEANINGLESS_WORDS);
     }
 
     public WNExtendedGloss(ILinguisticOracle linguisticOracle, ISenseMatcher senseMatcher, int threshold, String meaninglessWords) {
+        this(linguisticOracle, senseMatcher, threshold, meaninglessWords, ExtendedGlossCache.DEFAULT_MAX_ENTRIES);
+    }
+
+    public WNExtendedGloss(ILinguisticOracle linguisticOracle, ISenseMatcher senseMatcher, int threshold, String meaninglessWords,
+                           int maxExtendedGlosses) {
         super(linguisticOracle, senseMatcher);
         this.threshold = threshold;
         this.meaninglessWords = meaninglessWords;
+        this.extendedGlosses = new ExtendedGlossCache(this, meaninglessWords, maxExtendedGlosses);
+    }
+
+    /**
+     * Returns the statistics of the extended glosses cache.
+     *
+     * @return the statistics of the extended glosses cache
+     */
+    public CacheStats getExtendedGlossStats() {
+        return extendedGlosses.getStats();
     }
 
     /**
@@ -58,23 +74,18 @@ public class WNExtendedGloss extends BaseGlossMatcher implements ISenseGlossBase
     public char match(ISense source, ISense target) throws ElementMatcherException {
         char result = IMappingElement.IDK;
         try {
-            String tExtendedGloss = getExtendedGloss(target, 1, IMappingElement.LESS_GENERAL);
+            String[] tExtendedGloss = extendedGlosses.getTokens(target, 1, IMappingElement.LESS_GENERAL);
             List<String> sourceLemmas = source.getLemmas();
-            //variations of this matcher
-            //StringTokenizer stSource = new StringTokenizer(tExtendedGloss, " ,.\"'();");
-            String lemmaT;
             int counter = 0;
             for (String sourceLemma : sourceLemmas) {
-                StringTokenizer stTarget = new StringTokenizer(tExtendedGloss, " ,.\"'();");
-                if (!meaninglessWords.contains(sourceLemma))
-                    while (stTarget.hasMoreTokens()) {
-                        lemmaT = stTarget.nextToken();
-                        if (!meaninglessWords.contains(lemmaT)) {
-                            if (sourceLemma.equalsIgnoreCase(lemmaT)) {
-                                counter++;
-                            }
+                if (!meaninglessWords.contains(sourceLemma)) {
+                    String lemmaS = sourceLemma.toLowerCase(Locale.ENGLISH);
+                    for (String lemmaT : tExtendedGloss) {
+                        if (lemmaS.equals(lemmaT)) {
+                            counter++;
                         }
                     }
+                }
             }
             if (counter > threshold) {
                 result = IMappingElement.EQUIVALENCE;
@@ -8,7 +8,8 @@ import it.unitn.disi.smatch.oracles.ILinguisticOracle;
 import it.unitn.disi.smatch.oracles.ISenseMatcher;
 import it.unitn.disi.smatch.oracles.LinguisticOracleException;
 
-import java.util.StringTokenizer;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Implements WNExtendedGlossComparison matcher. See Element Level Semantic matchers paper for more details.
@@ -18,6 +19,9 @@ import java.util.StringTokenizer;
  * threshold - integer parameter, which by default equals 5.
  * <p/>
  * meaninglessWords - string parameter which indicates words to ignore. Check the source file for default value.
+ * <p/>
+ * maxExtendedGlosses - integer parameter, the maximum amount of extended glosses kept tokenized, which by default
+ * equals {@link ExtendedGlossCache#DEFAULT_MAX_ENTRIES}.
  *
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
@@ -36,6 +40,11 @@ public class WNExtendedGlossComparison extends WNExtendedGloss implements ISense
         super(linguisticOracle, senseMatcher, threshold, meaninglessWords);
     }
 
+    public WNExtendedGlossComparison(ILinguisticOracle linguisticOracle, ISenseMatcher senseMatcher, int threshold, String meaninglessWords,
+                                     int maxExtendedGlosses) {
+        super(linguisticOracle, senseMatcher, threshold, meaninglessWords, maxExtendedGlosses);
+    }
+
     /**
      * Computes the relation for extended gloss matcher.
      *
@@ -46,22 +55,19 @@ public class WNExtendedGlossComparison extends WNExtendedGloss implements ISense
     public char match(ISense source1, ISense target1) throws ElementMatcherException {
         char result = IMappingElement.IDK;
         try {
-            String tExtendedGloss = getExtendedGloss(target1, 1, IMappingElement.LESS_GENERAL);
-            String sExtendedGloss = getExtendedGloss(source1, 1, IMappingElement.LESS_GENERAL);
-            //variations of this matcher
-            StringTokenizer stSource = new StringTokenizer(tExtendedGloss, " ,.\"'();");
-            String lemmaS, lemmaT;
+            String[] tExtendedGloss = extendedGlosses.getTokens(target1, 1, IMappingElement.LESS_GENERAL);
+            String[] sExtendedGloss = extendedGlosses.getTokens(source1, 1, IMappingElement.LESS_GENERAL);
+            Map<String, Integer> sourceCounts = new HashMap<>();
+            for (String lemmaS : sExtendedGloss) {
+                Integer count = sourceCounts.get(lemmaS);
+                sourceCounts.put(lemmaS, null == count ? 1 : count + 1);
+            }
             int counter = 0;
-            while (stSource.hasMoreTokens()) {
-                StringTokenizer stTarget = new StringTokenizer(sExtendedGloss, " ,.\"'();");
-                lemmaS = stSource.nextToken();
-                if (!meaninglessWords.contains(lemmaS))
-                    while (stTarget.hasMoreTokens()) {
-                        lemmaT = stTarget.nextToken();
-                        if (!meaninglessWords.contains(lemmaT))
-                            if (lemmaS.equalsIgnoreCase(lemmaT))
-                                counter++;
-                    }
+            for (String lemmaT : tExtendedGloss) {
+                Integer count = sourceCounts.get(lemmaT);
+                if (null != count) {
+                    counter += count;
+                }
             }
             if (counter > threshold) {
                 result = IMappingElement.EQUIVALENCE;
@@ -2,11 +2,19 @@ package it.unitn.disi.smatch.matchers.element.gloss;
 
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.util.CacheStats;
 import it.unitn.disi.smatch.matchers.element.ElementMatcherException;
 import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.oracles.ILinguisticOracle;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
 import it.unitn.disi.smatch.oracles.LinguisticOracleException;
 
-import java.util.StringTokenizer;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Implements WNExtendedSemanticGlossComparison matcher. See Element Level Semantic matchers paper for more details.
@@ -14,6 +22,19 @@ import java.util.StringTokenizer;
  * Accepts the following parameters:
  * <p/>
  * meaninglessWords - string parameter which indicates words to ignore. Check the source file for default value.
+ * <p/>
+ * maxGlosses - integer parameter, the maximum amount of glosses and extended glosses kept tokenized, which by
+ * default equals {@link #DEFAULT_MAX_GLOSSES}.
+ * <p/>
+ * maxWords - integer parameter, the maximum amount of words whose relations are kept, which by default equals
+ * {@link #DEFAULT_MAX_WORDS}.
+ * <p/>
+ * Glosses are tokenized once per sense, see {@link ExtendedGlossCache}, and their words are numbered densely. The relation between two words is
+ * asked from the linguistic oracle and the sense matcher once, and is kept in the bitsets of the source word: one
+ * of the words with a known relation and one per relation. The relations of a source word with a gloss are counted
+ * by intersecting these bitsets with the bitset of the gloss words. The bitsets take at most 5 * maxWords<sup>2</sup>
+ * bits. Words are not evicted one by one, because their numbers index the bitsets: when there are more words than
+ * maxWords, all relations are forgotten and words are numbered anew.
  *
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
@@ -23,16 +44,192 @@ public class WNExtendedSemanticGlossComparison extends BaseGlossMatcher implemen
     // the words which are cut off from the area of discourse
     public final static String DEFAULT_MEANINGLESS_WORDS = "of on to their than from for by in at is are have has the a as with your etc our into its his her which him among those against ";
 
+    /**
+     * Default maximum amount of glosses and extended glosses kept tokenized.
+     */
+    public static final int DEFAULT_MAX_GLOSSES = 10000;
+
+    /**
+     * Default maximum amount of words whose relations are kept.
+     */
+    public static final int DEFAULT_MAX_WORDS = 4096;
+
+    // word relations, as counted by getDominantRelation
+    private static final int LESS_GENERAL = 0;
+    private static final int MORE_GENERAL = 1;
+    private static final int SYNONYM = 2;
+    private static final int OPPOSITE = 3;
+    private static final int NONE = 4;
+
+    // tokens are split as this matcher always did, without lowercasing
+    private static final String DELIMITERS = " ,.\"'()";
+
+
     protected final String meaninglessWords;
+    protected final ExtendedGlossCache extendedGlosses;
+    private final int maxWords;
+
+    // numbered words, replaced by an empty table when it is full
+    private final AtomicReference<WordTable> words;
+
+
+    /**
+     * Words numbered densely, with their relations. Bounded by the amount of words.
+     */
+    private static final class WordTable {
+        private final ConcurrentHashMap<String, Integer> numbers = new ConcurrentHashMap<>();
+        private final AtomicInteger count = new AtomicInteger();
+        private final AtomicReferenceArray<Signature> signatures;
+
+        WordTable(int maxWords) {
+            this.signatures = new AtomicReferenceArray<>(maxWords);
+        }
+
+        /**
+         * Returns the number of the word, or -1 if the table is full.
+         */
+        int number(String word) {
+            Integer result = numbers.get(word);
+            if (null == result) {
+                // a number lost in a race with another thread is not given again
+                final int number = count.getAndIncrement();
+                if (signatures.length() <= number) {
+                    return -1;
+                }
+                result = numbers.putIfAbsent(word, number);
+                if (null == result) {
+                    result = number;
+                }
+            }
+            return result;
+        }
+
+        Signature getSignature(int word) {
+            Signature result = signatures.get(word);
+            if (null == result) {
+                signatures.compareAndSet(word, null, new Signature());
+                result = signatures.get(word);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Relations of a word with the other words, filled on demand. Guarded by itself.
+     */
+    private static final class Signature {
+        // the other words for which the relation is known
+        private final BitSet known = new BitSet();
+        // the other words in each relation but NONE
+        private final BitSet[] related = {new BitSet(), new BitSet(), new BitSet(), new BitSet()};
+
+        synchronized boolean isKnown(int other) {
+            return known.get(other);
+        }
+
+        synchronized void set(int other, int relation) {
+            known.set(other);
+            if (NONE != relation) {
+                related[relation].set(other);
+            }
+        }
+
+        synchronized boolean intersects(int relation, BitSet others) {
+            return related[relation].intersects(others);
+        }
+
+        synchronized boolean isRelated(int relation, int other) {
+            return related[relation].get(other);
+        }
+    }
+
+    /**
+     * Distinct words of a gloss, with their numbers and occurrence counts.
+     */
+    private static final class Gloss {
+        final int size;
+        final String[] words;
+        final int[] counts;
+        // null if the words are not numbered
+        final int[] numbers;
+        final BitSet set;
+
+        /**
+         * Counts the distinct words and numbers them in the table, unless the table is null or full.
+         */
+        Gloss(String[] tokens, WordTable table) {
+            final String[] sorted = tokens.clone();
+            Arrays.sort(sorted);
+            int n = 0;
+            final int[] occurrences = new int[sorted.length];
+            for (String token : sorted) {
+                if (0 < n && sorted[n - 1].equals(token)) {
+                    occurrences[n - 1]++;
+                } else {
+                    sorted[n] = token;
+                    occurrences[n] = 1;
+                    n++;
+                }
+            }
+            size = n;
+            words = sorted;
+            counts = occurrences;
+
+            int[] ids = null;
+            BitSet bits = null;
+            if (null != table) {
+                ids = new int[n];
+                bits = new BitSet();
+                for (int i = 0; i < n && null != ids; i++) {
+                    ids[i] = table.number(words[i]);
+                    if (-1 == ids[i]) {
+                        ids = null;
+                        bits = null;
+                    } else {
+                        bits.set(ids[i]);
+                    }
+                }
+            }
+            numbers = ids;
+            set = bits;
+        }
+    }
 
     public WNExtendedSemanticGlossComparison() {
-        super(null, null);
-        this.meaninglessWords = DEFAULT_MEANINGLESS_WORDS;
+        this(null, null);
     }
 
     public WNExtendedSemanticGlossComparison(String meaninglessWords) {
-        super(null, null);
+        this(null, null, meaninglessWords);
+    }
+
+    public WNExtendedSemanticGlossComparison(ILinguisticOracle linguisticOracle, ISenseMatcher senseMatcher) {
+        this(linguisticOracle, senseMatcher, DEFAULT_MEANINGLESS_WORDS);
+    }
+
+    public WNExtendedSemanticGlossComparison(ILinguisticOracle linguisticOracle, ISenseMatcher senseMatcher, String meaninglessWords) {
+        this(linguisticOracle, senseMatcher, meaninglessWords, DEFAULT_MAX_GLOSSES, DEFAULT_MAX_WORDS);
+    }
+
+    public WNExtendedSemanticGlossComparison(ILinguisticOracle linguisticOracle, ISenseMatcher senseMatcher, String meaninglessWords,
+                                             int maxGlosses, int maxWords) {
+        super(linguisticOracle, senseMatcher);
+        if (maxWords <= 0) {
+            throw new IllegalArgumentException("maxWords should be positive, found: " + maxWords);
+        }
         this.meaninglessWords = meaninglessWords;
+        this.extendedGlosses = new ExtendedGlossCache(this, meaninglessWords, DELIMITERS, false, maxGlosses);
+        this.maxWords = maxWords;
+        this.words = new AtomicReference<>(new WordTable(maxWords));
+    }
+
+    /**
+     * Returns the statistics of the glosses cache.
+     *
+     * @return the statistics of the glosses cache
+     */
+    public CacheStats getGlossStats() {
+        return extendedGlosses.getStats();
     }
 
     /**
@@ -45,16 +242,16 @@ public class WNExtendedSemanticGlossComparison extends BaseGlossMatcher implemen
     public char match(ISense source, ISense target) throws ElementMatcherException {
         char result = IMappingElement.IDK;
         try {
-            String sSynset = source.getGloss();
+            String[] sSynset = extendedGlosses.getGlossTokens(source);
 
             // get gloss of Immediate ancestor of target node
-            String tLGExtendedGloss = getExtendedGloss(target, 1, IMappingElement.LESS_GENERAL);
+            String[] tLGExtendedGloss = extendedGlosses.getTokens(target, 1, IMappingElement.LESS_GENERAL);
             // get relation frequently occur between gloss of source and extended gloss of target
             char LGRel = getDominantRelation(sSynset, tLGExtendedGloss);
             // get final relation
             char LGFinal = getRelationFromRels(IMappingElement.LESS_GENERAL, LGRel);
             // get gloss of Immediate descendant of target node
-            String tMGExtendedGloss = getExtendedGloss(target, 1, IMappingElement.MORE_GENERAL);
+            String[] tMGExtendedGloss = extendedGlosses.getTokens(target, 1, IMappingElement.MORE_GENERAL);
             char MGRel = getDominantRelation(sSynset, tMGExtendedGloss);
             char MGFinal = getRelationFromRels(IMappingElement.MORE_GENERAL, MGRel);
             // Compute final relation
@@ -76,39 +273,70 @@ public class WNExtendedSemanticGlossComparison extends BaseGlossMatcher implemen
     /**
      * Gets Semantic relation occurring more frequently between words in two extended glosses.
      *
-     * @param sExtendedGloss extended gloss of source
-     * @param tExtendedGloss extended gloss of target
+     * @param sExtendedGloss tokens of the extended gloss of source
+     * @param tExtendedGloss tokens of the extended gloss of target
      * @return more general, less general or IDK relation
      * @throws it.unitn.disi.smatch.matchers.element.ElementMatcherException ElementMatcherException
      */
-    private char getDominantRelation(String sExtendedGloss, String tExtendedGloss) throws ElementMatcherException {
-        int Equals = 0;
-        int moreGeneral = 0;
-        int lessGeneral = 0;
-        int Opposite = 0;
-        StringTokenizer stSource = new StringTokenizer(sExtendedGloss, " ,.\"'()");
-        String lemmaS, lemmaT;
-        while (stSource.hasMoreTokens()) {
-            StringTokenizer stTarget = new StringTokenizer(tExtendedGloss, " ,.\"'()");
-            lemmaS = stSource.nextToken();
-            if (!meaninglessWords.contains(lemmaS)) {
-                while (stTarget.hasMoreTokens()) {
-                    lemmaT = stTarget.nextToken();
-                    if (!meaninglessWords.contains(lemmaT)) {
-                        if (isWordLessGeneral(lemmaS, lemmaT)) {
-                            lessGeneral++;
-                        } else if (isWordMoreGeneral(lemmaS, lemmaT)) {
-                            moreGeneral++;
-                        } else if (isWordSynonym(lemmaS, lemmaT)) {
-                            Equals++;
-                        } else if (isWordOpposite(lemmaS, lemmaT)) {
-                            Opposite++;
+    private char getDominantRelation(String[] sExtendedGloss, String[] tExtendedGloss) throws ElementMatcherException {
+        WordTable table = words.get();
+        Gloss source = new Gloss(sExtendedGloss, table);
+        Gloss target = new Gloss(tExtendedGloss, table);
+        if (null == source.numbers || null == target.numbers) {
+            // the table is full: forget the relations and number the words anew
+            words.compareAndSet(table, new WordTable(maxWords));
+            table = words.get();
+            source = new Gloss(sExtendedGloss, table);
+            target = new Gloss(tExtendedGloss, table);
+        }
+
+        final int[] counts = new int[NONE];
+        if (null == source.numbers || null == target.numbers) {
+            // the glosses have more words than the table takes
+            for (int i = 0; i < source.size; i++) {
+                for (int j = 0; j < target.size; j++) {
+                    final int relation = getWordRelation(source.words[i], target.words[j]);
+                    if (NONE != relation) {
+                        counts[relation] += source.counts[i] * target.counts[j];
+                    }
+                }
+            }
+        } else {
+            for (int i = 0; i < source.size; i++) {
+                final Signature signature = table.getSignature(source.numbers[i]);
+                for (int j = 0; j < target.size; j++) {
+                    if (!signature.isKnown(target.numbers[j])) {
+                        signature.set(target.numbers[j], getWordRelation(source.words[i], target.words[j]));
+                    }
+                }
+                for (int relation = 0; relation < NONE; relation++) {
+                    if (signature.intersects(relation, target.set)) {
+                        for (int j = 0; j < target.size; j++) {
+                            if (signature.isRelated(relation, target.numbers[j])) {
+                                counts[relation] += source.counts[i] * target.counts[j];
+                            }
                         }
                     }
                 }
             }
         }
-        return getRelationFromInts(lessGeneral, moreGeneral, Equals, Opposite);
+        return getRelationFromInts(counts[LESS_GENERAL], counts[MORE_GENERAL], counts[SYNONYM], counts[OPPOSITE]);
+    }
+
+    /**
+     * Returns the relation between words, checking the relations in the order they are counted in.
+     */
+    private int getWordRelation(String lemmaS, String lemmaT) throws ElementMatcherException {
+        if (isWordLessGeneral(lemmaS, lemmaT)) {
+            return LESS_GENERAL;
+        } else if (isWordMoreGeneral(lemmaS, lemmaT)) {
+            return MORE_GENERAL;
+        } else if (isWordSynonym(lemmaS, lemmaT)) {
+            return SYNONYM;
+        } else if (isWordOpposite(lemmaS, lemmaT)) {
+            return OPPOSITE;
+        }
+        return NONE;
     }
 
     /**
@@ -3,9 +3,12 @@ package it.unitn.disi.smatch.matchers.element.gloss;
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.matchers.element.ElementMatcherException;
-import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IBatchedSenseGlossMatcher;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.StringTokenizer;
 
 /**
@@ -20,7 +23,7 @@ import java.util.StringTokenizer;
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class WNGloss implements ISenseGlossBasedElementLevelSemanticMatcher {
+public class WNGloss implements IBatchedSenseGlossMatcher {
 
     // the words which are cut off from the area of discourse
     public final static String DEFAULT_MEANINGLESS_WORDS = "of on to their than from for by in at is are have has the a as with your etc our into its his her which him among those against ";
@@ -52,41 +55,108 @@ public class WNGloss implements ISenseGlossBasedElementLevelSemanticMatcher {
      * @return more general, less general or IDK relation
      */
     public char match(ISense source, ISense target) throws ElementMatcherException {
-        String sSynset = source.getGloss();
-        String tSynset = target.getGloss();
-        StringTokenizer stSource = new StringTokenizer(sSynset, " ,.\"'();");
-        StringTokenizer stTarget = new StringTokenizer(tSynset, " ,.\"'();");
-        String lemma;
-        int counter = 0;
-        while (stSource.hasMoreTokens()) {
-            lemma = stSource.nextToken();
-            if (!meaninglessWords.contains(lemma)) {
-                List<String> lemmas = target.getLemmas();
-                for (String lemmaToCompare : lemmas) {
-                    if (lemma.equals(lemmaToCompare)) {
-                        counter++;
-                    }
-                }
-            }
+        return matchTokens(getMeaningfulTokens(source.getGloss()), count(source.getLemmas()),
+                getMeaningfulTokens(target.getGloss()), count(target.getLemmas()));
+    }
+
+    /**
+     * Computes the relations with WordNet gloss matcher for all pairs of senses at once. Each gloss is tokenized
+     * and each list of lemmas is counted once, instead of once per pair.
+     *
+     * @param sourceSenses source senses
+     * @param targetSenses target senses
+     * @return more general, less general or IDK relation of the first related pair
+     */
+    public char match(List<ISense> sourceSenses, List<ISense> targetSenses) throws ElementMatcherException {
+        List<List<String>> sourceTokens = new ArrayList<>(sourceSenses.size());
+        List<Map<String, Integer>> sourceLemmas = new ArrayList<>(sourceSenses.size());
+        for (ISense source : sourceSenses) {
+            sourceTokens.add(getMeaningfulTokens(source.getGloss()));
+            sourceLemmas.add(count(source.getLemmas()));
         }
-        if (counter >= threshold) {
-            return IMappingElement.LESS_GENERAL;
+        List<List<String>> targetTokens = new ArrayList<>(targetSenses.size());
+        List<Map<String, Integer>> targetLemmas = new ArrayList<>(targetSenses.size());
+        for (ISense target : targetSenses) {
+            targetTokens.add(getMeaningfulTokens(target.getGloss()));
+            targetLemmas.add(count(target.getLemmas()));
         }
 
-        while (stTarget.hasMoreTokens()) {
-            lemma = stTarget.nextToken();
-            if (!meaninglessWords.contains(lemma)) {
-                List<String> lemmas = source.getLemmas();
-                for (String lemmaToCompare : lemmas) {
-                    if (lemma.equals(lemmaToCompare)) {
-                        counter++;
-                    }
+        for (int i = 0; i < sourceSenses.size(); i++) {
+            for (int j = 0; j < targetSenses.size(); j++) {
+                final char relation = matchTokens(sourceTokens.get(i), sourceLemmas.get(i),
+                        targetTokens.get(j), targetLemmas.get(j));
+                if (IMappingElement.IDK != relation) {
+                    return relation;
                 }
             }
         }
+        return IMappingElement.IDK;
+    }
+
+    /**
+     * Computes the relation between two senses given by the meaningful tokens of their glosses and the counts
+     * of their lemmas.
+     */
+    private char matchTokens(List<String> sourceTokens, Map<String, Integer> sourceLemmas,
+                             List<String> targetTokens, Map<String, Integer> targetLemmas) {
+        int counter = countOccurrences(sourceTokens, targetLemmas);
+        if (counter >= threshold) {
+            return IMappingElement.LESS_GENERAL;
+        }
+        counter += countOccurrences(targetTokens, sourceLemmas);
         if (counter >= threshold) {
             return IMappingElement.MORE_GENERAL;
         }
         return IMappingElement.IDK;
     }
+
+    /**
+     * Returns the tokens of the gloss, except meaningless words.
+     *
+     * @param gloss gloss
+     * @return the tokens of the gloss
+     */
+    protected List<String> getMeaningfulTokens(String gloss) {
+        List<String> result = new ArrayList<>();
+        for (StringTokenizer st = new StringTokenizer(gloss, " ,.\"'();"); st.hasMoreTokens(); ) {
+            String token = st.nextToken();
+            if (!meaninglessWords.contains(token)) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Counts the occurrences of each word.
+     *
+     * @param words words
+     * @return word -> amount of occurrences
+     */
+    protected static Map<String, Integer> count(List<String> words) {
+        Map<String, Integer> result = new HashMap<>();
+        for (String word : words) {
+            Integer count = result.get(word);
+            result.put(word, null == count ? 1 : count + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the amount of pairs of equal words.
+     *
+     * @param words  words
+     * @param counts word -> amount of occurrences
+     * @return the amount of pairs of equal words
+     */
+    protected static int countOccurrences(List<String> words, Map<String, Integer> counts) {
+        int result = 0;
+        for (String word : words) {
+            Integer count = counts.get(word);
+            if (null != count) {
+                result += count;
+            }
+        }
+        return result;
+    }
 }
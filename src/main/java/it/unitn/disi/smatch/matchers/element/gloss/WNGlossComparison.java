@@ -4,7 +4,9 @@ import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
 
-import java.util.StringTokenizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Implements WNGlossComparison matcher. See Element Level Semantic matchers paper for more details.
@@ -40,25 +42,47 @@ public class WNGlossComparison extends WNGloss implements ISenseGlossBasedElemen
      * @return synonym or IDK relation
      */
     public char match(ISense source, ISense target) {
-        String sSynset = source.getGloss();
-        String tSynset = target.getGloss();
-        StringTokenizer stSource = new StringTokenizer(sSynset, " ,.\"'();");
-        String lemmaS, lemmaT;
-        int counter = 0;
-        while (stSource.hasMoreTokens()) {
-            StringTokenizer stTarget = new StringTokenizer(tSynset, " ,.\"'();");
-            lemmaS = stSource.nextToken();
-            if (!meaninglessWords.contains(lemmaS))
-                while (stTarget.hasMoreTokens()) {
-                    lemmaT = stTarget.nextToken();
-                    if (!meaninglessWords.contains(lemmaT))
-                        if (lemmaS.equals(lemmaT))
-                            counter++;
+        return matchTokens(getMeaningfulTokens(source.getGloss()), count(getMeaningfulTokens(target.getGloss())));
+    }
+
+    /**
+     * Computes the relations with WordNet gloss comparison matcher for all pairs of senses at once. Each gloss
+     * is tokenized once, instead of once per pair.
+     *
+     * @param sourceSenses source senses
+     * @param targetSenses target senses
+     * @return synonym or IDK relation
+     */
+    @Override
+    public char match(List<ISense> sourceSenses, List<ISense> targetSenses) {
+        List<List<String>> sourceTokens = new ArrayList<>(sourceSenses.size());
+        for (ISense source : sourceSenses) {
+            sourceTokens.add(getMeaningfulTokens(source.getGloss()));
+        }
+        List<Map<String, Integer>> targetTokens = new ArrayList<>(targetSenses.size());
+        for (ISense target : targetSenses) {
+            targetTokens.add(count(getMeaningfulTokens(target.getGloss())));
+        }
+
+        for (List<String> source : sourceTokens) {
+            for (Map<String, Integer> target : targetTokens) {
+                final char relation = matchTokens(source, target);
+                if (IMappingElement.IDK != relation) {
+                    return relation;
                 }
+            }
         }
-        if (counter >= threshold)
+        return IMappingElement.IDK;
+    }
+
+    /**
+     * Computes the relation between two glosses given by the meaningful tokens of the source gloss and the counts
+     * of the meaningful tokens of the target gloss.
+     */
+    private char matchTokens(List<String> sourceTokens, Map<String, Integer> targetTokens) {
+        if (countOccurrences(sourceTokens, targetTokens) >= threshold) {
             return IMappingElement.EQUIVALENCE;
-        else
-            return IMappingElement.IDK;
+        }
+        return IMappingElement.IDK;
     }
-}
\ No newline at end of file
+}
@@ -3,9 +3,11 @@ package it.unitn.disi.smatch.matchers.element.gloss;
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.matchers.element.ElementMatcherException;
-import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IBatchedSenseGlossMatcher;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Implements WNLemma matcher.
@@ -15,7 +17,7 @@ import java.util.List;
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
 
-public class WNLemma implements ISenseGlossBasedElementLevelSemanticMatcher {
+public class WNLemma implements IBatchedSenseGlossMatcher {
 
     /**
      * Computes the relation with WordNet lemma matcher.
@@ -36,4 +38,27 @@ public class WNLemma implements ISenseGlossBasedElementLevelSemanticMatcher {
         }
         return IMappingElement.IDK;
     }
+
+    /**
+     * Computes the relation with WordNet lemma matcher for all pairs of senses at once. Some pair of senses
+     * shares a lemma if and only if the lemmas of all source senses and of all target senses intersect.
+     *
+     * @param sourceSenses source senses
+     * @param targetSenses target senses
+     * @return synonym or IDk relation
+     */
+    public char match(List<ISense> sourceSenses, List<ISense> targetSenses) throws ElementMatcherException {
+        Set<String> targetLemmas = new HashSet<>();
+        for (ISense target : targetSenses) {
+            targetLemmas.addAll(target.getLemmas());
+        }
+        for (ISense source : sourceSenses) {
+            for (String sourceLemma : source.getLemmas()) {
+                if (targetLemmas.contains(sourceLemma)) {
+                    return IMappingElement.EQUIVALENCE;
+                }
+            }
+        }
+        return IMappingElement.IDK;
+    }
 }
@@ -3,7 +3,7 @@ package it.unitn.disi.smatch.matchers.element.gloss;
 import it.unitn.disi.smatch.data.ling.ISense;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.matchers.element.ElementMatcherException;
-import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IPrecheckedSenseGlossMatcher;
 import it.unitn.disi.smatch.oracles.ILinguisticOracle;
 import it.unitn.disi.smatch.oracles.ISenseMatcher;
 
@@ -19,7 +19,7 @@ import java.util.StringTokenizer;
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class WNSemanticGlossComparison extends BaseGlossMatcher implements ISenseGlossBasedElementLevelSemanticMatcher {
+public class WNSemanticGlossComparison extends BaseGlossMatcher implements IPrecheckedSenseGlossMatcher {
 
     // the words which are cut off from the area of discourse
     public final static String DEFAULT_MEANINGLESS_WORDS = "of on to their than from for by in at is are have has the a as with your etc our into its his her which him among those against ";
@@ -73,6 +73,28 @@ public class WNSemanticGlossComparison extends BaseGlossMatcher implements ISens
         return getRelationFromInts(lessGeneral, moreGeneral, Equals, Opposite);
     }
 
+    /**
+     * Checks whether both glosses have a meaningful word. Otherwise no pair of words is compared and
+     * the relation is IDK, without asking the linguistic oracle and the sense matcher.
+     *
+     * @param source source sense
+     * @param target target sense
+     * @return false if the senses can not be related
+     */
+    public boolean mayMatch(ISense source, ISense target) {
+        return hasMeaningfulWord(source.getGloss()) && hasMeaningfulWord(target.getGloss());
+    }
+
+    private boolean hasMeaningfulWord(String gloss) {
+        StringTokenizer st = new StringTokenizer(gloss, " ,.\"'()");
+        while (st.hasMoreTokens()) {
+            if (!meaninglessWords.contains(st.nextToken())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Decides which relation to return.
      *
@@ -0,0 +1,95 @@
+package it.unitn.disi.smatch.matchers.element.string;
+
+import java.util.Collection;
+
+/**
+ * Blocking keys shared by the string matchers.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+final class BlockingKeys {
+
+    // prefix and suffix matchers consider only strings of this length or longer
+    private static final int MIN_AFFIX_LENGTH = 4;
+
+    private static final char PAD_START = '\u0000';
+    private static final char PAD_END = '\uFFFF';
+
+    private BlockingKeys() {
+    }
+
+    /**
+     * Adds the keys of the string for matchers relating the strings one of which starts with the other. A source
+     * shares the "=" key with the targets it starts with and the "<" key with the targets which start with it.
+     *
+     * @param str    string
+     * @param source whether the string is a source
+     * @param keys   keys to add to
+     */
+    static void addPrefixKeys(String str, boolean source, Collection<String> keys) {
+        if (null == str || str.length() < MIN_AFFIX_LENGTH) {
+            return;
+        }
+        keys.add((source ? "<" : "=") + str);
+        final String tag = source ? "=" : "<";
+        for (int i = MIN_AFFIX_LENGTH; i <= str.length(); i++) {
+            keys.add(tag + str.substring(0, i));
+        }
+    }
+
+    /**
+     * Adds the keys of the string for matchers relating the strings one of which ends with the other.
+     *
+     * @param str    string
+     * @param source whether the string is a source
+     * @param keys   keys to add to
+     * @see #addPrefixKeys(String, boolean, java.util.Collection)
+     */
+    static void addSuffixKeys(String str, boolean source, Collection<String> keys) {
+        if (null == str || str.length() < MIN_AFFIX_LENGTH) {
+            return;
+        }
+        keys.add((source ? "<" : "=") + str);
+        final String tag = source ? "=" : "<";
+        for (int i = str.length() - MIN_AFFIX_LENGTH; i >= 0; i--) {
+            keys.add(tag + str.substring(i));
+        }
+    }
+
+    /**
+     * Adds the grams of the string padded on both sides with gramLength - 1 characters. Strings within edit
+     * distance k share at least max(length) + gramLength - 1 - k * gramLength of such grams.
+     *
+     * @param str        string
+     * @param gramLength gram length
+     * @param keys       keys to add to
+     */
+    static void addPaddedGrams(String str, int gramLength, Collection<String> keys) {
+        if (null == str || str.isEmpty()) {
+            return;
+        }
+        final StringBuilder padded = new StringBuilder(str.length() + 2 * (gramLength - 1));
+        for (int i = 1; i < gramLength; i++) {
+            padded.append(PAD_START);
+        }
+        padded.append(str);
+        for (int i = 1; i < gramLength; i++) {
+            padded.append(PAD_END);
+        }
+        for (int i = 0; i + gramLength <= padded.length(); i++) {
+            keys.add(padded.substring(i, i + gramLength));
+        }
+    }
+
+    /**
+     * Returns whether the strings similar by edit distance up to the threshold share a padded 3-gram.
+     * See {@link #addPaddedGrams(String, int, java.util.Collection)}: with k at most (1 - threshold) * max(length),
+     * the strings share at least max(length) * (3 * threshold - 2) + 2 grams.
+     *
+     * @param threshold edit distance similarity threshold
+     * @return whether padded 3-grams are exact blocking keys
+     */
+    static boolean isEditDistanceExact(double threshold) {
+        return 3 * threshold > 2;
+    }
+}
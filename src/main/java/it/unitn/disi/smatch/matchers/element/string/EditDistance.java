@@ -1,7 +1,9 @@
 package it.unitn.disi.smatch.matchers.element.string;
 
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
-import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IBlockableStringMatcher;
+
+import java.util.Collection;
 
 /**
  * Implements Edit Distance matcher. See Element Level Semantic matchers paper for more details.
@@ -13,7 +15,7 @@ import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMat
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class EditDistance implements IStringBasedElementLevelSemanticMatcher {
+public class EditDistance implements IBlockableStringMatcher {
 
     private final static int MATCH = 0;
     private final static int MISMATCH = 1;
@@ -88,4 +90,21 @@ public class EditDistance implements IStringBasedElementLevelSemanticMatcher {
         if (!a.equals(b)) return MISMATCH;
         return MATCH;
     }
-}
\ No newline at end of file
+
+    /**
+     * The keys are the padded 3-grams. Strings similar enough share one for thresholds above 2/3.
+     *
+     * @return whether the threshold is above 2/3
+     */
+    public boolean isExactBlocking() {
+        return BlockingKeys.isEditDistanceExact(threshold);
+    }
+
+    public void addSourceKeys(String source, Collection<String> keys) {
+        BlockingKeys.addPaddedGrams(source, 3, keys);
+    }
+
+    public void addTargetKeys(String target, Collection<String> keys) {
+        BlockingKeys.addPaddedGrams(target, 3, keys);
+    }
+}
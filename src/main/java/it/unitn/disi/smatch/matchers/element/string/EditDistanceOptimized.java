@@ -1,11 +1,22 @@
 package it.unitn.disi.smatch.matchers.element.string;
 
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
-import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IBlockableStringMatcher;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Optimized edit distance. Levenshtein Distance Algorithm: Java Implementation by Chas Emerick.
- * <a href="http://www.merriampark.com/ldjava.htm">http://www.merriampark.com/ldjava.htm</a>
+ * Optimized edit distance. Computes Levenshtein distance with the bit-parallel algorithm of Myers, in the form given
+ * by Hyyro for the edit distance of whole strings: G. Myers, "A fast bit-vector algorithm for approximate string
+ * matching based on dynamic programming", Journal of the ACM, 1999; H. Hyyro, "A bit-vector algorithm for computing
+ * Levenshtein and Damerau edit distances", Nordic Journal of Computing, 2003.
+ * <p/>
+ * A column of the distance matrix is kept in the bits of a long for strings up to 64 characters, and in blocks of
+ * longs for longer strings. The threshold bounds the distance, so the pairs which differ in length more than
+ * the bound are not compared, and the comparison stops once the bound can not be met anymore.
  * <p/>
  * Accepts the following parameters:
  * <p/>
@@ -13,7 +24,9 @@ import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMat
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class EditDistanceOptimized implements IStringBasedElementLevelSemanticMatcher {
+public class EditDistanceOptimized implements IBlockableStringMatcher {
+
+    private static final int ASCII = 128;
 
     private final double threshold;
 
@@ -36,75 +49,221 @@ public class EditDistanceOptimized implements IStringBasedElementLevelSemanticMa
         if (null == str1 || null == str2 || 0 == str1.length() || 0 == str2.length()) {
             return IMappingElement.IDK;
         }
-        float sim = 1 - (float) getLevenshteinDistance(str1, str2) / java.lang.Math.max(str1.length(), str2.length());
-        if (threshold <= sim) {
+        final int maxLength = Math.max(str1.length(), str2.length());
+        final int limit = getDistanceLimit(maxLength);
+        if (limit < 0 || limit < Math.abs(str1.length() - str2.length())) {
+            return IMappingElement.IDK;
+        }
+        if (getLevenshteinDistance(str1, str2, limit) <= limit) {
             return IMappingElement.EQUIVALENCE;
         } else {
             return IMappingElement.IDK;
         }
     }
 
-    public static int getLevenshteinDistance(String s, String t) {
-        /*
-          The difference between this impl. and the previous is that, rather
-           than creating and retaining a matrix of size s.length()+1 by t.length()+1,
-           we maintain two single-dimensional arrays of length s.length()+1.  The first, d,
-           is the 'current working' distance array that maintains the newest distance cost
-           counts as we iterate through the characters of String s.  Each time we increment
-           the index of String t we are comparing, d is copied to p, the second int[].  Doing so
-           allows us to retain the previous cost counts as required by the algorithm (taking
-           the minimum of the cost count to the left, up one, and diagonally up and to the left
-           of the current cost count being calculated).  (Note that the arrays aren't really
-           copied anymore, just switched...this is clearly much better than cloning an array
-           or doing a System.arraycopy() each time  through the outer loop.)
-
-           Effectively, the difference between the two implementations is this one does not
-           cause an out of memory condition when calculating the LD over two very large strings.
-        */
-
-        int n = s.length(); // length of input string 1
-        int m = t.length(); // length of input string 2
-
-        if (n == 0) {
-            return m;
-        } else if (m == 0) {
-            return n;
+    /**
+     * Returns the largest distance for which the similarity of strings reaches the threshold, or -1 if none does.
+     * The similarity is computed in floats, as it always was, so the limit is checked against the same expression.
+     *
+     * @param maxLength length of the longer string
+     * @return the largest distance accepted, or -1
+     */
+    private int getDistanceLimit(int maxLength) {
+        int result = (int) Math.max(-1, Math.min(maxLength, Math.floor((1 - threshold) * maxLength)));
+        while (result < maxLength && isSimilar(result + 1, maxLength)) {
+            result++;
         }
+        while (0 <= result && !isSimilar(result, maxLength)) {
+            result--;
+        }
+        return result;
+    }
 
-        int p[] = new int[n + 1]; //'previous' cost array, horizontally
-        int d[] = new int[n + 1]; // cost array, horizontally
-        int _d[]; //placeholder to assist in swapping p and d
+    private boolean isSimilar(int distance, int maxLength) {
+        float sim = 1 - (float) distance / maxLength;
+        return threshold <= sim;
+    }
 
-        // indexes into strings s and t
-        int i; // iterates through s
-        int j; // iterates through t
+    /**
+     * Computes Levenshtein distance between strings.
+     *
+     * @param s a string
+     * @param t another string
+     * @return Levenshtein distance
+     */
+    public static int getLevenshteinDistance(String s, String t) {
+        return getLevenshteinDistance(s, t, Math.max(s.length(), t.length()));
+    }
 
-        char t_j; // jth character of t
+    /**
+     * Computes Levenshtein distance between strings, if it does not exceed the limit.
+     *
+     * @param s     a string
+     * @param t     another string
+     * @param limit maximum distance of interest
+     * @return Levenshtein distance, if it does not exceed the limit, a number above the limit otherwise
+     */
+    public static int getLevenshteinDistance(String s, String t, int limit) {
+        // the shorter string is kept in bits
+        final String pattern = s.length() <= t.length() ? s : t;
+        final String text = s.length() <= t.length() ? t : s;
+        final int m = pattern.length();
+        final int n = text.length();
+        if (n - m > limit) {
+            return limit + 1;
+        }
+        if (0 == m) {
+            return n;
+        }
+        if (m <= Long.SIZE) {
+            return getDistance(pattern, text, limit);
+        }
+        return getBlockedDistance(pattern, text, limit);
+    }
 
-        int cost; // cost
+    /**
+     * Computes the distance for patterns of up to 64 characters, a column in one long.
+     */
+    private static int getDistance(String pattern, String text, int limit) {
+        final int m = pattern.length();
+        final int n = text.length();
+        final long[] asciiEq = new long[ASCII];
+        Map<Character, long[]> otherEq = null;
+        for (int i = 0; i < m; i++) {
+            final char c = pattern.charAt(i);
+            if (c < ASCII) {
+                asciiEq[c] |= 1L << i;
+            } else {
+                otherEq = addEq(otherEq, c, 1, 0, 1L << i);
+            }
+        }
 
-        for (i = 0; i <= n; i++) {
-            p[i] = i;
+        final long last = 1L << (m - 1);
+        // vertical positive and negative deltas of the current column
+        long pv = -1L;
+        long mv = 0;
+        int score = m;
+        for (int j = 0; j < n; j++) {
+            final char c = text.charAt(j);
+            final long eq = c < ASCII ? asciiEq[c] : getEq(otherEq, c, 0);
+            final long xv = eq | mv;
+            final long xh = (((eq & pv) + pv) ^ pv) | eq;
+            long ph = mv | ~(xh | pv);
+            long mh = pv & xh;
+            if (0 != (ph & last)) {
+                score++;
+            } else if (0 != (mh & last)) {
+                score--;
+            }
+            // the distance falls by one per column at most
+            if (score - (n - j - 1) > limit) {
+                return limit + 1;
+            }
+            // the first row grows by one per column
+            ph = (ph << 1) | 1;
+            mh = mh << 1;
+            pv = mh | ~(xv | ph);
+            mv = ph & xv;
         }
+        return score;
+    }
 
-        for (j = 1; j <= m; j++) {
-            t_j = t.charAt(j - 1);
-            d[0] = j;
+    /**
+     * Computes the distance for longer patterns, a column in blocks of longs, passing the horizontal deltas
+     * between blocks as carries.
+     */
+    private static int getBlockedDistance(String pattern, String text, int limit) {
+        final int m = pattern.length();
+        final int n = text.length();
+        final int blocks = (m + Long.SIZE - 1) / Long.SIZE;
+        final long[] asciiEq = new long[ASCII * blocks];
+        Map<Character, long[]> otherEq = null;
+        for (int i = 0; i < m; i++) {
+            final char c = pattern.charAt(i);
+            final int block = i / Long.SIZE;
+            final long bit = 1L << (i % Long.SIZE);
+            if (c < ASCII) {
+                asciiEq[c * blocks + block] |= bit;
+            } else {
+                otherEq = addEq(otherEq, c, blocks, block, bit);
+            }
+        }
 
-            for (i = 1; i <= n; i++) {
-                cost = s.charAt(i - 1) == t_j ? 0 : 1;
-                // minimum of cell to the left+1, to the top+1, diagonally left and up +cost
-                d[i] = Math.min(Math.min(d[i - 1] + 1, p[i] + 1), p[i - 1] + cost);
+        final long last = 1L << ((m - 1) % Long.SIZE);
+        final long[] pv = new long[blocks];
+        final long[] mv = new long[blocks];
+        Arrays.fill(pv, -1L);
+        int score = m;
+        for (int j = 0; j < n; j++) {
+            final char c = text.charAt(j);
+            // the first row grows by one per column
+            int carry = 1;
+            for (int b = 0; b < blocks; b++) {
+                long eq = c < ASCII ? asciiEq[c * blocks + b] : getEq(otherEq, c, b);
+                final long xv = eq | mv[b];
+                if (carry < 0) {
+                    eq |= 1;
+                }
+                final long xh = (((eq & pv[b]) + pv[b]) ^ pv[b]) | eq;
+                long ph = mv[b] | ~(xh | pv[b]);
+                long mh = pv[b] & xh;
+                final long high = b == blocks - 1 ? last : Long.MIN_VALUE;
+                final int out = 0 != (ph & high) ? 1 : (0 != (mh & high) ? -1 : 0);
+                ph <<= 1;
+                mh <<= 1;
+                if (carry < 0) {
+                    mh |= 1;
+                } else if (carry > 0) {
+                    ph |= 1;
+                }
+                pv[b] = mh | ~(xv | ph);
+                mv[b] = ph & xv;
+                carry = out;
+            }
+            score += carry;
+            // the distance falls by one per column at most
+            if (score - (n - j - 1) > limit) {
+                return limit + 1;
             }
+        }
+        return score;
+    }
 
-            // copy current distance counts to 'previous row' distance counts
-            _d = p;
-            p = d;
-            d = _d;
+    private static Map<Character, long[]> addEq(Map<Character, long[]> eqs, char c, int blocks, int block, long bit) {
+        if (null == eqs) {
+            eqs = new HashMap<>();
+        }
+        long[] eq = eqs.get(c);
+        if (null == eq) {
+            eq = new long[blocks];
+            eqs.put(c, eq);
         }
+        eq[block] |= bit;
+        return eqs;
+    }
+
+    private static long getEq(Map<Character, long[]> eqs, char c, int block) {
+        if (null == eqs) {
+            return 0;
+        }
+        final long[] eq = eqs.get(c);
+        return null == eq ? 0 : eq[block];
+    }
+
+    /**
+     * The keys are the padded 3-grams. Strings similar enough share one for thresholds above 2/3.
+     *
+     * @return whether the threshold is above 2/3
+     */
+    public boolean isExactBlocking() {
+        return BlockingKeys.isEditDistanceExact(threshold);
+    }
+
+    public void addSourceKeys(String source, Collection<String> keys) {
+        BlockingKeys.addPaddedGrams(source, 3, keys);
+    }
 
-        // our last action in the above loop was to switch d and p, so p now
-        // actually has the most recent cost counts
-        return p[n];
+    public void addTargetKeys(String target, Collection<String> keys) {
+        BlockingKeys.addPaddedGrams(target, 3, keys);
     }
-}
\ No newline at end of file
+}
@@ -1,8 +1,9 @@
 package it.unitn.disi.smatch.matchers.element.string;
 
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
-import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IBlockableStringMatcher;
 
+import java.util.Collection;
 import java.util.HashMap;
 
 /**
@@ -12,7 +13,7 @@ import java.util.HashMap;
  *
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class GPrefix implements IStringBasedElementLevelSemanticMatcher {
+public class GPrefix implements IBlockableStringMatcher {
 
     //suffix -> relation
     //based on http://en.wiktionary.org/wiki/Appendix:Suffixes:English
@@ -647,4 +648,21 @@ public class GPrefix implements IStringBasedElementLevelSemanticMatcher {
         }
         return res;
     }
-}
\ No newline at end of file
+
+    /**
+     * Strings one of which starts with the other share a key.
+     *
+     * @return true
+     */
+    public boolean isExactBlocking() {
+        return true;
+    }
+
+    public void addSourceKeys(String source, Collection<String> keys) {
+        BlockingKeys.addPrefixKeys(source, true, keys);
+    }
+
+    public void addTargetKeys(String target, Collection<String> keys) {
+        BlockingKeys.addPrefixKeys(target, false, keys);
+    }
+}
@@ -1,8 +1,9 @@
 package it.unitn.disi.smatch.matchers.element.string;
 
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
-import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IBlockableStringMatcher;
 
+import java.util.Collection;
 import java.util.HashMap;
 
 /**
@@ -13,7 +14,7 @@ import java.util.HashMap;
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
 
-public class GSuffix implements IStringBasedElementLevelSemanticMatcher {
+public class GSuffix implements IBlockableStringMatcher {
 
     //prefix -> relation
     //based on http://en.wiktionary.org/wiki/Appendix:Prefixes:English
@@ -649,4 +650,21 @@ un-
         }
         return res;
     }
-}
\ No newline at end of file
+
+    /**
+     * Strings one of which ends with the other share a key.
+     *
+     * @return true
+     */
+    public boolean isExactBlocking() {
+        return true;
+    }
+
+    public void addSourceKeys(String source, Collection<String> keys) {
+        BlockingKeys.addSuffixKeys(source, true, keys);
+    }
+
+    public void addTargetKeys(String target, Collection<String> keys) {
+        BlockingKeys.addSuffixKeys(target, false, keys);
+    }
+}
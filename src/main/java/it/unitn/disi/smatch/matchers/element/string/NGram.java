@@ -1,9 +1,11 @@
 package it.unitn.disi.smatch.matchers.element.string;
 
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
-import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IBlockableStringMatcher;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Implements NGram matcher. See Element Level Semantic matchers paper for more details.
@@ -17,7 +19,7 @@ import java.util.ArrayList;
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class NGram implements IStringBasedElementLevelSemanticMatcher {
+public class NGram implements IBlockableStringMatcher {
 
     protected final int gramlength;
 
@@ -97,4 +99,28 @@ public class NGram implements IStringBasedElementLevelSemanticMatcher {
         }
         return grams.toArray(new String[grams.size()]);
     }
+
+    /**
+     * The keys are the grams. Strings without common grams have zero similarity, therefore the blocking
+     * is exact for positive thresholds.
+     *
+     * @return whether the threshold is positive
+     */
+    public boolean isExactBlocking() {
+        return 0 < threshold;
+    }
+
+    public void addSourceKeys(String source, Collection<String> keys) {
+        addGrams(source, keys);
+    }
+
+    public void addTargetKeys(String target, Collection<String> keys) {
+        addGrams(target, keys);
+    }
+
+    private void addGrams(String str, Collection<String> keys) {
+        if (null != str && 0 < str.length()) {
+            Collections.addAll(keys, generateNGrams(str, gramlength));
+        }
+    }
 }
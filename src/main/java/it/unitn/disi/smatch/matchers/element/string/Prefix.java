@@ -1,7 +1,9 @@
 package it.unitn.disi.smatch.matchers.element.string;
 
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
-import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IBlockableStringMatcher;
+
+import java.util.Collection;
 
 /**
  * Implements Prefix matcher.
@@ -10,7 +12,7 @@ import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMat
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class Prefix implements IStringBasedElementLevelSemanticMatcher {
+public class Prefix implements IBlockableStringMatcher {
 
     /**
      * Computes the relation with prefix matcher.
@@ -45,4 +47,21 @@ public class Prefix implements IStringBasedElementLevelSemanticMatcher {
         }
         return rel;
     }
-}
\ No newline at end of file
+
+    /**
+     * Strings one of which starts with the other share a key.
+     *
+     * @return true
+     */
+    public boolean isExactBlocking() {
+        return true;
+    }
+
+    public void addSourceKeys(String source, Collection<String> keys) {
+        BlockingKeys.addPrefixKeys(source, true, keys);
+    }
+
+    public void addTargetKeys(String target, Collection<String> keys) {
+        BlockingKeys.addPrefixKeys(target, false, keys);
+    }
+}
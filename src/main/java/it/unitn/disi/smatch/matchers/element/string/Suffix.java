@@ -1,7 +1,9 @@
 package it.unitn.disi.smatch.matchers.element.string;
 
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
-import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IBlockableStringMatcher;
+
+import java.util.Collection;
 
 /**
  * Implements Suffix matcher.
@@ -10,7 +12,7 @@ import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMat
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class Suffix implements IStringBasedElementLevelSemanticMatcher {
+public class Suffix implements IBlockableStringMatcher {
 
     /**
      * Computes the relation with suffix matcher.
@@ -48,4 +50,21 @@ public class Suffix implements IStringBasedElementLevelSemanticMatcher {
 
         return rel;
     }
-}
\ No newline at end of file
+
+    /**
+     * Strings one of which ends with the other share a key.
+     *
+     * @return true
+     */
+    public boolean isExactBlocking() {
+        return true;
+    }
+
+    public void addSourceKeys(String source, Collection<String> keys) {
+        BlockingKeys.addSuffixKeys(source, true, keys);
+    }
+
+    public void addTargetKeys(String target, Collection<String> keys) {
+        BlockingKeys.addSuffixKeys(target, false, keys);
+    }
+}
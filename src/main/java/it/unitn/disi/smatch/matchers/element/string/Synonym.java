@@ -1,7 +1,9 @@
 package it.unitn.disi.smatch.matchers.element.string;
 
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
-import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.IBlockableStringMatcher;
+
+import java.util.Collection;
 
 /**
  * Implements Synonym matcher.
@@ -10,7 +12,7 @@ import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMat
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class Synonym implements IStringBasedElementLevelSemanticMatcher {
+public class Synonym implements IBlockableStringMatcher {
 
     /**
      * Computes relation with synonym matcher
@@ -27,4 +29,25 @@ public class Synonym implements IStringBasedElementLevelSemanticMatcher {
         } else
             return IMappingElement.IDK;
     }
-}
\ No newline at end of file
+
+    /**
+     * Equal strings share the key, the string itself.
+     *
+     * @return true
+     */
+    public boolean isExactBlocking() {
+        return true;
+    }
+
+    public void addSourceKeys(String source, Collection<String> keys) {
+        if (null != source) {
+            keys.add(source);
+        }
+    }
+
+    public void addTargetKeys(String target, Collection<String> keys) {
+        if (null != target) {
+            keys.add(target);
+        }
+    }
+}
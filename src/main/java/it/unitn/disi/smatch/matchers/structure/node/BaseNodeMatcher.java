@@ -3,7 +3,13 @@ package it.unitn.disi.smatch.matchers.structure.node;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.trees.FrozenContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.deciders.BaseSATSolver;
+import it.unitn.disi.smatch.deciders.CNFBuilder;
+import it.unitn.disi.smatch.deciders.ICNF;
+import it.unitn.disi.smatch.deciders.ICNFSATSolver;
+import it.unitn.disi.smatch.deciders.ISATSession;
 import it.unitn.disi.smatch.deciders.ISATSolver;
 import it.unitn.disi.smatch.deciders.SATSolverException;
 
@@ -17,98 +23,197 @@ import java.util.*;
 public abstract class BaseNodeMatcher {
 
     protected final ISATSolver satSolver;
+    // the same solver, taking ICNF problems
+    private final ICNFSATSolver cnfSolver;
+
+    // buffers are reused by each thread from one node matching task to the next
+    private final ThreadLocal<NodeMatchingBuffers> buffers = new ThreadLocal<NodeMatchingBuffers>() {
+        @Override
+        protected NodeMatchingBuffers initialValue() {
+            return new NodeMatchingBuffers(cnfSolver.newSession());
+        }
+    };
+
+    /**
+     * Holds the variables and the clauses of a single node matching task.
+     */
+    protected static final class NodeMatchingBuffers {
+        // ACoLs -> its DIMACS variable number
+        public final Map<IAtomicConceptOfLabel, Integer> acolVariables = new HashMap<>();
+        public final CNFBuilder axioms = new CNFBuilder();
+        public final CNFBuilder contextA = new CNFBuilder();
+        public final CNFBuilder contextB = new CNFBuilder();
+        public final CNFBuilder problem = new CNFBuilder();
+        public final CNFBuilder negationA = new CNFBuilder();
+        public final CNFBuilder negationB = new CNFBuilder();
+        // for the checks sharing the axioms
+        public final ISATSession session;
+        // compiled formulas of the nodes seen by the thread, kept while the nodes are alive
+        private final Map<INode, CompiledFormula> formulas = new WeakHashMap<>();
+        // concept index in a compiled formula -> variable number
+        private int[] variables = new int[16];
+
+        private NodeMatchingBuffers(ISATSession session) {
+            this.session = session;
+        }
+
+        private void clear() {
+            acolVariables.clear();
+            axioms.clear();
+            contextA.clear();
+            contextB.clear();
+            problem.clear();
+            negationA.clear();
+            negationB.clear();
+            session.clear();
+        }
+    }
 
     protected BaseNodeMatcher(ISATSolver satSolver) {
         this.satSolver = satSolver;
+        this.cnfSolver = BaseSATSolver.adapt(satSolver);
+    }
+
+    /**
+     * Returns cleared buffers of the current thread for a node matching task.
+     *
+     * @return cleared buffers
+     */
+    protected NodeMatchingBuffers getBuffers() {
+        NodeMatchingBuffers result = buffers.get();
+        result.clear();
+        return result;
     }
 
     /**
      * Makes axioms for a CNF formula out of relations between atomic concepts.
      *
-     * @param hashConceptNumber HashMap for atomic concept of labels with its id
-     * @param sourceACoLs       acol id -> acol object
-     * @param targetACoLs       acol id -> acol object
-     * @param acolMapping       mapping between atomic concepts
-     * @param sourceNode        source node
-     * @param targetNode        target node
-     * @return axiom string and axiom count
+     * @param acolVariables acol -> variable number
+     * @param acolMapping   mapping between atomic concepts
+     * @param sourceNode    source node
+     * @param targetNode    target node
+     * @param axioms        where to add axioms
      */
-    protected static Object[] mkAxioms(Map<IAtomicConceptOfLabel, String> hashConceptNumber,
-                                       Map<String, IAtomicConceptOfLabel> sourceACoLs,
-                                       Map<String, IAtomicConceptOfLabel> targetACoLs,
-                                       IContextMapping<IAtomicConceptOfLabel> acolMapping,
-                                       INode sourceNode, INode targetNode) {
-        StringBuilder axioms = new StringBuilder();
-        Integer numberOfClauses = 0;
+    protected static void mkAxioms(Map<IAtomicConceptOfLabel, Integer> acolVariables,
+                                   IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                                   INode sourceNode, INode targetNode,
+                                   CNFBuilder axioms) {
         // create DIMACS variables for all concepts in the matching task
-        createVariables(hashConceptNumber, sourceACoLs, sourceNode);
-        createVariables(hashConceptNumber, targetACoLs, targetNode);
+        createVariables(acolVariables, sourceNode);
+        createVariables(acolVariables, targetNode);
+        axioms.setVariableCount(acolVariables.size());
 
         for (Iterator<IAtomicConceptOfLabel> i = sourceNode.nodeData().pathToRootConceptIterator(); i.hasNext(); ) {
             IAtomicConceptOfLabel sourceACoL = i.next();
             for (Iterator<IAtomicConceptOfLabel> j = targetNode.nodeData().pathToRootConceptIterator(); j.hasNext(); ) {
                 IAtomicConceptOfLabel targetACoL = j.next();
-                char relation = acolMapping.getRelation(sourceACoL, targetACoL);
-                if (IMappingElement.IDK != relation) {
-                    //get the numbers of DIMACS variables corresponding to ACoLs
-                    String sourceVarNumber = hashConceptNumber.get(sourceACoL);
-                    String targetVarNumber = hashConceptNumber.get(targetACoL);
-                    if (IMappingElement.LESS_GENERAL == relation) {
-                        String tmp = "-" + sourceVarNumber + " " + targetVarNumber + " 0\n";
-                        //if not already present add to axioms
-                        if (-1 == axioms.indexOf(tmp)) {
-                            axioms.append(tmp);
-                            numberOfClauses++;
-                        }
-                    } else if (IMappingElement.MORE_GENERAL == relation) {
-                        String tmp = sourceVarNumber + " -" + targetVarNumber + " 0\n";
-                        if (-1 == axioms.indexOf(tmp)) {
-                            axioms.append(tmp);
-                            numberOfClauses++;
-                        }
-                    } else if (IMappingElement.EQUIVALENCE == relation) {
-                        if (!sourceVarNumber.equals(targetVarNumber)) {
-                            //add clauses for less and more generality
-                            String tmp = "-" + sourceVarNumber + " " + targetVarNumber + " 0\n";
-                            if (-1 == axioms.indexOf(tmp)) {
-                                axioms.append(tmp);
-                                numberOfClauses++;
-                            }
-                            tmp = sourceVarNumber + " -" + targetVarNumber + " 0\n";
-                            if (-1 == axioms.indexOf(tmp)) {
-                                axioms.append(tmp);
-                                numberOfClauses++;
-                            }
-                        }
-                    } else if (IMappingElement.DISJOINT == relation) {
-                        String tmp = "-" + sourceVarNumber + " -" + targetVarNumber + " 0\n";
-                        if (-1 == axioms.indexOf(tmp)) {
-                            axioms.append(tmp);
-                            numberOfClauses++;
-                        }
+                addAxiom(acolVariables, acolMapping, sourceACoL, targetACoL, axioms);
+            }
+        }
+    }
+
+    /**
+     * Makes axioms for a CNF formula out of relations between atomic concepts, for nodes of context snapshots.
+     *
+     * @param acolVariables acol -> variable number
+     * @param acolMapping   mapping between atomic concepts
+     * @param sourceContext source context snapshot
+     * @param sourceNode    source node number
+     * @param targetContext target context snapshot
+     * @param targetNode    target node number
+     * @param axioms        where to add axioms
+     */
+    protected static void mkAxioms(Map<IAtomicConceptOfLabel, Integer> acolVariables,
+                                   IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                                   FrozenContext sourceContext, int sourceNode,
+                                   FrozenContext targetContext, int targetNode,
+                                   CNFBuilder axioms) {
+        createVariables(acolVariables, sourceContext, sourceNode);
+        createVariables(acolVariables, targetContext, targetNode);
+        axioms.setVariableCount(acolVariables.size());
+
+        for (int s = sourceNode; -1 != s; s = sourceContext.getParent(s)) {
+            for (int i = sourceContext.getConceptStart(s); i < sourceContext.getConceptEnd(s); i++) {
+                IAtomicConceptOfLabel sourceACoL = sourceContext.getConcept(i);
+                for (int t = targetNode; -1 != t; t = targetContext.getParent(t)) {
+                    for (int j = targetContext.getConceptStart(t); j < targetContext.getConceptEnd(t); j++) {
+                        addAxiom(acolVariables, acolMapping, sourceACoL, targetContext.getConcept(j), axioms);
                     }
                 }
             }
         }
-        return new Object[]{axioms.toString(), numberOfClauses};
+    }
+
+    private static void addAxiom(Map<IAtomicConceptOfLabel, Integer> acolVariables,
+                                 IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                                 IAtomicConceptOfLabel sourceACoL, IAtomicConceptOfLabel targetACoL,
+                                 CNFBuilder axioms) {
+        char relation = acolMapping.getRelation(sourceACoL, targetACoL);
+        if (IMappingElement.IDK != relation) {
+            //get the numbers of DIMACS variables corresponding to ACoLs
+            int sourceVarNumber = acolVariables.get(sourceACoL);
+            int targetVarNumber = acolVariables.get(targetACoL);
+            //if not already present add to axioms
+            if (IMappingElement.LESS_GENERAL == relation) {
+                axioms.addUniqueClause(-sourceVarNumber, targetVarNumber);
+            } else if (IMappingElement.MORE_GENERAL == relation) {
+                axioms.addUniqueClause(sourceVarNumber, -targetVarNumber);
+            } else if (IMappingElement.EQUIVALENCE == relation) {
+                if (sourceVarNumber != targetVarNumber) {
+                    //add clauses for less and more generality
+                    axioms.addUniqueClause(-sourceVarNumber, targetVarNumber);
+                    axioms.addUniqueClause(sourceVarNumber, -targetVarNumber);
+                }
+            } else if (IMappingElement.DISJOINT == relation) {
+                axioms.addUniqueClause(-sourceVarNumber, -targetVarNumber);
+            }
+        }
+    }
+
+    /**
+     * A node formula compiled into clauses over the concepts of the path to root of the node. Literals refer to
+     * the concepts by their index, starting from 1, negative literals denote negated concepts.
+     */
+    private static final class CompiledFormula {
+        // the formula compiled, to notice changes
+        private final String formula;
+        private final IAtomicConceptOfLabel[] concepts;
+        private final int[] literals;
+        // clauseEnds[i] is the index in literals after the last literal of the clause i
+        private final int[] clauseEnds;
+
+        private CompiledFormula(String formula, IAtomicConceptOfLabel[] concepts, int[] literals, int[] clauseEnds) {
+            this.formula = formula;
+            this.concepts = concepts;
+            this.literals = literals;
+            this.clauseEnds = clauseEnds;
+        }
     }
 
     /**
      * Creates DIMACS variables for all concepts in the node matching task.
      *
-     * @param hashConceptNumber acol -> variable number
-     * @param acolsMap          acol id -> acol
-     * @param node              node
+     * @param acolVariables acol -> variable number
+     * @param node          node
      */
-    private static void createVariables(Map<IAtomicConceptOfLabel, String> hashConceptNumber,
-                                        Map<String, IAtomicConceptOfLabel> acolsMap, INode node) {
-        cacheACoLs(acolsMap, node);
+    private static void createVariables(Map<IAtomicConceptOfLabel, Integer> acolVariables, INode node) {
         for (Iterator<IAtomicConceptOfLabel> i = node.nodeData().pathToRootConceptIterator(); i.hasNext(); ) {
             IAtomicConceptOfLabel acol = i.next();
             // create corresponding to id variable number
             // and put it as a value of hash table with key equal to ACoL
-            if (!hashConceptNumber.containsKey(acol)) {
-                hashConceptNumber.put(acol, Integer.toString(hashConceptNumber.size() + 1));
+            if (!acolVariables.containsKey(acol)) {
+                acolVariables.put(acol, acolVariables.size() + 1);
+            }
+        }
+    }
+
+    private static void createVariables(Map<IAtomicConceptOfLabel, Integer> acolVariables, FrozenContext context, int node) {
+        for (int n = node; -1 != n; n = context.getParent(n)) {
+            for (int i = context.getConceptStart(n); i < context.getConceptEnd(n); i++) {
+                IAtomicConceptOfLabel acol = context.getConcept(i);
+                if (!acolVariables.containsKey(acol)) {
+                    acolVariables.put(acol, acolVariables.size() + 1);
+                }
             }
         }
     }
@@ -152,19 +257,123 @@ public abstract class BaseNodeMatcher {
      * Parses a c@node formula replacing references to concepts with references to the DIMACS variables. Uses and depends
      * on CNF representation which is "conjunction of disjunctions",  that is the first level list represents
      * conjunction of second-level lists representing disjunction clauses.
+     * <p/>
+     * The formula of each node is parsed once per thread and compiled into clauses over the concepts of the path
+     * to root of the node, so that only the concepts have to be looked up for each node matching task. Compiled
+     * formulas are kept aside from the nodes and are dropped together with the nodes. A formula is compiled again
+     * when it or the concepts of the path to root change.
      *
-     * @param hashConceptNumber HashMap acol -> variable number
-     * @param acolsMap          map with acol id -> acol mapping
-     * @param node              node
-     * @return formula with DIMACS variables
+     * @param acolVariables acol -> variable number
+     * @param acolsMap      map with acol id -> acol mapping
+     * @param node          node
+     * @param result        where to add formula clauses with DIMACS variables
+     * @throws NodeMatcherException NodeMatcherException
      */
-    protected ArrayList<ArrayList<String>> parseFormula(Map<IAtomicConceptOfLabel, String> hashConceptNumber,
-                                                        Map<String, IAtomicConceptOfLabel> acolsMap, INode node) {
-        ArrayList<ArrayList<String>> representation = new ArrayList<>();
+    protected void parseFormula(Map<IAtomicConceptOfLabel, Integer> acolVariables,
+                                Map<String, IAtomicConceptOfLabel> acolsMap, INode node,
+                                CNFBuilder result) throws NodeMatcherException {
+        NodeMatchingBuffers threadBuffers = buffers.get();
+        CompiledFormula compiled = threadBuffers.formulas.get(node);
+        if (null == compiled || !isCurrent(compiled, node)) {
+            compiled = compileFormula(acolsMap, node);
+            threadBuffers.formulas.put(node, compiled);
+        }
+
+        final IAtomicConceptOfLabel[] concepts = compiled.concepts;
+        if (threadBuffers.variables.length < concepts.length + 1) {
+            threadBuffers.variables = new int[Math.max(concepts.length + 1, 2 * threadBuffers.variables.length)];
+        }
+        final int[] variables = threadBuffers.variables;
+        for (int i = 0; i < concepts.length; i++) {
+            Integer variable = acolVariables.get(concepts[i]);
+            // variables are missing only for concepts the formula does not use
+            variables[i + 1] = null == variable ? 0 : variable;
+        }
+
+        final int[] literals = compiled.literals;
+        int l = 0;
+        for (int clauseEnd : compiled.clauseEnds) {
+            for (; l < clauseEnd; l++) {
+                final int literal = literals[l];
+                final int variable = variables[literal < 0 ? -literal : literal];
+                if (0 == variable) {
+                    throw new NodeMatcherException("Unknown concept " + concepts[Math.abs(literal) - 1].getId()
+                            + " in the formula of the node " + node.nodeData().getId());
+                }
+                result.addLiteral(literal < 0 ? -variable : variable);
+            }
+            result.endClause();
+        }
+    }
+
+    /**
+     * Checks whether the compiled formula still fits the node. Preprocessing the context again replaces
+     * the concepts of the node with new ones, while the formula may stay the same.
+     *
+     * @param compiled compiled formula
+     * @param node     node
+     * @return true if the formula and the concepts of the path to root are those compiled
+     */
+    private static boolean isCurrent(CompiledFormula compiled, INode node) {
+        if (!compiled.formula.equals(node.nodeData().getNodeFormula())) {
+            return false;
+        }
+        final IAtomicConceptOfLabel[] concepts = compiled.concepts;
+        int k = 0;
+        for (Iterator<IAtomicConceptOfLabel> i = node.nodeData().pathToRootConceptIterator(); i.hasNext(); ) {
+            if (k == concepts.length || concepts[k++] != i.next()) {
+                return false;
+            }
+        }
+        return k == concepts.length;
+    }
+
+    /**
+     * Adds the compiled formula of a context snapshot node, replacing references to concepts with references
+     * to the DIMACS variables. The formula should be {@link FrozenContext#isCompiled(int) compiled}.
+     *
+     * @param acolVariables acol -> variable number
+     * @param context       context snapshot
+     * @param node          node number
+     * @param result        where to add formula clauses with DIMACS variables
+     */
+    protected static void addFormula(Map<IAtomicConceptOfLabel, Integer> acolVariables,
+                                     FrozenContext context, int node, CNFBuilder result) {
+        for (int c = context.getClauseStart(node); c < context.getClauseEnd(node); c++) {
+            for (int l = context.getLiteralStart(c); l < context.getLiteralEnd(c); l++) {
+                final int literal = context.getLiteral(l);
+                final int variable = acolVariables.get(context.getConcept(Math.abs(literal) - 1));
+                result.addLiteral(literal < 0 ? -variable : variable);
+            }
+            result.endClause();
+        }
+    }
+
+    /**
+     * Compiles the formula of the node into clauses over the concepts of its path to root.
+     *
+     * @param acolsMap map with acol id -> acol mapping
+     * @param node     node
+     * @return compiled formula
+     * @throws NodeMatcherException NodeMatcherException
+     */
+    private static CompiledFormula compileFormula(Map<String, IAtomicConceptOfLabel> acolsMap, INode node) throws NodeMatcherException {
+        cacheACoLs(acolsMap, node);
+        List<IAtomicConceptOfLabel> concepts = new ArrayList<>();
+        Map<IAtomicConceptOfLabel, Integer> indexes = new HashMap<>();
+        for (Iterator<IAtomicConceptOfLabel> i = node.nodeData().pathToRootConceptIterator(); i.hasNext(); ) {
+            IAtomicConceptOfLabel acol = i.next();
+            if (!indexes.containsKey(acol)) {
+                indexes.put(acol, concepts.size() + 1);
+                concepts.add(acol);
+            }
+        }
+
+        String formula = node.nodeData().getNodeFormula();
+        CNFBuilder clauses = new CNFBuilder();
         boolean saved_negation = false;
-        for (StringTokenizer clauseTokenizer = new StringTokenizer(node.nodeData().getNodeFormula(), "&"); clauseTokenizer.hasMoreTokens(); ) {
+        for (StringTokenizer clauseTokenizer = new StringTokenizer(formula, "&"); clauseTokenizer.hasMoreTokens(); ) {
             String clause = clauseTokenizer.nextToken();
-            ArrayList<String> clause_vec = new ArrayList<>();
             for (StringTokenizer varTokenizer = new StringTokenizer(clause, "|() "); varTokenizer.hasMoreTokens(); ) {
                 String var = varTokenizer.nextToken();
                 boolean negation = false;
@@ -176,16 +385,33 @@ public abstract class BaseNodeMatcher {
                     saved_negation = true;
                     continue;
                 }
-                String var_num = hashConceptNumber.get(acolsMap.get(var));
+                Integer index = indexes.get(acolsMap.get(var));
+                if (null == index) {
+                    throw new NodeMatcherException("Unknown concept " + var + " in the formula of the node " + node.nodeData().getId());
+                }
                 if (negation || saved_negation) {
                     saved_negation = false;
-                    var_num = "-" + var_num;
+                    clauses.addLiteral(-index);
+                } else {
+                    clauses.addLiteral(index);
                 }
-                clause_vec.add(var_num);
             }
-            representation.add(clause_vec);
+            clauses.endClause();
+        }
+
+        int[] clauseEnds = new int[clauses.getClauseCount()];
+        int literalCount = 0;
+        for (int c = 0; c < clauseEnds.length; c++) {
+            literalCount += clauses.getClauseSize(c);
+            clauseEnds[c] = literalCount;
         }
-        return representation;
+        int[] literals = new int[literalCount];
+        for (int c = 0, l = 0; c < clauseEnds.length; c++) {
+            for (int i = 0; i < clauses.getClauseSize(c); i++) {
+                literals[l++] = clauses.getLiteral(c, i);
+            }
+        }
+        return new CompiledFormula(formula, concepts.toArray(new IAtomicConceptOfLabel[concepts.size()]), literals, clauseEnds);
     }
 
     /**
@@ -194,46 +420,63 @@ public abstract class BaseNodeMatcher {
      * @param formula parsed formula
      * @return formula in DIMACS format
      */
-    protected static String DIMACSfromList(ArrayList<ArrayList<String>> formula) {
-        StringBuilder dimacs = new StringBuilder("");
-        for (List<String> conjClause : formula) {
-            for (String disjClause : conjClause) {
-                dimacs.append(disjClause).append(" ");
-            }
-            dimacs.append(" 0\n");
-        }
-        return dimacs.toString();
+    protected static String DIMACSfromList(CNFBuilder formula) {
+        return formula.appendClauses(new StringBuilder()).toString();
     }
 
-    protected static int negateFormulaInList(Map<IAtomicConceptOfLabel, String> hashConceptNumber, ArrayList<ArrayList<String>> pivot, ArrayList<ArrayList<String>> result) {
-        result.clear();
-        ArrayList<String> firstClause = new ArrayList<>();
-        int numberOfVariables = hashConceptNumber.size();
-        for (ArrayList<String> v : pivot) {
-            if (v.size() == 1) {
-                firstClause.add(changeSign(v.get(0)));
+    /**
+     * Adds the negation of the formula to the result, introducing one new variable for each clause with more
+     * than one literal.
+     *
+     * @param pivot  formula to negate
+     * @param result where to add the clauses of the negated formula, new variables are allocated from it
+     * @return the number of variables in the result
+     */
+    protected static int negateFormulaInList(CNFBuilder pivot, CNFBuilder result) {
+        final int firstVariable = result.getVariableCount() + 1;
+        boolean hasFirstClause = false;
+        for (int c = 0; c < pivot.getClauseCount(); c++) {
+            final int size = pivot.getClauseSize(c);
+            if (size == 1) {
+                hasFirstClause = true;
             }
-            if (v.size() > 1) {
-                numberOfVariables++;
-                final String lsn = Integer.toString(numberOfVariables);
-                final String negatedLSN = "-" + lsn;
-                firstClause.add(negatedLSN);
-                ArrayList<String> longClause = new ArrayList<>();
-                longClause.add(negatedLSN);
-                for (String var : v) {
-                    longClause.add(var);
-                    ArrayList<String> tmp = new ArrayList<>();
-                    tmp.add(lsn);
-                    tmp.add(changeSign(var));
-                    result.add(tmp);
+            if (size > 1) {
+                hasFirstClause = true;
+                final int lsn = result.newVariable();
+                for (int l = 0; l < size; l++) {
+                    result.addClause(lsn, -pivot.getLiteral(c, l));
+                }
+                result.addLiteral(-lsn);
+                for (int l = 0; l < size; l++) {
+                    result.addLiteral(pivot.getLiteral(c, l));
                 }
-                result.add(longClause);
+                result.endClause();
             }
         }
-        if (firstClause.size() > 0) {
-            result.add(firstClause);
+        if (hasFirstClause) {
+            // variables were allocated above in the same order
+            int lsn = firstVariable;
+            for (int c = 0; c < pivot.getClauseCount(); c++) {
+                final int size = pivot.getClauseSize(c);
+                if (size == 1) {
+                    result.addLiteral(-pivot.getLiteral(c, 0));
+                }
+                if (size > 1) {
+                    result.addLiteral(-lsn);
+                    lsn++;
+                }
+            }
+            result.endClause();
+        }
+        return result.getVariableCount();
+    }
+
+    protected boolean isUnsatisfiable(ICNF satProblem) throws NodeMatcherException {
+        try {
+            return !cnfSolver.isSatisfiable(satProblem);
+        } catch (SATSolverException e) {
+            throw new NodeMatcherException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
         }
-        return numberOfVariables;
     }
 
     protected boolean isUnsatisfiable(String satProblem) throws NodeMatcherException {
@@ -264,13 +507,4 @@ public abstract class BaseNodeMatcher {
         }
         return IMappingElement.IDK;
     }
-
-    protected static String changeSign(String strClause) {
-        if ('-' == strClause.charAt(0)) {
-            strClause = strClause.substring(1);
-        } else {
-            strClause = "-" + strClause;
-        }
-        return strClause;
-    }
 }
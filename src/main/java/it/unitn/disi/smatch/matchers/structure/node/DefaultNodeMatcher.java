@@ -3,10 +3,12 @@ package it.unitn.disi.smatch.matchers.structure.node;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.trees.FrozenContext;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.deciders.ISATSession;
 import it.unitn.disi.smatch.deciders.ISATSolver;
+import it.unitn.disi.smatch.deciders.SATSolverException;
 
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,7 +18,7 @@ import java.util.Map;
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
  */
-public class DefaultNodeMatcher extends BaseNodeMatcher implements INodeMatcher {
+public class DefaultNodeMatcher extends BaseNodeMatcher implements ISnapshotNodeMatcher {
 
     public DefaultNodeMatcher(ISATSolver satSolver) {
         super(satSolver);
@@ -35,72 +37,84 @@ public class DefaultNodeMatcher extends BaseNodeMatcher implements INodeMatcher
         if (null != sourceCNodeFormula && null != targetCNodeFormula && !sourceCNodeFormula.isEmpty() && !targetCNodeFormula.isEmpty() &&
                 null != sourceCLabFormula && null != targetCLabFormula && !sourceCLabFormula.isEmpty() && !targetCLabFormula.isEmpty()
                 ) {
-            //whether particular relation holds
-            boolean isContains;
-            boolean isContained;
-            boolean isOpposite;
+            NodeMatchingBuffers buffers = getBuffers();
+            mkAxioms(buffers.acolVariables, acolMapping, sourceNode, targetNode, buffers.axioms);
+            // parse formulas with concepts into formulas with DIMACS variables
+            parseFormula(buffers.acolVariables, sourceACoLs, sourceNode, buffers.contextA);
+            parseFormula(buffers.acolVariables, targetACoLs, targetNode, buffers.contextB);
+            result = match(buffers);
+        }
+        return result;
+    }
+
+    public char nodeMatch(IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                          FrozenContext sourceContext, int sourceNode,
+                          FrozenContext targetContext, int targetNode) throws NodeMatcherException {
+        if (!sourceContext.hasFormulas(sourceNode) || !targetContext.hasFormulas(targetNode)) {
+            return IMappingElement.IDK;
+        }
+        if (!sourceContext.isCompiled(sourceNode) || !targetContext.isCompiled(targetNode)) {
+            // reports the problem with the formula
+            return nodeMatch(acolMapping,
+                    new HashMap<String, IAtomicConceptOfLabel>(), new HashMap<String, IAtomicConceptOfLabel>(),
+                    sourceContext.getNode(sourceNode), targetContext.getNode(targetNode));
+        }
+
+        NodeMatchingBuffers buffers = getBuffers();
+        mkAxioms(buffers.acolVariables, acolMapping, sourceContext, sourceNode, targetContext, targetNode, buffers.axioms);
+        addFormula(buffers.acolVariables, sourceContext, sourceNode, buffers.contextA);
+        addFormula(buffers.acolVariables, targetContext, targetNode, buffers.contextB);
+        return match(buffers);
+    }
 
-            // ACoLs -> its DIMACS variable number
-            Map<IAtomicConceptOfLabel, String> hashConceptNumber = new HashMap<>();
-            // number of variables in SAT problem
-            Integer numberOfVariables;
-            // number of clauses in SAT problem
-            Integer numberOfClauses;
+    /**
+     * Checks the relations between the contexts in the buffers, given the axioms.
+     *
+     * @param buffers buffers with the axioms and the contexts
+     * @return relation between the contexts
+     * @throws NodeMatcherException NodeMatcherException
+     */
+    private char match(NodeMatchingBuffers buffers) throws NodeMatcherException {
+        //whether particular relation holds
+        boolean isContains;
+        boolean isContained;
+        boolean isOpposite;
 
-            Object[] obj = mkAxioms(hashConceptNumber, sourceACoLs, targetACoLs, acolMapping, sourceNode, targetNode);
-            String axioms = (String) obj[0];
-            int num_of_axiom_clauses = (Integer) obj[1];
-            // parse formulas with concepts into formulas with DIMACS variables
-            ArrayList<ArrayList<String>> contextA = parseFormula(hashConceptNumber, sourceACoLs, sourceNode);
-            ArrayList<ArrayList<String>> contextB = parseFormula(hashConceptNumber, targetACoLs, targetNode);
-            // create contexts in DIMACS format
-            String contextAInDIMACSFormat = DIMACSfromList(contextA);
-            String contextBInDIMACSFormat = DIMACSfromList(contextB);
+        // negated contexts, with variables numbered after the concepts
+        buffers.negationB.setVariableCount(buffers.axioms.getVariableCount());
+        negateFormulaInList(buffers.contextB, buffers.negationB);
+        buffers.negationA.setVariableCount(buffers.axioms.getVariableCount());
+        negateFormulaInList(buffers.contextA, buffers.negationA);
 
-            // negated formula
-            ArrayList<ArrayList<String>> negatedContext = new ArrayList<>();
-            // sat problem in DIMACS format
-            String satProblemInDIMACS;
-            // sat problem with DIMACS header
-            String DIMACSproblem;
+        // the axioms are shared by all tests
+        ISATSession session = buffers.session;
+        try {
+            session.addClauses(buffers.axioms);
 
             // LG test
-            // negate the context
-            numberOfVariables = negateFormulaInList(hashConceptNumber, contextB, negatedContext);
-            // get the sat problem in DIMACS format
-            satProblemInDIMACS = axioms + contextAInDIMACSFormat + DIMACSfromList(negatedContext);
-            // get number of clauses for SAT problem
-            numberOfClauses = num_of_axiom_clauses + contextA.size() + negatedContext.size();
-            // add DIMACS header
-            DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
-            // do LG test
-            isContained = isUnsatisfiable(DIMACSproblem);
+            session.push();
+            session.addClauses(buffers.contextA);
+            session.addClauses(buffers.negationB);
+            isContained = !session.isSatisfiable();
+            session.pop();
 
             // MG test
-            // negate the context
-            numberOfVariables = negateFormulaInList(hashConceptNumber, contextA, negatedContext);
-            // get the sat problem in DIMACS format
-            satProblemInDIMACS = axioms + contextBInDIMACSFormat + DIMACSfromList(negatedContext);
-            // get number of clauses for SAT problem
-            numberOfClauses = num_of_axiom_clauses + contextB.size() + negatedContext.size();
-            // add DIMACS header
-            DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
-            // do MG test
-            isContains = isUnsatisfiable(DIMACSproblem);
+            session.push();
+            session.addClauses(buffers.contextB);
+            session.addClauses(buffers.negationA);
+            isContains = !session.isSatisfiable();
+            session.pop();
 
             // DJ test
-            // get the sat problem in DIMACS format
-            satProblemInDIMACS = axioms + contextBInDIMACSFormat + contextAInDIMACSFormat;
-            // get number of clauses for SAT problem
-            numberOfClauses = contextA.size() + contextB.size() + num_of_axiom_clauses;
-            numberOfVariables = hashConceptNumber.size();
-            // add DIMACS header
-            DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
-            // do disjointness test
-            isOpposite = isUnsatisfiable(DIMACSproblem);
-
-            result = getRelationString(isContains, isContained, isOpposite);
+            session.push();
+            session.addClauses(buffers.contextB);
+            session.addClauses(buffers.contextA);
+            isOpposite = !session.isSatisfiable();
+            session.pop();
+        } catch (SATSolverException e) {
+            throw new NodeMatcherException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
         }
-        return result;
+
+        return getRelationString(isContains, isContained, isOpposite);
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package it.unitn.disi.smatch.matchers.structure.node;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.trees.FrozenContext;
+
+/**
+ * An interface for node matchers which match nodes of context snapshots.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface ISnapshotNodeMatcher extends INodeMatcher {
+
+    /**
+     * Matches two nodes of context snapshots and returns a relation between them.
+     *
+     * @param acolMapping   a mapping between atomic concepts of labels
+     * @param sourceContext source context snapshot
+     * @param sourceNode    source node number
+     * @param targetContext target context snapshot
+     * @param targetNode    target node number
+     * @return relation between source and target nodes
+     * @throws NodeMatcherException NodeMatcherException
+     */
+    char nodeMatch(IContextMapping<IAtomicConceptOfLabel> acolMapping,
+                   FrozenContext sourceContext, int sourceNode,
+                   FrozenContext targetContext, int targetNode) throws NodeMatcherException;
+}
@@ -3,10 +3,9 @@ package it.unitn.disi.smatch.matchers.structure.node;
 import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.deciders.CNFBuilder;
 import it.unitn.disi.smatch.deciders.ISATSolver;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -51,22 +50,18 @@ public class OptimizedStageNodeMatcher extends BaseNodeMatcher implements INodeM
         if (null != sourceCNodeFormula && null != targetCNodeFormula && !sourceCNodeFormula.isEmpty() && !targetCNodeFormula.isEmpty() &&
                 null != sourceCLabFormula && null != targetCLabFormula && !sourceCLabFormula.isEmpty() && !targetCLabFormula.isEmpty()
                 ) {
-            HashMap<IAtomicConceptOfLabel, String> hashConceptNumber = new HashMap<>();
-            Object[] obj = mkAxioms(hashConceptNumber, sourceACoLs, targetACoLs, acolMapping, sourceNode, targetNode);
-            String axioms = (String) obj[0];
-            int num_of_axiom_clauses = (Integer) obj[1];
-
-            ArrayList<ArrayList<String>> contextA = parseFormula(hashConceptNumber, sourceACoLs, sourceNode);
-            ArrayList<ArrayList<String>> contextB = parseFormula(hashConceptNumber, targetACoLs, targetNode);
-            String contextAInDIMACSFormat = DIMACSfromList(contextA);
-            String contextBInDIMACSFormat = DIMACSfromList(contextB);
-
-            String satProblemInDIMACS = axioms + contextBInDIMACSFormat + contextAInDIMACSFormat;
-            int numberOfClauses = contextA.size() + contextB.size() + num_of_axiom_clauses;
-            int numberOfVariables = hashConceptNumber.size();
-            String DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
-
-            result = isUnsatisfiable(DIMACSproblem);
+            NodeMatchingBuffers buffers = getBuffers();
+            mkAxioms(buffers.acolVariables, acolMapping, sourceNode, targetNode, buffers.axioms);
+
+            parseFormula(buffers.acolVariables, sourceACoLs, sourceNode, buffers.contextA);
+            parseFormula(buffers.acolVariables, targetACoLs, targetNode, buffers.contextB);
+
+            CNFBuilder satProblem = buffers.problem;
+            satProblem.addClauses(buffers.axioms);
+            satProblem.addClauses(buffers.contextB);
+            satProblem.addClauses(buffers.contextA);
+
+            result = isUnsatisfiable(satProblem);
         }
         return result;
     }
@@ -96,42 +91,34 @@ public class OptimizedStageNodeMatcher extends BaseNodeMatcher implements INodeM
                 null != sourceCLabFormula && null != targetCLabFormula && !sourceCLabFormula.isEmpty() && !targetCLabFormula.isEmpty()
                 ) {
             if (sourceNode.nodeData().getSource()) {
-                HashMap<IAtomicConceptOfLabel, String> hashConceptNumber = new HashMap<>();
-                Object[] obj = mkAxioms(hashConceptNumber, sourceACoLs, targetACoLs, acolMapping, sourceNode, targetNode);
-                String axioms = (String) obj[0];
-                int num_of_axiom_clauses = (Integer) obj[1];
+                NodeMatchingBuffers buffers = getBuffers();
+                mkAxioms(buffers.acolVariables, acolMapping, sourceNode, targetNode, buffers.axioms);
 
-                ArrayList<ArrayList<String>> contextA = parseFormula(hashConceptNumber, sourceACoLs, sourceNode);
-                ArrayList<ArrayList<String>> contextB = parseFormula(hashConceptNumber, targetACoLs, targetNode);
-                String contextAInDIMACSFormat = DIMACSfromList(contextA);
+                parseFormula(buffers.acolVariables, sourceACoLs, sourceNode, buffers.contextA);
+                parseFormula(buffers.acolVariables, targetACoLs, targetNode, buffers.contextB);
 
-                ArrayList<ArrayList<String>> negatedContext = new ArrayList<>();
                 //LG test
-                Integer numberOfVariables = negateFormulaInList(hashConceptNumber, contextB, negatedContext);
-                String satProblemInDIMACS = axioms + contextAInDIMACSFormat + DIMACSfromList(negatedContext);
-                Integer numberOfClauses = num_of_axiom_clauses + contextA.size() + negatedContext.size();
-                String DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
+                CNFBuilder satProblem = buffers.problem;
+                satProblem.addClauses(buffers.axioms);
+                satProblem.addClauses(buffers.contextA);
+                negateFormulaInList(buffers.contextB, satProblem);
 
-                result = isUnsatisfiable(DIMACSproblem);
+                result = isUnsatisfiable(satProblem);
             } else {
                 //swap source, target and relation
-                HashMap<IAtomicConceptOfLabel, String> hashConceptNumber = new HashMap<>();
-                Object[] obj = mkAxioms(hashConceptNumber, sourceACoLs, targetACoLs, acolMapping, targetNode, sourceNode);
-                String axioms = (String) obj[0];
-                int num_of_axiom_clauses = (Integer) obj[1];
+                NodeMatchingBuffers buffers = getBuffers();
+                mkAxioms(buffers.acolVariables, acolMapping, targetNode, sourceNode, buffers.axioms);
 
-                ArrayList<ArrayList<String>> contextA = parseFormula(hashConceptNumber, sourceACoLs, targetNode);
-                ArrayList<ArrayList<String>> contextB = parseFormula(hashConceptNumber, targetACoLs, sourceNode);
-                String contextBInDIMACSFormat = DIMACSfromList(contextB);
+                parseFormula(buffers.acolVariables, sourceACoLs, targetNode, buffers.contextA);
+                parseFormula(buffers.acolVariables, targetACoLs, sourceNode, buffers.contextB);
 
-                ArrayList<ArrayList<String>> negatedContext = new ArrayList<>();
                 //MG test
-                Integer numberOfVariables = negateFormulaInList(hashConceptNumber, contextA, negatedContext);
-                String satProblemInDIMACS = axioms + contextBInDIMACSFormat + DIMACSfromList(negatedContext);
-                Integer numberOfClauses = num_of_axiom_clauses + contextB.size() + negatedContext.size();
-                String DIMACSproblem = "p cnf " + numberOfVariables + " " + numberOfClauses + "\n" + satProblemInDIMACS;
+                CNFBuilder satProblem = buffers.problem;
+                satProblem.addClauses(buffers.axioms);
+                satProblem.addClauses(buffers.contextB);
+                negateFormulaInList(buffers.contextA, satProblem);
 
-                result = isUnsatisfiable(DIMACSproblem);
+                result = isUnsatisfiable(satProblem);
             }
         }
         return result;
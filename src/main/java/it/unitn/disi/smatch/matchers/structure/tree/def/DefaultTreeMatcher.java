@@ -5,9 +5,11 @@ import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
 import it.unitn.disi.smatch.data.mappings.IContextMapping;
 import it.unitn.disi.smatch.data.mappings.IMappingElement;
 import it.unitn.disi.smatch.data.mappings.IMappingFactory;
+import it.unitn.disi.smatch.data.trees.FrozenContext;
 import it.unitn.disi.smatch.data.trees.IContext;
 import it.unitn.disi.smatch.data.trees.INode;
 import it.unitn.disi.smatch.matchers.structure.node.INodeMatcher;
+import it.unitn.disi.smatch.matchers.structure.node.ISnapshotNodeMatcher;
 import it.unitn.disi.smatch.matchers.structure.tree.BaseTreeMatcher;
 import it.unitn.disi.smatch.matchers.structure.tree.IAsyncTreeMatcher;
 import it.unitn.disi.smatch.matchers.structure.tree.TreeMatcherException;
@@ -17,7 +19,8 @@ import java.util.Iterator;
 import java.util.Map;
 
 /**
- * Matches all nodes of the source context with all nodes of the target context.
+ * Matches all nodes of the source context with all nodes of the target context. Node matchers implementing
+ * {@link ISnapshotNodeMatcher} match the nodes of context snapshots.
  *
  * @author Mikalai Yatskevich mikalai.yatskevich@comlab.ox.ac.uk
  * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
@@ -44,21 +47,39 @@ public class DefaultTreeMatcher extends BaseTreeMatcher implements IAsyncTreeMat
         // semantic relation for particular node matching task
         char relation;
 
-        Map<String, IAtomicConceptOfLabel> sourceACoLs = new HashMap<>();
-        Map<String, IAtomicConceptOfLabel> targetACoLs = new HashMap<>();
+        if (nodeMatcher instanceof ISnapshotNodeMatcher) {
+            final ISnapshotNodeMatcher snapshotMatcher = (ISnapshotNodeMatcher) nodeMatcher;
+            final FrozenContext source = new FrozenContext(sourceContext);
+            final FrozenContext target = new FrozenContext(targetContext);
+            for (int i = 0; i < source.size(); i++) {
+                for (int j = 0; j < target.size(); j++) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
 
-        for (Iterator<INode> i = sourceContext.nodeIterator(); i.hasNext(); ) {
-            INode sourceNode = i.next();
-            for (Iterator<INode> j = targetContext.nodeIterator(); j.hasNext(); ) {
-                if (Thread.currentThread().isInterrupted()) {
-                    break;
+                    relation = snapshotMatcher.nodeMatch(acolMapping, source, i, target, j);
+                    mapping.setRelation(source.getNode(i), target.getNode(j), relation);
+
+                    progress();
                 }
+            }
+        } else {
+            Map<String, IAtomicConceptOfLabel> sourceACoLs = new HashMap<>();
+            Map<String, IAtomicConceptOfLabel> targetACoLs = new HashMap<>();
 
-                INode targetNode = j.next();
-                relation = nodeMatcher.nodeMatch(acolMapping, sourceACoLs, targetACoLs, sourceNode, targetNode);
-                mapping.setRelation(sourceNode, targetNode, relation);
+            for (Iterator<INode> i = sourceContext.nodeIterator(); i.hasNext(); ) {
+                INode sourceNode = i.next();
+                for (Iterator<INode> j = targetContext.nodeIterator(); j.hasNext(); ) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        break;
+                    }
 
-                progress();
+                    INode targetNode = j.next();
+                    relation = nodeMatcher.nodeMatch(acolMapping, sourceACoLs, targetACoLs, sourceNode, targetNode);
+                    mapping.setRelation(sourceNode, targetNode, relation);
+
+                    progress();
+                }
             }
         }
 
@@ -0,0 +1,235 @@
+package it.unitn.disi.smatch.matchers.structure.tree.def;
+
+import it.unitn.disi.smatch.async.AsyncTask;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.mappings.IMappingFactory;
+import it.unitn.disi.smatch.data.trees.FrozenContext;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.matchers.structure.node.INodeMatcher;
+import it.unitn.disi.smatch.matchers.structure.node.ISnapshotNodeMatcher;
+import it.unitn.disi.smatch.matchers.structure.node.NodeMatcherException;
+import it.unitn.disi.smatch.matchers.structure.tree.TreeMatcherException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A Tree Matcher that executes matching in parallel on a fork join pool. The source by target node pairs are
+ * split recursively into tiles of neighbour nodes, which idle threads steal from busy ones. A tile is matched
+ * by one thread, which reuses its node matcher buffers from one pair to the next, and its results are written
+ * into the mapping and reported as progress at once.
+ * <p/>
+ * Produces the same mapping as {@link DefaultTreeMatcher}.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class ForkJoinTreeMatcher extends DefaultTreeMatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(ForkJoinTreeMatcher.class);
+
+    /**
+     * Default tile side, in nodes.
+     */
+    public static final int DEFAULT_TILE_SIZE = 32;
+
+    /**
+     * A pool which runs the matchers.
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * The pool shared by the matchers created without one, created on first use and never shut down. Its
+     * threads are daemons, so it does not keep the application running.
+     */
+    private static final class SharedPool {
+        static final ForkJoinPool INSTANCE = new ForkJoinPool();
+    }
+
+    /**
+     * Tiles are split until their sides are not longer than this.
+     */
+    private final int tileSize;
+
+    public ForkJoinTreeMatcher(INodeMatcher nodeMatcher, IMappingFactory mappingFactory) {
+        this(nodeMatcher, mappingFactory, SharedPool.INSTANCE, DEFAULT_TILE_SIZE);
+    }
+
+    public ForkJoinTreeMatcher(INodeMatcher nodeMatcher, IMappingFactory mappingFactory,
+                               IContext sourceContext, IContext targetContext,
+                               IContextMapping<IAtomicConceptOfLabel> acolMapping) {
+        this(nodeMatcher, mappingFactory, SharedPool.INSTANCE, DEFAULT_TILE_SIZE,
+                sourceContext, targetContext, acolMapping);
+    }
+
+    public ForkJoinTreeMatcher(INodeMatcher nodeMatcher, IMappingFactory mappingFactory,
+                               ForkJoinPool pool, int tileSize) {
+        super(nodeMatcher, mappingFactory);
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tileSize should be positive, found: " + tileSize);
+        }
+        this.pool = pool;
+        this.tileSize = tileSize;
+    }
+
+    public ForkJoinTreeMatcher(INodeMatcher nodeMatcher, IMappingFactory mappingFactory,
+                               ForkJoinPool pool, int tileSize,
+                               IContext sourceContext, IContext targetContext,
+                               IContextMapping<IAtomicConceptOfLabel> acolMapping) {
+        super(nodeMatcher, mappingFactory, sourceContext, targetContext, acolMapping);
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("tileSize should be positive, found: " + tileSize);
+        }
+        this.pool = pool;
+        this.tileSize = tileSize;
+    }
+
+    @Override
+    public AsyncTask<IContextMapping<INode>, IMappingElement<INode>>
+    asyncTreeMatch(IContext sourceContext, IContext targetContext, IContextMapping<IAtomicConceptOfLabel> acolMapping) {
+        return new ForkJoinTreeMatcher(nodeMatcher, mappingFactory, pool, tileSize,
+                sourceContext, targetContext, acolMapping);
+    }
+
+    @Override
+    public IContextMapping<INode> treeMatch(final IContext sourceContext, final IContext targetContext,
+                                            final IContextMapping<IAtomicConceptOfLabel> acolMapping) throws TreeMatcherException {
+        setTotal((long) sourceContext.nodesCount() * (long) targetContext.nodesCount());
+        setProgress(0);
+        log.debug("Running with parallelism: " + pool.getParallelism() + ", tile size: " + tileSize);
+
+        final IContextMapping<INode> mapping = mappingFactory.getContextMappingInstance(sourceContext, targetContext);
+
+        final Run run = new Run(acolMapping, mapping, new FrozenContext(sourceContext), new FrozenContext(targetContext));
+        final ForkJoinTask<Void> task = pool.submit(new Tile(run, 0, run.source.size(), 0, run.target.size()));
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            run.stopped = true;
+            Thread.currentThread().interrupt();
+            throw new TreeMatcherException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        } catch (ExecutionException e) {
+            throw new TreeMatcherException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+        }
+
+        //noinspection ThrowableResultOfMethodCallIgnored
+        if (null != run.productionException.get()) {
+            throw run.productionException.get();
+        }
+
+        return mapping;
+    }
+
+    /**
+     * State shared by the tiles of one matching task.
+     */
+    private static final class Run {
+        final IContextMapping<IAtomicConceptOfLabel> acolMapping;
+        final IContextMapping<INode> mapping;
+        final FrozenContext source;
+        final FrozenContext target;
+        // used by the node matchers which do not match snapshots
+        final Map<String, IAtomicConceptOfLabel> sourceACoLs = new ConcurrentHashMap<>();
+        final Map<String, IAtomicConceptOfLabel> targetACoLs = new ConcurrentHashMap<>();
+        final AtomicReference<NodeMatcherException> productionException = new AtomicReference<>(null);
+        // set when the task is interrupted, the remaining tiles are skipped
+        volatile boolean stopped;
+
+        Run(IContextMapping<IAtomicConceptOfLabel> acolMapping, IContextMapping<INode> mapping,
+            FrozenContext source, FrozenContext target) {
+            this.acolMapping = acolMapping;
+            this.mapping = mapping;
+            this.source = source;
+            this.target = target;
+        }
+    }
+
+    /**
+     * Matches the source nodes from sourceStart to sourceEnd with the target nodes from targetStart to targetEnd,
+     * splitting the longer side in halves until both fit into a tile.
+     */
+    private class Tile extends RecursiveAction {
+
+        private final Run run;
+        private final int sourceStart;
+        private final int sourceEnd;
+        private final int targetStart;
+        private final int targetEnd;
+
+        private Tile(Run run, int sourceStart, int sourceEnd, int targetStart, int targetEnd) {
+            this.run = run;
+            this.sourceStart = sourceStart;
+            this.sourceEnd = sourceEnd;
+            this.targetStart = targetStart;
+            this.targetEnd = targetEnd;
+        }
+
+        @Override
+        protected void compute() {
+            //noinspection ThrowableResultOfMethodCallIgnored
+            if (run.stopped || null != run.productionException.get()) {
+                return;
+            }
+            final int sourceLength = sourceEnd - sourceStart;
+            final int targetLength = targetEnd - targetStart;
+            if (tileSize < sourceLength && targetLength <= sourceLength) {
+                final int middle = sourceStart + sourceLength / 2;
+                invokeAll(new Tile(run, sourceStart, middle, targetStart, targetEnd),
+                        new Tile(run, middle, sourceEnd, targetStart, targetEnd));
+            } else if (tileSize < targetLength) {
+                final int middle = targetStart + targetLength / 2;
+                invokeAll(new Tile(run, sourceStart, sourceEnd, targetStart, middle),
+                        new Tile(run, sourceStart, sourceEnd, middle, targetEnd));
+            } else {
+                match(sourceLength, targetLength);
+            }
+        }
+
+        private void match(int sourceLength, int targetLength) {
+            final char[] relations = new char[sourceLength * targetLength];
+            try {
+                int k = 0;
+                if (nodeMatcher instanceof ISnapshotNodeMatcher) {
+                    final ISnapshotNodeMatcher snapshotMatcher = (ISnapshotNodeMatcher) nodeMatcher;
+                    for (int i = sourceStart; i < sourceEnd; i++) {
+                        for (int j = targetStart; j < targetEnd; j++) {
+                            relations[k++] = snapshotMatcher.nodeMatch(run.acolMapping, run.source, i, run.target, j);
+                        }
+                    }
+                } else {
+                    for (int i = sourceStart; i < sourceEnd; i++) {
+                        final INode sourceNode = run.source.getNode(i);
+                        for (int j = targetStart; j < targetEnd; j++) {
+                            relations[k++] = nodeMatcher.nodeMatch(run.acolMapping, run.sourceACoLs, run.targetACoLs,
+                                    sourceNode, run.target.getNode(j));
+                        }
+                    }
+                }
+            } catch (NodeMatcherException e) {
+                run.productionException.compareAndSet(null, e);
+                return;
+            }
+
+            // mappings are not required to be thread-safe
+            synchronized (run.mapping) {
+                int k = 0;
+                for (int i = sourceStart; i < sourceEnd; i++) {
+                    final INode sourceNode = run.source.getNode(i);
+                    for (int j = targetStart; j < targetEnd; j++) {
+                        run.mapping.setRelation(sourceNode, run.target.getNode(j), relations[k++]);
+                    }
+                }
+                progress(relations.length);
+            }
+        }
+    }
+}
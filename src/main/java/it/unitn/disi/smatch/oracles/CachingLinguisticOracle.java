@@ -0,0 +1,148 @@
+package it.unitn.disi.smatch.oracles;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.util.CacheStats;
+import it.unitn.disi.smatch.data.util.ClockCache;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Linguistic oracle which caches the senses, the base forms and the multiwords returned by another oracle.
+ * Preprocessors and gloss matchers ask about the same words many times, while lookups in oracles such as WordNet
+ * are expensive.
+ * <p/>
+ * Each cache is bounded by the amount of entries. The cached lists are copied on each lookup, because callers,
+ * such as preprocessors, modify the returned lists. Null answers are not cached.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CachingLinguisticOracle implements ILinguisticOracle {
+
+    /**
+     * Default maximum amount of entries of each cache.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 100000;
+
+    protected final ILinguisticOracle linguisticOracle;
+
+    private final ClockCache<String, List<ISense>> senses;
+    private final ClockCache<String, List<String>> baseForms;
+    private final ClockCache<String, List<List<String>>> multiwords;
+
+    /**
+     * Creates caches bounded by {@link #DEFAULT_MAX_ENTRIES} entries each.
+     *
+     * @param linguisticOracle oracle to call on cache misses
+     */
+    public CachingLinguisticOracle(ILinguisticOracle linguisticOracle) {
+        this(linguisticOracle, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * Creates caches bounded by the amount of entries.
+     *
+     * @param linguisticOracle oracle to call on cache misses
+     * @param maxEntries       maximum amount of entries of each cache
+     */
+    public CachingLinguisticOracle(ILinguisticOracle linguisticOracle, int maxEntries) {
+        this.linguisticOracle = linguisticOracle;
+        this.senses = new ClockCache<>(maxEntries);
+        this.baseForms = new ClockCache<>(maxEntries);
+        this.multiwords = new ClockCache<>(maxEntries);
+    }
+
+    public boolean isEqual(String str1, String str2) throws LinguisticOracleException {
+        return linguisticOracle.isEqual(str1, str2);
+    }
+
+    public List<ISense> getSenses(String word) throws LinguisticOracleException {
+        List<ISense> cached = senses.get(word);
+        if (null != cached) {
+            return new ArrayList<>(cached);
+        }
+        List<ISense> result = linguisticOracle.getSenses(word);
+        if (null != result) {
+            senses.putIfAbsent(word, new ArrayList<>(result), bytes(word, result));
+        }
+        return result;
+    }
+
+    public List<String> getBaseForms(String derivation) throws LinguisticOracleException {
+        List<String> cached = baseForms.get(derivation);
+        if (null != cached) {
+            return new ArrayList<>(cached);
+        }
+        List<String> result = linguisticOracle.getBaseForms(derivation);
+        if (null != result) {
+            baseForms.putIfAbsent(derivation, new ArrayList<>(result), bytes(derivation, result));
+        }
+        return result;
+    }
+
+    public ISense createSense(String id) throws LinguisticOracleException {
+        return linguisticOracle.createSense(id);
+    }
+
+    public List<List<String>> getMultiwords(String beginning) throws LinguisticOracleException {
+        List<List<String>> cached = multiwords.get(beginning);
+        if (null != cached) {
+            return new ArrayList<>(cached);
+        }
+        List<List<String>> result = linguisticOracle.getMultiwords(beginning);
+        if (null != result) {
+            multiwords.putIfAbsent(beginning, new ArrayList<>(result), bytes(beginning, result));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the statistics of all caches together.
+     *
+     * @return the statistics of all caches together
+     */
+    public CacheStats getStats() {
+        CacheStats s = senses.getStats();
+        CacheStats b = baseForms.getStats();
+        CacheStats m = multiwords.getStats();
+        return new CacheStats(s.getHits() + b.getHits() + m.getHits(),
+                s.getMisses() + b.getMisses() + m.getMisses(),
+                s.getEvictions() + b.getEvictions() + m.getEvictions(),
+                s.getSize() + b.getSize() + m.getSize(),
+                s.getEstimatedBytes() + b.getEstimatedBytes() + m.getEstimatedBytes());
+    }
+
+    /**
+     * Returns the statistics of the senses cache.
+     *
+     * @return the statistics of the senses cache
+     */
+    public CacheStats getSensesStats() {
+        return senses.getStats();
+    }
+
+    /**
+     * Returns the statistics of the base forms cache.
+     *
+     * @return the statistics of the base forms cache
+     */
+    public CacheStats getBaseFormsStats() {
+        return baseForms.getStats();
+    }
+
+    /**
+     * Returns the statistics of the multiwords cache.
+     *
+     * @return the statistics of the multiwords cache
+     */
+    public CacheStats getMultiwordsStats() {
+        return multiwords.getStats();
+    }
+
+    /**
+     * Estimates the memory taken by the word and the list, counting the list elements as references.
+     */
+    private static long bytes(String word, List<?> list) {
+        return 40 + 2L * word.length() + 24 + 16L * list.size();
+    }
+}
@@ -0,0 +1,403 @@
+package it.unitn.disi.smatch.oracles;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.util.CacheStats;
+import it.unitn.disi.smatch.data.util.ClockCache;
+import it.unitn.disi.smatch.data.util.Interner;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Sense matcher which caches the answers of another sense matcher. Element matchers, preprocessors and gloss
+ * matchers ask about the same pairs of senses many times, while sense matchers traverse the sense hierarchy.
+ * <p/>
+ * Sense ids and sense id lists are {@link Interner interned} into numbers. The answers about a pair of senses are
+ * kept as bits of one entry under the numbers of the senses, and the relations between sense lists under the numbers
+ * of the lists. The caches and the interners are bounded by the amount of entries each.
+ * <p/>
+ * In the closure mode the generality of senses is not asked from the sense matcher. Instead, the transitive closure
+ * of {@link ISense#getParents()} is computed once per sense and cached as sorted ancestor ids, and a sense is less
+ * general than another one if the other one is among its ancestors. This mode fits only the sense matchers deciding
+ * generality by hypernymy.
+ * <p/>
+ * The blocking of the sense matcher is forwarded, since the relations between sense lists are its answers. Senses
+ * of a sense matcher which can not be blocked are keyed by their ids, as element matchers do for such matchers.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public class CachingSenseMatcher implements IBlockableSenseMatcher {
+
+    /**
+     * Default maximum amount of entries of each cache.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1000000;
+
+    // bits of the answers about a pair of senses, values are kept 4 bits higher
+    private static final int MORE_GENERAL = 1;
+    private static final int LESS_GENERAL = 1 << 1;
+    private static final int SYNONYM = 1 << 2;
+    private static final int OPPOSITE = 1 << 3;
+
+    // estimated size of an entry
+    private static final int ENTRY_BYTES = 32;
+
+    protected final ISenseMatcher senseMatcher;
+
+    private final boolean closure;
+
+    private final Interner<String> senseIds;
+    private final Interner<SenseList> senseListIds;
+
+    // the sense list looked up, per thread
+    private final ThreadLocal<SenseList> probes = new ThreadLocal<SenseList>() {
+        @Override
+        protected SenseList initialValue() {
+            return new SenseList(8);
+        }
+    };
+
+    // answers about pairs of senses, kept under themselves
+    private final ClockCache<Key, Entry> pairs;
+    // relations between lists of senses
+    private final ClockCache<Key, Character> lists;
+
+    // sorted ids of the ancestors of a sense, in the closure mode. ids, not numbers, because the numbers of
+    // evicted senses change
+    private final ClockCache<String, String[]> ancestors;
+
+    private static class Key {
+        // source sense or sense list number
+        final int source;
+        // target sense or sense list number
+        final int target;
+
+        Key(int source, int target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return source == key.source && target == key.target;
+        }
+
+        @Override
+        public int hashCode() {
+            long h = (((long) source) << 32 | (target & 0xFFFFFFFFL)) * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    private static final class Entry extends Key {
+        // answer bits, guarded by the entry
+        private int value;
+
+        Entry(Key key, int value) {
+            super(key.source, key.target);
+            this.value = value;
+        }
+
+        synchronized int get() {
+            return value;
+        }
+
+        synchronized void add(int bits) {
+            value |= bits;
+        }
+    }
+
+    /**
+     * Sense ids of a sense list. The probes are refilled for each lookup, the interned copies are not modified.
+     */
+    private static final class SenseList {
+        private String[] ids;
+        private int size;
+        private int hash;
+
+        SenseList(int capacity) {
+            this.ids = new String[capacity];
+        }
+
+        void set(List<ISense> senses) {
+            if (ids.length < senses.size()) {
+                ids = new String[senses.size()];
+            }
+            size = 0;
+            hash = 1;
+            for (ISense sense : senses) {
+                ids[size] = sense.getId();
+                hash = 31 * hash + ids[size].hashCode();
+                size++;
+            }
+        }
+
+        SenseList copy() {
+            final SenseList result = new SenseList(size);
+            System.arraycopy(ids, 0, result.ids, 0, size);
+            result.size = size;
+            result.hash = hash;
+            return result;
+        }
+
+        long bytes() {
+            long result = 48 + 8L * size;
+            for (int i = 0; i < size; i++) {
+                result += 40 + 2L * ids[i].length();
+            }
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof SenseList)) {
+                return false;
+            }
+            SenseList list = (SenseList) o;
+            if (size != list.size || hash != list.hash) {
+                return false;
+            }
+            for (int i = 0; i < size; i++) {
+                if (!ids[i].equals(list.ids[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Creates caches bounded by {@link #DEFAULT_MAX_ENTRIES} entries each.
+     *
+     * @param senseMatcher sense matcher to call on cache misses
+     */
+    public CachingSenseMatcher(ISenseMatcher senseMatcher) {
+        this(senseMatcher, DEFAULT_MAX_ENTRIES, false);
+    }
+
+    /**
+     * Creates caches bounded by the amount of entries.
+     *
+     * @param senseMatcher sense matcher to call on cache misses
+     * @param maxEntries   maximum amount of entries of each cache and interner
+     * @param closure      whether to decide generality by the transitive closure of sense parents
+     */
+    public CachingSenseMatcher(ISenseMatcher senseMatcher, int maxEntries, boolean closure) {
+        this.senseMatcher = senseMatcher;
+        this.closure = closure;
+        this.pairs = new ClockCache<>(maxEntries);
+        this.lists = new ClockCache<>(maxEntries);
+        this.ancestors = new ClockCache<>(maxEntries);
+        this.senseIds = new Interner<>(maxEntries);
+        this.senseListIds = new Interner<>(maxEntries);
+    }
+
+    public char getRelation(List<ISense> sourceSenses, List<ISense> targetSenses) throws SenseMatcherException {
+        final Key key = new Key(senseListNumber(sourceSenses), senseListNumber(targetSenses));
+        final Character relation = lists.get(key);
+        if (null != relation) {
+            return relation;
+        }
+        final char result = senseMatcher.getRelation(sourceSenses, targetSenses);
+        lists.putIfAbsent(key, result, ENTRY_BYTES);
+        return result;
+    }
+
+    public boolean isSourceMoreGeneralThanTarget(ISense source, ISense target) throws SenseMatcherException {
+        if (closure) {
+            return isAncestor(source, target);
+        }
+        return holds(source, target, MORE_GENERAL);
+    }
+
+    public boolean isSourceLessGeneralThanTarget(ISense source, ISense target) throws SenseMatcherException {
+        if (closure) {
+            return isAncestor(target, source);
+        }
+        return holds(source, target, LESS_GENERAL);
+    }
+
+    public boolean isSourceSynonymTarget(ISense source, ISense target) throws SenseMatcherException {
+        return holds(source, target, SYNONYM);
+    }
+
+    public boolean isSourceOppositeToTarget(ISense source, ISense target) throws SenseMatcherException {
+        return holds(source, target, OPPOSITE);
+    }
+
+    public boolean isExactBlocking() {
+        return senseMatcher instanceof IBlockableSenseMatcher && ((IBlockableSenseMatcher) senseMatcher).isExactBlocking();
+    }
+
+    public void addSourceKeys(List<ISense> sourceSenses, Collection<String> keys) {
+        if (senseMatcher instanceof IBlockableSenseMatcher) {
+            ((IBlockableSenseMatcher) senseMatcher).addSourceKeys(sourceSenses, keys);
+        } else {
+            addSenseIds(sourceSenses, keys);
+        }
+    }
+
+    public void addTargetKeys(List<ISense> targetSenses, Collection<String> keys) {
+        if (senseMatcher instanceof IBlockableSenseMatcher) {
+            ((IBlockableSenseMatcher) senseMatcher).addTargetKeys(targetSenses, keys);
+        } else {
+            addSenseIds(targetSenses, keys);
+        }
+    }
+
+    /**
+     * Returns the statistics of the sense pairs cache.
+     *
+     * @return the statistics of the sense pairs cache
+     */
+    public CacheStats getPairStats() {
+        return pairs.getStats();
+    }
+
+    /**
+     * Returns the statistics of the sense lists cache.
+     *
+     * @return the statistics of the sense lists cache
+     */
+    public CacheStats getListStats() {
+        return lists.getStats();
+    }
+
+    /**
+     * Returns the statistics of the ancestors cache, used in the closure mode.
+     *
+     * @return the statistics of the ancestors cache
+     */
+    public CacheStats getAncestorStats() {
+        return ancestors.getStats();
+    }
+
+    /**
+     * Returns the statistics of the sense and the sense list interners together.
+     *
+     * @return the statistics of the interners
+     */
+    public CacheStats getInternerStats() {
+        final CacheStats s = senseIds.getStats();
+        final CacheStats l = senseListIds.getStats();
+        return new CacheStats(s.getHits() + l.getHits(), s.getMisses() + l.getMisses(),
+                s.getEvictions() + l.getEvictions(), s.getSize() + l.getSize(),
+                s.getEstimatedBytes() + l.getEstimatedBytes());
+    }
+
+    private boolean holds(ISense source, ISense target, int relation) throws SenseMatcherException {
+        final Key key = new Key(senseNumber(source.getId()), senseNumber(target.getId()));
+        Entry entry = pairs.peek(key);
+        if (null != entry) {
+            final int value = entry.get();
+            if (0 != (value & relation)) {
+                pairs.countHit();
+                return 0 != (value & (relation << 4));
+            }
+        }
+        pairs.countMiss();
+
+        final boolean result;
+        switch (relation) {
+            case MORE_GENERAL: {
+                result = senseMatcher.isSourceMoreGeneralThanTarget(source, target);
+                break;
+            }
+            case LESS_GENERAL: {
+                result = senseMatcher.isSourceLessGeneralThanTarget(source, target);
+                break;
+            }
+            case SYNONYM: {
+                result = senseMatcher.isSourceSynonymTarget(source, target);
+                break;
+            }
+            default: {
+                result = senseMatcher.isSourceOppositeToTarget(source, target);
+                break;
+            }
+        }
+        final int bits = relation | (result ? relation << 4 : 0);
+        if (null == entry) {
+            final Entry added = new Entry(key, bits);
+            entry = pairs.putIfAbsent(added, added, ENTRY_BYTES);
+        }
+        entry.add(bits);
+        return result;
+    }
+
+    /**
+     * Checks whether the ancestor is among the ancestors of the sense.
+     */
+    private boolean isAncestor(ISense ancestor, ISense sense) throws SenseMatcherException {
+        return 0 <= Arrays.binarySearch(getAncestors(sense), ancestor.getId());
+    }
+
+    private String[] getAncestors(ISense sense) throws SenseMatcherException {
+        String[] result = ancestors.get(sense.getId());
+        if (null == result) {
+            final Set<String> seen = new HashSet<>();
+            final ArrayDeque<ISense> queue = new ArrayDeque<>();
+            queue.add(sense);
+            try {
+                while (!queue.isEmpty()) {
+                    for (ISense parent : queue.pollFirst().getParents()) {
+                        if (seen.add(parent.getId())) {
+                            queue.addLast(parent);
+                        }
+                    }
+                }
+            } catch (LinguisticOracleException e) {
+                throw new SenseMatcherException(e.getClass().getSimpleName() + ": " + e.getMessage(), e);
+            }
+            result = seen.toArray(new String[seen.size()]);
+            Arrays.sort(result);
+            long bytes = 40 + 2L * sense.getId().length() + 16 + 8L * result.length;
+            for (String id : result) {
+                bytes += 40 + 2L * id.length();
+            }
+            result = ancestors.putIfAbsent(sense.getId(), result, bytes);
+        }
+        return result;
+    }
+
+    private static void addSenseIds(List<ISense> senses, Collection<String> keys) {
+        if (null != senses) {
+            for (ISense sense : senses) {
+                keys.add(sense.getId());
+            }
+        }
+    }
+
+    private int senseNumber(String id) {
+        return senseIds.intern(id, 40 + 2L * id.length());
+    }
+
+    private int senseListNumber(List<ISense> senses) {
+        final SenseList probe = probes.get();
+        probe.set(senses);
+        final int result = senseListIds.find(probe);
+        if (Interner.NONE != result) {
+            return result;
+        }
+        return senseListIds.add(probe.copy(), probe.bytes());
+    }
+}
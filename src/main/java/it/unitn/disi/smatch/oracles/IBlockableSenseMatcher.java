@@ -0,0 +1,39 @@
+package it.unitn.disi.smatch.oracles;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Interface for sense matchers which tell which sets of senses can not match, so that element matching can
+ * skip them. The matcher returns IDK for a source and a target sets of senses which have no key in common.
+ * If the blocking is not exact, the matcher may miss some relations when used with blocking.
+ *
+ * @author <a rel="author" href="http://autayeu.com/">Aliaksandr Autayeu</a>
+ */
+public interface IBlockableSenseMatcher extends ISenseMatcher {
+
+    /**
+     * Returns whether the matcher returns IDK for all source and target sets of senses without common keys.
+     *
+     * @return whether the blocking is exact
+     */
+    boolean isExactBlocking();
+
+    /**
+     * Adds the keys of the source set of senses.
+     *
+     * @param sourceSenses source set of senses
+     * @param keys         keys to add to
+     */
+    void addSourceKeys(List<ISense> sourceSenses, Collection<String> keys);
+
+    /**
+     * Adds the keys of the target set of senses.
+     *
+     * @param targetSenses target set of senses
+     * @param keys         keys to add to
+     */
+    void addTargetKeys(List<ISense> targetSenses, Collection<String> keys);
+}
@@ -1,5 +1,6 @@
 package it.unitn.disi.smatch.oracles;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import it.unitn.disi.smatch.data.ling.ZeroSense;
@@ -16,7 +17,7 @@ import it.unitn.disi.smatch.oracles.SenseMatcherException;
  * @since 2.0.0
  * @author <a rel="author" href="http://davidleoni.it/">David Leoni</a>
  */
-public class ZeroLinguisticOracle implements ILinguisticOracle, ISenseMatcher {      
+public class ZeroLinguisticOracle implements ILinguisticOracle, IBlockableSenseMatcher {      
 
     public ZeroLinguisticOracle(){                
     }
@@ -74,4 +75,20 @@ public class ZeroLinguisticOracle implements ILinguisticOracle, ISenseMatcher {
     public boolean isSourceOppositeToTarget(ISense source, ISense target) throws SenseMatcherException {
         return false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Never finds relations, so no senses need to be compared.
+     */
+    @Override
+    public boolean isExactBlocking() {
+        return true;
+    }
+
+    @Override
+    public void addSourceKeys(List<ISense> sourceSenses, Collection<String> keys) {
+    }
+
+    @Override
+    public void addTargetKeys(List<ISense> targetSenses, Collection<String> keys) {
+    }
+}
@@ -3,7 +3,9 @@ package it.unitn.disi.smatch.test.data.trees;
 import static org.junit.Assert.assertEquals;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -46,5 +48,63 @@ public class NodeTest {
         assertEquals(0, nodeA.getChildCount());
         
     }
-    
+
+    /**
+     * Checks cached ancestor and descendant counts against traversals after random tree changes.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testCounts() {
+        Random random = new Random(3);
+        List<INode> nodes = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            nodes.add(new Node("n" + i));
+        }
+        for (int step = 0; step < 3000; step++) {
+            INode node = nodes.get(random.nextInt(nodes.size()));
+            INode other = nodes.get(random.nextInt(nodes.size()));
+            switch (random.nextInt(6)) {
+                case 0:
+                case 1:
+                    try {
+                        if (other != node.getParent()) {
+                            other.addChild(random.nextInt(other.getChildCount() + 1), node);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        // node is an ancestor of other
+                    }
+                    break;
+                case 2:
+                    if (0 < node.getChildCount()) {
+                        node.removeChild(random.nextInt(node.getChildCount()));
+                    }
+                    break;
+                case 3:
+                    node.removeFromParent();
+                    break;
+                case 4:
+                    if (0 < node.getChildCount()) {
+                        node.setChildren(new ArrayList<>(node.getChildren().subList(0, random.nextInt(node.getChildCount()))));
+                    }
+                    break;
+                default:
+                    nodes.add(node.createChild());
+                    break;
+            }
+
+            for (INode n : nodes) {
+                int ancestors = 0;
+                for (Iterator<INode> i = n.ancestorsIterator(); i.hasNext(); i.next()) {
+                    ancestors++;
+                }
+                int descendants = 0;
+                for (Iterator<INode> i = n.descendantsIterator(); i.hasNext(); i.next()) {
+                    descendants++;
+                }
+                assertEquals(ancestors, n.ancestorCount());
+                assertEquals(descendants, n.descendantCount());
+            }
+        }
+    }
 }
@@ -0,0 +1,171 @@
+package it.unitn.disi.smatch.test.deciders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import it.unitn.disi.smatch.deciders.BaseSATSolver;
+import it.unitn.disi.smatch.deciders.CDCLSolver;
+import it.unitn.disi.smatch.deciders.CNFBuilder;
+import it.unitn.disi.smatch.deciders.ICNFSATSolver;
+import it.unitn.disi.smatch.deciders.ISATSession;
+import it.unitn.disi.smatch.deciders.SATSolverException;
+import it.unitn.disi.smatch.deciders.SolverSession;
+
+/**
+ * Checks CDCLSolver against brute force enumeration on random small problems.
+ *
+ * @since 2.0.0
+ */
+public class CDCLSolverTest {
+
+    /**
+     * Random problems of various shapes, including empty and unit clauses, duplicate literals and tautologies.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testRandomProblems() throws SATSolverException {
+        Random random = new Random(42);
+        ICNFSATSolver solver = new CDCLSolver();
+        CNFBuilder problem = new CNFBuilder();
+        int satisfiable = 0;
+        for (int i = 0; i < 3000; i++) {
+            int variables = 1 + random.nextInt(12);
+            int clauses = random.nextInt(5 * variables);
+            randomProblem(random, variables, clauses, 1 + random.nextInt(4), problem);
+            boolean expected = bruteForce(problem);
+            if (expected) {
+                satisfiable++;
+            }
+            assertEquals(problem.toDIMACS(), expected, solver.isSatisfiable(problem));
+            assertEquals(problem.toDIMACS(), expected, solver.isSatisfiable(problem.toDIMACS()));
+        }
+        // both answers should be well represented
+        assertTrue(300 < satisfiable && satisfiable < 2700);
+    }
+
+    /**
+     * Random 3-SAT problems around the satisfiability threshold, which take many conflicts and restarts.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testHardProblems() throws SATSolverException {
+        Random random = new Random(7);
+        ICNFSATSolver solver = new CDCLSolver();
+        CNFBuilder problem = new CNFBuilder();
+        for (int i = 0; i < 200; i++) {
+            int variables = 14 + random.nextInt(4);
+            randomProblem(random, variables, (int) (4.26 * variables), 3, problem);
+            assertEquals(problem.toDIMACS(), bruteForce(problem), solver.isSatisfiable(problem));
+        }
+    }
+
+    /**
+     * Sessions with clauses added in nested groups and checks under random assumptions, compared with brute force
+     * on the clauses of open groups with assumptions added as unit clauses.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testSession() throws SATSolverException {
+        ICNFSATSolver solver = new CDCLSolver();
+        checkSession(solver.newSession(), new Random(11));
+        checkSession(new SolverSession(solver), new Random(11));
+    }
+
+    private static void checkSession(ISATSession session, Random random) throws SATSolverException {
+        CNFBuilder batch = new CNFBuilder();
+        CNFBuilder check = new CNFBuilder();
+        List<CNFBuilder> groups = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            session.clear();
+            groups.clear();
+            groups.add(new CNFBuilder());
+            int variables = 2 + random.nextInt(10);
+            for (int step = 0; step < 12; step++) {
+                int operation = random.nextInt(3);
+                if (0 == operation) {
+                    session.push();
+                    groups.add(new CNFBuilder());
+                } else if (1 == operation && 1 < groups.size()) {
+                    session.pop();
+                    groups.remove(groups.size() - 1);
+                }
+                randomProblem(random, variables, random.nextInt(variables), 3, batch);
+                session.addClauses(batch);
+                groups.get(groups.size() - 1).addClauses(batch);
+
+                int[] assumptions = new int[random.nextInt(3)];
+                check.clear();
+                for (CNFBuilder group : groups) {
+                    check.addClauses(group);
+                }
+                for (int a = 0; a < assumptions.length; a++) {
+                    int variable = 1 + random.nextInt(variables);
+                    assumptions[a] = random.nextBoolean() ? variable : -variable;
+                    check.addClause(assumptions[a]);
+                }
+                assertEquals(check.toDIMACS(), bruteForce(check), session.isSatisfiable(assumptions));
+            }
+        }
+    }
+
+    /**
+     * DIMACS input with comments, problem line and unused variables.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testDIMACS() throws SATSolverException {
+        ICNFSATSolver solver = new CDCLSolver();
+        assertTrue(solver.isSatisfiable("c comment\np cnf 5 2\n1 -2 0\n2 0\n"));
+        assertFalse(solver.isSatisfiable("p cnf 2 4\n1 2 0\n-1 2 0\n1 -2 0\n-1 -2 0\n"));
+        assertFalse(solver.isSatisfiable("p cnf 1 1\n0\n"));
+        assertTrue(solver.isSatisfiable("p cnf 0 0\n"));
+        assertTrue(BaseSATSolver.toDIMACS(new CNFBuilder()).startsWith("p cnf 0 0"));
+    }
+
+    private static void randomProblem(Random random, int variables, int clauses, int maxWidth, CNFBuilder result) {
+        result.clear();
+        result.setVariableCount(variables);
+        for (int c = 0; c < clauses; c++) {
+            int width = 1 == maxWidth ? 1 : 1 + random.nextInt(maxWidth);
+            if (0 == random.nextInt(200)) {
+                width = 0;
+            }
+            for (int l = 0; l < width; l++) {
+                int variable = 1 + random.nextInt(variables);
+                result.addLiteral(random.nextBoolean() ? variable : -variable);
+            }
+            result.endClause();
+        }
+    }
+
+    private static boolean bruteForce(CNFBuilder problem) {
+        final int variables = problem.getVariableCount();
+        for (long assignment = 0; assignment < (1L << variables); assignment++) {
+            boolean satisfied = true;
+            for (int c = 0; c < problem.getClauseCount() && satisfied; c++) {
+                boolean clause = false;
+                for (int l = 0; l < problem.getClauseSize(c) && !clause; l++) {
+                    int literal = problem.getLiteral(c, l);
+                    boolean value = 0 != (assignment & (1L << (Math.abs(literal) - 1)));
+                    clause = 0 < literal ? value : !value;
+                }
+                satisfied = clause;
+            }
+            if (satisfied) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,165 @@
+package it.unitn.disi.smatch.test.deciders;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import it.unitn.disi.smatch.deciders.CDCLSolver;
+import it.unitn.disi.smatch.deciders.CNFBuilder;
+import it.unitn.disi.smatch.deciders.ClassifyingSolver;
+import it.unitn.disi.smatch.deciders.ISATSolver;
+import it.unitn.disi.smatch.deciders.SATSolverException;
+
+/**
+ * Checks ClassifyingSolver against CDCLSolver on random problems of each fragment it recognizes and on problems
+ * it passes to the underlying solver.
+ *
+ * @since 2.0.0
+ */
+public class ClassifyingSolverTest {
+
+    private static final int PROBLEMS = 2000;
+
+    // kinds of random problems
+    private static final int TWO_SAT = 0;
+    private static final int HORN = 1;
+    private static final int DUAL_HORN = 2;
+    private static final int GENERAL = 3;
+
+    /**
+     * Counts the problems which reach the underlying solver, which takes DIMACS only.
+     */
+    private static final class CountingSolver implements ISATSolver {
+        final CDCLSolver solver = new CDCLSolver();
+        int calls;
+
+        public boolean isSatisfiable(String input) throws SATSolverException {
+            calls++;
+            return solver.isSatisfiable(input);
+        }
+    }
+
+    /**
+     * Problems where no clause has more than two literals.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testTwoSAT() throws SATSolverException {
+        CountingSolver fallback = new CountingSolver();
+        ClassifyingSolver solver = new ClassifyingSolver(fallback);
+        check(solver, TWO_SAT, new Random(1));
+        assertEquals(2 * PROBLEMS, solver.getTwoSATCount());
+        assertEquals(0, solver.getGeneralCount());
+        assertEquals(0, fallback.calls);
+    }
+
+    /**
+     * Problems where no clause has more than one positive literal.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testHorn() throws SATSolverException {
+        CountingSolver fallback = new CountingSolver();
+        ClassifyingSolver solver = new ClassifyingSolver(fallback);
+        check(solver, HORN, new Random(2));
+        assertEquals(2 * PROBLEMS, solver.getHornCount());
+        assertEquals(0, solver.getGeneralCount());
+        assertEquals(0, fallback.calls);
+    }
+
+    /**
+     * Problems where no clause has more than one negative literal.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testDualHorn() throws SATSolverException {
+        CountingSolver fallback = new CountingSolver();
+        ClassifyingSolver solver = new ClassifyingSolver(fallback);
+        check(solver, DUAL_HORN, new Random(3));
+        assertEquals(2 * PROBLEMS, solver.getDualHornCount());
+        assertEquals(0, solver.getGeneralCount());
+        assertEquals(0, fallback.calls);
+    }
+
+    /**
+     * Problems outside the known fragments, passed to the underlying solver, both as DIMACS and as CNF.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testFallback() throws SATSolverException {
+        CountingSolver fallback = new CountingSolver();
+        ClassifyingSolver solver = new ClassifyingSolver(fallback);
+        check(solver, GENERAL, new Random(4));
+        assertEquals(2 * PROBLEMS, solver.getGeneralCount());
+        assertEquals(2 * PROBLEMS, fallback.calls);
+        assertEquals(0, solver.getTwoSATCount() + solver.getHornCount() + solver.getDualHornCount());
+    }
+
+    private static void check(ClassifyingSolver solver, int kind, Random random) throws SATSolverException {
+        CDCLSolver reference = new CDCLSolver();
+        CNFBuilder problem = new CNFBuilder();
+        int satisfiable = 0;
+        for (int i = 0; i < PROBLEMS; i++) {
+            int variables = 1 + random.nextInt(15);
+            randomProblem(random, kind, variables, random.nextInt(4 * variables), problem);
+            boolean expected = reference.isSatisfiable(problem);
+            if (expected) {
+                satisfiable++;
+            }
+            assertEquals(problem.toDIMACS(), expected, solver.isSatisfiable(problem));
+            assertEquals(problem.toDIMACS(), expected, solver.isSatisfiable(problem.toDIMACS()));
+        }
+        // both answers should be represented
+        assertTrue(0 < satisfiable && satisfiable < PROBLEMS);
+    }
+
+    /**
+     * Generates a problem of the kind. Horn, dual Horn and general problems get a wide clause which keeps them
+     * out of the fragments checked before.
+     */
+    private static void randomProblem(Random random, int kind, int variables, int clauses, CNFBuilder result) {
+        result.clear();
+        result.setVariableCount(variables);
+        if (HORN == kind) {
+            addClause(random, variables, 1, 2, result);
+        } else if (DUAL_HORN == kind) {
+            addClause(random, variables, 2, 1, result);
+        } else if (GENERAL == kind) {
+            addClause(random, variables, 2, 2, result);
+        }
+        for (int c = 0; c < clauses; c++) {
+            if (0 == random.nextInt(200)) {
+                result.endClause();
+                continue;
+            }
+            int width = 1 + random.nextInt(TWO_SAT == kind ? 2 : 4);
+            int positives;
+            if (HORN == kind) {
+                positives = random.nextInt(2);
+            } else if (DUAL_HORN == kind) {
+                positives = width - random.nextInt(2);
+            } else {
+                positives = random.nextInt(width + 1);
+            }
+            positives = Math.min(positives, width);
+            addClause(random, variables, positives, width - positives, result);
+        }
+    }
+
+    private static void addClause(Random random, int variables, int positives, int negatives, CNFBuilder result) {
+        for (int l = 0; l < positives; l++) {
+            result.addLiteral(1 + random.nextInt(variables));
+        }
+        for (int l = 0; l < negatives; l++) {
+            result.addLiteral(-1 - random.nextInt(variables));
+        }
+        result.endClause();
+    }
+}
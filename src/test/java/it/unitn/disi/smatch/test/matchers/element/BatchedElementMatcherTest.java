@@ -0,0 +1,141 @@
+package it.unitn.disi.smatch.test.matchers.element;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.HashMapping;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.matchers.element.BatchedElementMatcher;
+import it.unitn.disi.smatch.matchers.element.ElementMatcher;
+import it.unitn.disi.smatch.matchers.element.ElementMatcherException;
+import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.string.EditDistance;
+import it.unitn.disi.smatch.matchers.element.string.Prefix;
+import it.unitn.disi.smatch.matchers.element.string.Suffix;
+import it.unitn.disi.smatch.oracles.ZeroLinguisticOracle;
+
+/**
+ * Checks BatchedElementMatcher against ElementMatcher on generated contexts.
+ *
+ * @since 2.0.0
+ */
+public class BatchedElementMatcherTest {
+
+    private static final String[] LEMMAS = {"car", "cars", "card", "motorcar", "sportscar", "bus", "buses",
+            "autobus", "house", "houses", "greenhouse", "course", "courses", "discourse", "mouse"};
+
+    private static final List<IStringBasedElementLevelSemanticMatcher> STRING_MATCHERS =
+            Arrays.<IStringBasedElementLevelSemanticMatcher>asList(new Prefix(), new Suffix(), new EditDistance());
+
+    /**
+     * Blocks smaller than the contexts, so that several tasks write into the mapping.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testEquivalence() throws ElementMatcherException {
+        Random random = new Random(42);
+        ZeroLinguisticOracle oracle = new ZeroLinguisticOracle();
+        HashMapping<IAtomicConceptOfLabel> mappingFactory = new HashMapping<>();
+        ElementMatcher expectedMatcher = new ElementMatcher(mappingFactory, oracle, true, STRING_MATCHERS, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 20; i++) {
+                IContext source = randomContext(random, 1 + random.nextInt(30));
+                IContext target = randomContext(random, 1 + random.nextInt(30));
+                BatchedElementMatcher matcher = new BatchedElementMatcher(mappingFactory, oracle, true,
+                        STRING_MATCHERS, null, null, executor, 1 + random.nextInt(8));
+
+                IContextMapping<IAtomicConceptOfLabel> expected = expectedMatcher.elementLevelMatching(source, target);
+                IContextMapping<IAtomicConceptOfLabel> actual = matcher.elementLevelMatching(source, target);
+                assertEquals(expected.size(), actual.size());
+                for (IAtomicConceptOfLabel sourceConcept : concepts(source)) {
+                    for (IAtomicConceptOfLabel targetConcept : concepts(target)) {
+                        assertEquals(expected.getRelation(sourceConcept, targetConcept),
+                                actual.getRelation(sourceConcept, targetConcept));
+                    }
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * An executor which rejects some blocks should fail the matching instead of leaving it waiting for them.
+     *
+     * @since 2.0.0
+     */
+    @Test(timeout = 10000)
+    public void testRejectedExecution() {
+        Random random = new Random(7);
+        HashMapping<IAtomicConceptOfLabel> mappingFactory = new HashMapping<>();
+        // runs the first blocks in the calling thread and rejects the rest
+        Executor executor = new Executor() {
+            private int count;
+
+            @Override
+            public void execute(Runnable command) {
+                if (3 <= count++) {
+                    throw new RejectedExecutionException("Executor is full");
+                }
+                command.run();
+            }
+        };
+        BatchedElementMatcher matcher = new BatchedElementMatcher(mappingFactory, new ZeroLinguisticOracle(), true,
+                STRING_MATCHERS, null, null, executor, 1);
+        try {
+            matcher.elementLevelMatching(randomContext(random, 10), randomContext(random, 10));
+            fail("Rejected blocks should fail the matching");
+        } catch (ElementMatcherException e) {
+            assertEquals(RejectedExecutionException.class, e.getCause().getClass());
+        }
+    }
+
+    /**
+     * Generates a tree with concepts having lemmas which are prefixes, suffixes and misspellings of each other.
+     */
+    private static IContext randomContext(Random random, int size) {
+        Context context = new Context();
+        List<INode> nodes = new ArrayList<>();
+        nodes.add(context.createRoot("root"));
+        for (int i = 1; i < size; i++) {
+            nodes.add(nodes.get(random.nextInt(nodes.size())).createChild("node" + i));
+        }
+        for (INode node : nodes) {
+            int concepts = random.nextInt(3);
+            for (int i = 0; i < concepts; i++) {
+                IAtomicConceptOfLabel concept = node.nodeData().createConcept();
+                concept.setId(i);
+                concept.setLemma(LEMMAS[random.nextInt(LEMMAS.length)]);
+                concept.setToken(concept.getLemma());
+                node.nodeData().getConcepts().add(concept);
+            }
+        }
+        return context;
+    }
+
+    private static List<IAtomicConceptOfLabel> concepts(IContext context) {
+        List<IAtomicConceptOfLabel> result = new ArrayList<>();
+        for (Iterator<INode> i = context.nodeIterator(); i.hasNext(); ) {
+            result.addAll(i.next().nodeData().getConcepts());
+        }
+        return result;
+    }
+}
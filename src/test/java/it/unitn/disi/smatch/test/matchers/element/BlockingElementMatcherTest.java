@@ -0,0 +1,144 @@
+package it.unitn.disi.smatch.test.matchers.element;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.HashMapping;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.matchers.element.BlockingElementMatcher;
+import it.unitn.disi.smatch.matchers.element.ElementMatcher;
+import it.unitn.disi.smatch.matchers.element.ElementMatcherException;
+import it.unitn.disi.smatch.matchers.element.IStringBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.string.EditDistance;
+import it.unitn.disi.smatch.matchers.element.string.EditDistanceOptimized;
+import it.unitn.disi.smatch.matchers.element.string.GPrefix;
+import it.unitn.disi.smatch.matchers.element.string.GSuffix;
+import it.unitn.disi.smatch.matchers.element.string.NGram;
+import it.unitn.disi.smatch.matchers.element.string.Prefix;
+import it.unitn.disi.smatch.matchers.element.string.Suffix;
+import it.unitn.disi.smatch.matchers.element.string.Synonym;
+import it.unitn.disi.smatch.oracles.CachingSenseMatcher;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import it.unitn.disi.smatch.oracles.ZeroLinguisticOracle;
+
+/**
+ * Checks that the exact blocking of BlockingElementMatcher produces the same mapping as ElementMatcher.
+ *
+ * @since 2.0.0
+ */
+public class BlockingElementMatcherTest {
+
+    private static final String[] LEMMAS = {"car", "cars", "card", "motorcar", "sportscar", "bus", "buses",
+            "autobus", "house", "houses", "greenhouse", "course", "courses", "discourse", "mouse"};
+
+    /**
+     * All string matchers which can be blocked exactly, each on its own and all together.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testExactBlocking() throws ElementMatcherException {
+        List<IStringBasedElementLevelSemanticMatcher> matchers = Arrays.<IStringBasedElementLevelSemanticMatcher>asList(
+                new Synonym(), new Prefix(), new Suffix(), new GPrefix(), new GSuffix(), new NGram(),
+                new EditDistance(), new EditDistanceOptimized());
+        Random random = new Random(42);
+        for (IStringBasedElementLevelSemanticMatcher matcher : matchers) {
+            check(random, new ZeroLinguisticOracle(), Arrays.asList(matcher));
+        }
+        check(random, new ZeroLinguisticOracle(), matchers);
+        // the caching sense matcher forwards the blocking
+        check(random, new CachingSenseMatcher(new ZeroLinguisticOracle()), matchers);
+    }
+
+    /**
+     * Matchers which can not be blocked exactly make the matcher match all concepts.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testFallback() throws ElementMatcherException {
+        IStringBasedElementLevelSemanticMatcher firstLetter = new IStringBasedElementLevelSemanticMatcher() {
+            @Override
+            public char match(String str1, String str2) {
+                return str1.charAt(0) == str2.charAt(0) ? IMappingElement.EQUIVALENCE : IMappingElement.IDK;
+            }
+        };
+        Random random = new Random(7);
+        check(random, new ZeroLinguisticOracle(), Arrays.asList(firstLetter, new Prefix()));
+        // the sense matcher does not tell which senses can not match
+        ISenseMatcher senseMatcher = new ZeroLinguisticOracle() {
+            @Override
+            public boolean isExactBlocking() {
+                return false;
+            }
+        };
+        check(random, senseMatcher, Arrays.<IStringBasedElementLevelSemanticMatcher>asList(new Prefix()));
+        check(random, new CachingSenseMatcher(senseMatcher),
+                Arrays.<IStringBasedElementLevelSemanticMatcher>asList(new Prefix()));
+    }
+
+    private static void check(Random random, ISenseMatcher senseMatcher,
+                              List<IStringBasedElementLevelSemanticMatcher> stringMatchers) throws ElementMatcherException {
+        HashMapping<IAtomicConceptOfLabel> mappingFactory = new HashMapping<>();
+        ElementMatcher expectedMatcher = new ElementMatcher(mappingFactory, senseMatcher, true, stringMatchers, null);
+        BlockingElementMatcher matcher = new BlockingElementMatcher(mappingFactory, senseMatcher, true,
+                stringMatchers, null, null, false);
+        for (int i = 0; i < 5; i++) {
+            IContext source = randomContext(random, 1 + random.nextInt(15));
+            IContext target = randomContext(random, 1 + random.nextInt(15));
+            IContextMapping<IAtomicConceptOfLabel> expected = expectedMatcher.elementLevelMatching(source, target);
+            IContextMapping<IAtomicConceptOfLabel> actual = matcher.elementLevelMatching(source, target);
+            assertEquals(expected.size(), actual.size());
+            for (IAtomicConceptOfLabel sourceConcept : concepts(source)) {
+                for (IAtomicConceptOfLabel targetConcept : concepts(target)) {
+                    assertEquals(sourceConcept.getLemma() + " " + targetConcept.getLemma(),
+                            expected.getRelation(sourceConcept, targetConcept),
+                            actual.getRelation(sourceConcept, targetConcept));
+                }
+            }
+        }
+    }
+
+    /**
+     * Generates a tree with concepts having lemmas which are prefixes, suffixes and misspellings of each other.
+     */
+    private static IContext randomContext(Random random, int size) {
+        Context context = new Context();
+        List<INode> nodes = new ArrayList<>();
+        nodes.add(context.createRoot("root"));
+        for (int i = 1; i < size; i++) {
+            nodes.add(nodes.get(random.nextInt(nodes.size())).createChild("node" + i));
+        }
+        for (INode node : nodes) {
+            int concepts = random.nextInt(3);
+            for (int i = 0; i < concepts; i++) {
+                IAtomicConceptOfLabel concept = node.nodeData().createConcept();
+                concept.setId(i);
+                concept.setLemma(LEMMAS[random.nextInt(LEMMAS.length)]);
+                concept.setToken(concept.getLemma());
+                node.nodeData().getConcepts().add(concept);
+            }
+        }
+        return context;
+    }
+
+    private static List<IAtomicConceptOfLabel> concepts(IContext context) {
+        List<IAtomicConceptOfLabel> result = new ArrayList<>();
+        for (Iterator<INode> i = context.nodeIterator(); i.hasNext(); ) {
+            result.addAll(i.next().nodeData().getConcepts());
+        }
+        return result;
+    }
+}
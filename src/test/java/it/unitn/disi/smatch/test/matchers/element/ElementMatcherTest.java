@@ -0,0 +1,176 @@
+package it.unitn.disi.smatch.test.matchers.element;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.ling.Sense;
+import it.unitn.disi.smatch.data.mappings.HashMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.matchers.element.ElementMatcher;
+import it.unitn.disi.smatch.matchers.element.ElementMatcherException;
+import it.unitn.disi.smatch.matchers.element.IBatchedSenseGlossMatcher;
+import it.unitn.disi.smatch.matchers.element.ISenseGlossBasedElementLevelSemanticMatcher;
+import it.unitn.disi.smatch.matchers.element.gloss.WNGloss;
+import it.unitn.disi.smatch.matchers.element.gloss.WNGlossComparison;
+import it.unitn.disi.smatch.matchers.element.gloss.WNLemma;
+import it.unitn.disi.smatch.oracles.ZeroLinguisticOracle;
+
+/**
+ * Checks how ElementMatcher asks sense and gloss based matchers about the senses of two concepts.
+ *
+ * @since 2.0.0
+ */
+public class ElementMatcherTest {
+
+    private static final String[] WORDS = {"car", "auto", "vehicle", "wheel", "the", "of", "motor", "road", "bus"};
+
+    /**
+     * A sense with a gloss and lemmas.
+     */
+    private static final class TestSense extends Sense {
+        private final String gloss;
+        private final List<String> lemmas;
+
+        TestSense(String id, String gloss, String... lemmas) {
+            super(id);
+            this.gloss = gloss;
+            this.lemmas = Arrays.asList(lemmas);
+        }
+
+        @Override
+        public String getGloss() {
+            return gloss;
+        }
+
+        @Override
+        public List<String> getLemmas() {
+            return lemmas;
+        }
+    }
+
+    /**
+     * Relates only the senses with the same id, pair by pair.
+     */
+    private static final class SameIdMatcher implements ISenseGlossBasedElementLevelSemanticMatcher {
+        @Override
+        public char match(ISense source, ISense target) {
+            return source.getId().equals(target.getId()) ? IMappingElement.EQUIVALENCE : IMappingElement.IDK;
+        }
+    }
+
+    /**
+     * Tells disjoint senses by their ids, overriding only the pair method of a batched matcher.
+     */
+    private static final class DisjointLemma extends WNLemma {
+        @Override
+        public char match(ISense source, ISense target) throws ElementMatcherException {
+            return source.getId().equals("not " + target.getId()) ? IMappingElement.DISJOINT : super.match(source, target);
+        }
+    }
+
+    /**
+     * A relation between senses other than the first ones should be found. The loop over sense pairs used to
+     * return the answer about the first pair.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testAllSensePairs() throws ElementMatcherException {
+        List<ISense> sourceSenses = Arrays.<ISense>asList(new TestSense("a", ""), new TestSense("b", ""));
+        List<ISense> targetSenses = Arrays.<ISense>asList(new TestSense("c", ""), new TestSense("b", ""));
+        assertEquals(IMappingElement.EQUIVALENCE, match(new SameIdMatcher(), sourceSenses, targetSenses));
+        assertEquals(IMappingElement.IDK, match(new SameIdMatcher(), sourceSenses, Collections.<ISense>emptyList()));
+
+        List<ISense> sourceLemmas = Arrays.<ISense>asList(new TestSense("a", "", "car"), new TestSense("b", "", "bus"));
+        List<ISense> targetLemmas = Arrays.<ISense>asList(new TestSense("c", "", "auto"), new TestSense("d", "", "bus"));
+        assertEquals(IMappingElement.EQUIVALENCE, match(new WNLemma(), sourceLemmas, targetLemmas));
+    }
+
+    /**
+     * A subclass overriding only the pair method of a batched matcher should be asked pair by pair.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testOverriddenPairMatch() throws ElementMatcherException {
+        List<ISense> sourceSenses = Arrays.<ISense>asList(new TestSense("a", "", "car"), new TestSense("not b", "", "bus"));
+        List<ISense> targetSenses = Arrays.<ISense>asList(new TestSense("b", "", "auto"));
+        assertEquals(IMappingElement.DISJOINT, match(new DisjointLemma(), sourceSenses, targetSenses));
+        assertEquals(IMappingElement.IDK, match(new WNLemma(), sourceSenses, targetSenses));
+    }
+
+    /**
+     * The batched methods of the gloss matchers should agree with asking their pair methods about each pair in turn.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testBatchedMatchers() throws ElementMatcherException {
+        Random random = new Random(42);
+        List<IBatchedSenseGlossMatcher> matchers = Arrays.<IBatchedSenseGlossMatcher>asList(
+                new WNLemma(), new WNGloss(), new WNGloss(2), new WNGlossComparison(), new WNGlossComparison(1));
+        for (int i = 0; i < 2000; i++) {
+            List<ISense> sourceSenses = randomSenses(random);
+            List<ISense> targetSenses = randomSenses(random);
+            for (IBatchedSenseGlossMatcher matcher : matchers) {
+                char expected = IMappingElement.IDK;
+                for (int s = 0; s < sourceSenses.size() && IMappingElement.IDK == expected; s++) {
+                    for (int t = 0; t < targetSenses.size() && IMappingElement.IDK == expected; t++) {
+                        expected = matcher.match(sourceSenses.get(s), targetSenses.get(t));
+                    }
+                }
+                assertEquals(matcher.getClass().getSimpleName(), expected, matcher.match(sourceSenses, targetSenses));
+            }
+        }
+    }
+
+    /**
+     * Matches two concepts with the senses using only the matcher.
+     */
+    private static char match(ISenseGlossBasedElementLevelSemanticMatcher matcher,
+                              List<ISense> sourceSenses, List<ISense> targetSenses) throws ElementMatcherException {
+        IContext source = new Context();
+        IAtomicConceptOfLabel sourceConcept = addConcept(source, sourceSenses);
+        IContext target = new Context();
+        IAtomicConceptOfLabel targetConcept = addConcept(target, targetSenses);
+        ElementMatcher elementMatcher = new ElementMatcher(new HashMapping<IAtomicConceptOfLabel>(),
+                new ZeroLinguisticOracle(), true, null,
+                Arrays.<ISenseGlossBasedElementLevelSemanticMatcher>asList(matcher));
+        return elementMatcher.elementLevelMatching(source, target).getRelation(sourceConcept, targetConcept);
+    }
+
+    private static IAtomicConceptOfLabel addConcept(IContext context, List<ISense> senses) {
+        IAtomicConceptOfLabel concept = context.createRoot("root").nodeData().createConcept();
+        concept.setId(0);
+        concept.setSenses(new ArrayList<>(senses));
+        context.getRoot().nodeData().getConcepts().add(concept);
+        return concept;
+    }
+
+    private static List<ISense> randomSenses(Random random) {
+        List<ISense> result = new ArrayList<>();
+        for (int i = random.nextInt(4); i > 0; i--) {
+            StringBuilder gloss = new StringBuilder();
+            for (int w = random.nextInt(6); w > 0; w--) {
+                gloss.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextBoolean() ? " " : ", ");
+            }
+            String[] lemmas = new String[random.nextInt(3)];
+            for (int l = 0; l < lemmas.length; l++) {
+                lemmas[l] = WORDS[random.nextInt(WORDS.length)];
+            }
+            result.add(new TestSense("s" + random.nextInt(1000), gloss.toString(), lemmas));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,269 @@
+package it.unitn.disi.smatch.test.matchers.element.gloss;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.StringTokenizer;
+
+import org.junit.Test;
+
+import it.unitn.disi.smatch.data.ling.ISense;
+import it.unitn.disi.smatch.data.ling.Sense;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.matchers.element.ElementMatcherException;
+import it.unitn.disi.smatch.matchers.element.gloss.BaseGlossMatcher;
+import it.unitn.disi.smatch.matchers.element.gloss.WNExtendedSemanticGlossComparison;
+import it.unitn.disi.smatch.oracles.ILinguisticOracle;
+import it.unitn.disi.smatch.oracles.ISenseMatcher;
+import it.unitn.disi.smatch.oracles.LinguisticOracleException;
+import it.unitn.disi.smatch.oracles.ZeroLinguisticOracle;
+
+/**
+ * Checks WNExtendedSemanticGlossComparison against comparing the glosses word by word, as the matcher did before
+ * it kept the word relations in bitsets.
+ *
+ * @since 2.0.0
+ */
+public class WNExtendedSemanticGlossComparisonTest {
+
+    private static final String[] WORDS = {"dog", "cat", "the", "of", "animal", "pet", "a", "house", "run", "big",
+            "small", "red", "Dog", "The", "x;y"};
+
+    /**
+     * A sense with a gloss, parents and children.
+     */
+    private static final class TestSense extends Sense {
+        private final String gloss;
+        private final List<ISense> parents;
+        private final List<ISense> children;
+
+        TestSense(String id, String gloss, List<ISense> parents, List<ISense> children) {
+            super(id);
+            this.gloss = gloss;
+            this.parents = parents;
+            this.children = children;
+        }
+
+        @Override
+        public String getGloss() {
+            return gloss;
+        }
+
+        @Override
+        public List<ISense> getParents(int depth) {
+            return parents;
+        }
+
+        @Override
+        public List<ISense> getChildren(int depth) {
+            return children;
+        }
+    }
+
+    /**
+     * Gives each word one or two senses.
+     */
+    private static final class TestOracle extends ZeroLinguisticOracle {
+        @Override
+        public List<ISense> getSenses(String word) {
+            List<ISense> result = new ArrayList<>();
+            for (int i = 0; i <= (word.hashCode() & 1); i++) {
+                result.add(new TestSense(word + i, "", Collections.<ISense>emptyList(), Collections.<ISense>emptyList()));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Relates about a fifth of the sense pairs in each relation.
+     */
+    private static final class TestSenseMatcher extends ZeroLinguisticOracle {
+        private static boolean holds(ISense source, ISense target, int relation) {
+            return 0 == ((source.getId() + "|" + target.getId() + relation).hashCode() & 0x7fffffff) % 5;
+        }
+
+        @Override
+        public boolean isSourceMoreGeneralThanTarget(ISense source, ISense target) {
+            return holds(source, target, 1);
+        }
+
+        @Override
+        public boolean isSourceLessGeneralThanTarget(ISense source, ISense target) {
+            return holds(source, target, 2);
+        }
+
+        @Override
+        public boolean isSourceSynonymTarget(ISense source, ISense target) {
+            return holds(source, target, 3);
+        }
+
+        @Override
+        public boolean isSourceOppositeToTarget(ISense source, ISense target) {
+            return holds(source, target, 4);
+        }
+    }
+
+    /**
+     * Compares the glosses word by word, asking the relation of each pair of word occurrences.
+     */
+    private static class BaselineMatcher extends BaseGlossMatcher {
+        BaselineMatcher(ILinguisticOracle linguisticOracle, ISenseMatcher senseMatcher) {
+            super(linguisticOracle, senseMatcher);
+        }
+
+        char match(ISense source, ISense target) throws ElementMatcherException, LinguisticOracleException {
+            char lg = getRelationFromRels(IMappingElement.LESS_GENERAL,
+                    getDominantRelation(source.getGloss(), getExtendedGloss(target, 1, IMappingElement.LESS_GENERAL)));
+            char mg = getRelationFromRels(IMappingElement.MORE_GENERAL,
+                    getDominantRelation(source.getGloss(), getExtendedGloss(target, 1, IMappingElement.MORE_GENERAL)));
+            char result = IMappingElement.IDK;
+            if (mg == lg) {
+                result = mg;
+            }
+            if (mg == IMappingElement.IDK) {
+                result = lg;
+            }
+            if (lg == IMappingElement.IDK) {
+                result = mg;
+            }
+            return result;
+        }
+
+        private char getDominantRelation(String sourceGloss, String targetGloss) throws ElementMatcherException {
+            int lg = 0;
+            int mg = 0;
+            int syn = 0;
+            int opp = 0;
+            String meaninglessWords = WNExtendedSemanticGlossComparison.DEFAULT_MEANINGLESS_WORDS;
+            StringTokenizer stSource = new StringTokenizer(sourceGloss, " ,.\"'()");
+            while (stSource.hasMoreTokens()) {
+                String lemmaS = stSource.nextToken();
+                if (!meaninglessWords.contains(lemmaS)) {
+                    StringTokenizer stTarget = new StringTokenizer(targetGloss, " ,.\"'()");
+                    while (stTarget.hasMoreTokens()) {
+                        String lemmaT = stTarget.nextToken();
+                        if (!meaninglessWords.contains(lemmaT)) {
+                            if (isWordLessGeneral(lemmaS, lemmaT)) {
+                                lg++;
+                            } else if (isWordMoreGeneral(lemmaS, lemmaT)) {
+                                mg++;
+                            } else if (isWordSynonym(lemmaS, lemmaT)) {
+                                syn++;
+                            } else if (isWordOpposite(lemmaS, lemmaT)) {
+                                opp++;
+                            }
+                        }
+                    }
+                }
+            }
+            if (lg >= mg && lg >= syn && lg >= opp && lg > 0) {
+                return IMappingElement.LESS_GENERAL;
+            }
+            if (mg >= lg && mg >= syn && mg >= opp && mg > 0) {
+                return IMappingElement.MORE_GENERAL;
+            }
+            if (syn > 0 || opp > 0) {
+                return IMappingElement.LESS_GENERAL;
+            }
+            return IMappingElement.IDK;
+        }
+
+        private static char getRelationFromRels(char builtForRel, char glossRel) {
+            if (glossRel == builtForRel || glossRel == IMappingElement.EQUIVALENCE) {
+                return builtForRel;
+            }
+            return IMappingElement.IDK;
+        }
+    }
+
+    /**
+     * Random senses with random parents and children, matched with the default bounds.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testBaseline() throws ElementMatcherException, LinguisticOracleException {
+        ILinguisticOracle oracle = new TestOracle();
+        ISenseMatcher senseMatcher = new TestSenseMatcher();
+        check(new Random(5), new BaselineMatcher(oracle, senseMatcher),
+                new WNExtendedSemanticGlossComparison(oracle, senseMatcher));
+    }
+
+    /**
+     * Tables smaller than the glosses, so that the relations are forgotten often and the glosses are also compared
+     * without the table.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testSmallTables() throws ElementMatcherException, LinguisticOracleException {
+        ILinguisticOracle oracle = new TestOracle();
+        ISenseMatcher senseMatcher = new TestSenseMatcher();
+        check(new Random(6), new BaselineMatcher(oracle, senseMatcher),
+                new WNExtendedSemanticGlossComparison(oracle, senseMatcher,
+                        WNExtendedSemanticGlossComparison.DEFAULT_MEANINGLESS_WORDS, 3, 6));
+    }
+
+    /**
+     * A matcher overriding how extended glosses are built should compare the glosses it builds.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testOverriddenExtendedGloss() throws ElementMatcherException, LinguisticOracleException {
+        ILinguisticOracle oracle = new TestOracle();
+        ISenseMatcher senseMatcher = new TestSenseMatcher();
+        // the target sense stands for its parents and its children
+        BaselineMatcher expectedMatcher = new BaselineMatcher(oracle, senseMatcher) {
+            @Override
+            public String getExtendedGloss(ISense original, int intSource, char Rel) {
+                return original.getGloss();
+            }
+        };
+        WNExtendedSemanticGlossComparison matcher = new WNExtendedSemanticGlossComparison(oracle, senseMatcher) {
+            @Override
+            public String getExtendedGloss(ISense original, int intSource, char Rel) {
+                return original.getGloss();
+            }
+        };
+        check(new Random(7), expectedMatcher, matcher);
+    }
+
+    private static void check(Random random, BaselineMatcher expectedMatcher, WNExtendedSemanticGlossComparison matcher)
+            throws ElementMatcherException, LinguisticOracleException {
+        int[] relations = new int[128];
+        for (int i = 0; i < 3000; i++) {
+            List<ISense> parents = randomSenses(random, "p" + i);
+            List<ISense> children = randomSenses(random, "c" + i);
+            ISense source = new TestSense("s" + i, randomGloss(random), null, null);
+            ISense target = new TestSense("t" + i, randomGloss(random), parents, children);
+            char expected = expectedMatcher.match(source, target);
+            assertEquals(source.getGloss() + " | " + target.getId(), expected, matcher.match(source, target));
+            relations[expected]++;
+        }
+        // all answers should be represented
+        assertTrue(0 < relations[IMappingElement.LESS_GENERAL]);
+        assertTrue(0 < relations[IMappingElement.MORE_GENERAL]);
+        assertTrue(0 < relations[IMappingElement.IDK]);
+    }
+
+    private static List<ISense> randomSenses(Random random, String prefix) {
+        List<ISense> result = new ArrayList<>();
+        for (int i = random.nextInt(3); i > 0; i--) {
+            result.add(new TestSense(prefix + "_" + i, randomGloss(random), null, null));
+        }
+        return result;
+    }
+
+    private static String randomGloss(Random random) {
+        StringBuilder result = new StringBuilder();
+        for (int i = random.nextInt(7); i > 0; i--) {
+            result.append(WORDS[random.nextInt(WORDS.length)]).append(random.nextBoolean() ? " " : ", ");
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,153 @@
+package it.unitn.disi.smatch.test.matchers.element.string;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import it.unitn.disi.smatch.matchers.element.string.EditDistance;
+import it.unitn.disi.smatch.matchers.element.string.EditDistanceOptimized;
+
+/**
+ * Checks the bit-parallel distance of EditDistanceOptimized against the dynamic programming of EditDistance, for
+ * strings kept in one long, in several longs and around the boundaries between them.
+ *
+ * @since 2.0.0
+ */
+public class EditDistanceOptimizedTest {
+
+    // ASCII letters, repeated to make matches likely, and characters outside ASCII
+    private static final String ALPHABET = "abcabcdexyzéЖ";
+
+    private static final int[] LENGTHS = {1, 2, 31, 62, 63, 64, 65, 66, 100, 126, 127, 128, 129, 130, 200};
+
+    private static final double[] THRESHOLDS = {0.0, 0.5, 0.7, 0.9, 0.95, 1.0};
+
+    /**
+     * Distances between strings of the lengths around 64 and 128 and their random edits, with the limits
+     * around the distance.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testDistance() {
+        Random random = new Random(42);
+        for (int length : LENGTHS) {
+            for (int i = 0; i < 50; i++) {
+                String s = randomString(random, length);
+                String t = edit(random, s, random.nextInt(1 + length / 4));
+                checkDistance(s, t);
+                checkDistance(t, s);
+                checkDistance(s, randomString(random, Math.max(1, length + random.nextInt(5) - 2)));
+            }
+        }
+    }
+
+    /**
+     * Distances with empty strings.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testEmpty() {
+        assertEquals(0, EditDistanceOptimized.getLevenshteinDistance("", ""));
+        assertEquals(0, EditDistanceOptimized.getLevenshteinDistance("", "", 0));
+        Random random = new Random(7);
+        for (int length : LENGTHS) {
+            String s = randomString(random, length);
+            checkDistance("", s);
+            checkDistance(s, "");
+        }
+    }
+
+    /**
+     * The matcher should agree with EditDistance, also on the strings whose similarity equals the threshold.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testMatch() {
+        Random random = new Random(3);
+        for (double threshold : THRESHOLDS) {
+            EditDistance expectedMatcher = new EditDistance(threshold);
+            EditDistanceOptimized matcher = new EditDistanceOptimized(threshold);
+            assertEquals(expectedMatcher.match("", "abc"), matcher.match("", "abc"));
+            assertEquals(expectedMatcher.match("abc", ""), matcher.match("abc", ""));
+            for (int length : LENGTHS) {
+                for (int i = 0; i < 20; i++) {
+                    String s = randomString(random, length);
+                    // up to a fifth of the length edited, so that the similarities fall around the thresholds
+                    String t = edit(random, s, random.nextInt(1 + length / 5));
+                    assertEquals(s + " " + t, expectedMatcher.match(s, t), matcher.match(s, t));
+                    assertEquals(t + " " + s, expectedMatcher.match(t, s), matcher.match(t, s));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the distance without a limit and with the limits below, at and above the distance.
+     */
+    private static void checkDistance(String s, String t) {
+        int expected = distance(s, t);
+        String message = s + " " + t;
+        assertEquals(message, expected, EditDistanceOptimized.getLevenshteinDistance(s, t));
+        assertEquals(message, expected, EditDistanceOptimized.getLevenshteinDistance(s, t, expected));
+        assertEquals(message, expected, EditDistanceOptimized.getLevenshteinDistance(s, t, expected + 1));
+        if (0 < expected) {
+            assertTrue(message, expected - 1 < EditDistanceOptimized.getLevenshteinDistance(s, t, expected - 1));
+            assertTrue(message, expected / 2 < EditDistanceOptimized.getLevenshteinDistance(s, t, expected / 2));
+        }
+    }
+
+    /**
+     * Computes the distance by dynamic programming, as EditDistance does.
+     */
+    private static int distance(String s, String t) {
+        int[] previous = new int[t.length() + 1];
+        int[] current = new int[t.length() + 1];
+        for (int j = 0; j <= t.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= s.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= t.length(); j++) {
+                int substitution = previous[j - 1] + (s.charAt(i - 1) == t.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[t.length()];
+    }
+
+    private static String randomString(Random random, int length) {
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            result.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Applies random insertions, deletions and substitutions.
+     */
+    private static String edit(Random random, String s, int edits) {
+        StringBuilder result = new StringBuilder(s);
+        for (int i = 0; i < edits; i++) {
+            int position = random.nextInt(result.length() + 1);
+            int operation = random.nextInt(3);
+            if (0 == operation || result.length() <= 1) {
+                result.insert(position, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            } else if (1 == operation && position < result.length()) {
+                result.deleteCharAt(position);
+            } else if (position < result.length()) {
+                result.setCharAt(position, ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+            }
+        }
+        return result.toString();
+    }
+}
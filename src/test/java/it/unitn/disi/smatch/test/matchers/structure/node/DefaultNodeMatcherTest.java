@@ -0,0 +1,74 @@
+package it.unitn.disi.smatch.test.matchers.structure.node;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+
+import org.junit.Test;
+
+import it.unitn.disi.smatch.SMatchException;
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.HashMapping;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.mappings.IMappingElement;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.deciders.CDCLSolver;
+import it.unitn.disi.smatch.matchers.structure.node.DefaultNodeMatcher;
+import it.unitn.disi.smatch.oracles.ZeroLinguisticOracle;
+import it.unitn.disi.smatch.preprocessors.DefaultContextPreprocessor;
+
+/**
+ * Checks DefaultNodeMatcher on preprocessed contexts.
+ *
+ * @since 2.0.0
+ */
+public class DefaultNodeMatcherTest {
+
+    /**
+     * Preprocessing a context again replaces the concepts of its nodes, while the formulas stay the same.
+     * A node matcher which has already matched the nodes should use the new concepts.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testPreprocessAgain() throws SMatchException {
+        ZeroLinguisticOracle oracle = new ZeroLinguisticOracle();
+        DefaultContextPreprocessor preprocessor = new DefaultContextPreprocessor(oracle, oracle);
+        IContext source = new Context();
+        INode sourceNode = source.createRoot("Courses");
+        IContext target = new Context();
+        INode targetNode = target.createRoot("Courses");
+        DefaultNodeMatcher matcher = new DefaultNodeMatcher(new CDCLSolver());
+
+        preprocess(preprocessor, source);
+        preprocess(preprocessor, target);
+        assertEquals(IMappingElement.EQUIVALENCE, match(matcher, source, sourceNode, target, targetNode));
+
+        preprocess(preprocessor, source);
+        preprocess(preprocessor, target);
+        assertEquals(IMappingElement.EQUIVALENCE, match(matcher, source, sourceNode, target, targetNode));
+    }
+
+    /**
+     * Preprocesses the context and classifies its root, as a classifier would.
+     */
+    private static void preprocess(DefaultContextPreprocessor preprocessor, IContext context) throws SMatchException {
+        preprocessor.preprocess(context);
+        context.getRoot().nodeData().setNodeFormula(context.getRoot().nodeData().getLabelFormula());
+    }
+
+    private static char match(DefaultNodeMatcher matcher, IContext source, INode sourceNode,
+                              IContext target, INode targetNode) throws SMatchException {
+        IContextMapping<IAtomicConceptOfLabel> acolMapping = new HashMapping<>(source, target);
+        for (IAtomicConceptOfLabel sourceConcept : sourceNode.nodeData().getConcepts()) {
+            for (IAtomicConceptOfLabel targetConcept : targetNode.nodeData().getConcepts()) {
+                acolMapping.setRelation(sourceConcept, targetConcept, IMappingElement.EQUIVALENCE);
+            }
+        }
+        return matcher.nodeMatch(acolMapping,
+                new HashMap<String, IAtomicConceptOfLabel>(), new HashMap<String, IAtomicConceptOfLabel>(),
+                sourceNode, targetNode);
+    }
+}
@@ -0,0 +1,135 @@
+package it.unitn.disi.smatch.test.matchers.structure.tree;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import it.unitn.disi.smatch.data.ling.IAtomicConceptOfLabel;
+import it.unitn.disi.smatch.data.mappings.HashMapping;
+import it.unitn.disi.smatch.data.mappings.IContextMapping;
+import it.unitn.disi.smatch.data.trees.Context;
+import it.unitn.disi.smatch.data.trees.IContext;
+import it.unitn.disi.smatch.data.trees.INode;
+import it.unitn.disi.smatch.deciders.CDCLSolver;
+import it.unitn.disi.smatch.matchers.structure.node.DefaultNodeMatcher;
+import it.unitn.disi.smatch.matchers.structure.node.INodeMatcher;
+import it.unitn.disi.smatch.matchers.structure.tree.TreeMatcherException;
+import it.unitn.disi.smatch.matchers.structure.tree.def.DefaultTreeMatcher;
+import it.unitn.disi.smatch.matchers.structure.tree.def.ForkJoinTreeMatcher;
+
+/**
+ * Checks ForkJoinTreeMatcher against DefaultTreeMatcher on generated trees.
+ *
+ * @since 2.0.0
+ */
+public class ForkJoinTreeMatcherTest {
+
+    private static final char[] RELATIONS = {'=', '<', '>', '!', '?', '?', '?'};
+
+    /**
+     * Tiles smaller than the trees, so that the work is split and stolen between threads.
+     *
+     * @since 2.0.0
+     */
+    @Test
+    public void testEquivalence() throws TreeMatcherException {
+        Random random = new Random(42);
+        INodeMatcher nodeMatcher = new DefaultNodeMatcher(new CDCLSolver());
+        HashMapping<INode> mappingFactory = new HashMapping<>();
+        DefaultTreeMatcher expectedMatcher = new DefaultTreeMatcher(nodeMatcher, mappingFactory);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int i = 0; i < 20; i++) {
+                IContext source = randomContext(random, 1 + random.nextInt(30));
+                IContext target = randomContext(random, 1 + random.nextInt(30));
+                IContextMapping<IAtomicConceptOfLabel> acolMapping = randomACoLMapping(random, source, target);
+                int tileSize = 1 + random.nextInt(8);
+                ForkJoinTreeMatcher matcher = new ForkJoinTreeMatcher(nodeMatcher, mappingFactory, pool, tileSize);
+
+                IContextMapping<INode> expected = expectedMatcher.treeMatch(source, target, acolMapping);
+                IContextMapping<INode> actual = matcher.treeMatch(source, target, acolMapping);
+                assertEquals(expected.size(), actual.size());
+                for (Iterator<INode> s = source.nodeIterator(); s.hasNext(); ) {
+                    INode sourceNode = s.next();
+                    for (Iterator<INode> t = target.nodeIterator(); t.hasNext(); ) {
+                        INode targetNode = t.next();
+                        assertEquals(expected.getRelation(sourceNode, targetNode), actual.getRelation(sourceNode, targetNode));
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Generates a tree with concepts and node formulas referring to the concepts of the path to root.
+     */
+    private static IContext randomContext(Random random, int size) {
+        Context context = new Context();
+        List<INode> nodes = new ArrayList<>();
+        nodes.add(context.createRoot("root"));
+        for (int i = 1; i < size; i++) {
+            nodes.add(nodes.get(random.nextInt(nodes.size())).createChild("node" + i));
+        }
+        for (INode node : nodes) {
+            int concepts = 1 + random.nextInt(2);
+            for (int i = 0; i < concepts; i++) {
+                IAtomicConceptOfLabel concept = node.nodeData().createConcept();
+                concept.setId(i);
+                concept.setToken("token" + i);
+                concept.setLemma("lemma" + random.nextInt(5));
+                node.nodeData().getConcepts().add(concept);
+            }
+            node.nodeData().setLabelFormula("label");
+        }
+        for (INode node : nodes) {
+            // some nodes are left without formulas
+            if (0 == random.nextInt(10)) {
+                continue;
+            }
+            StringBuilder formula = new StringBuilder();
+            for (INode n = node; null != n; n = n.getParent()) {
+                List<IAtomicConceptOfLabel> concepts = n.nodeData().getConcepts();
+                if (0 < formula.length()) {
+                    formula.append(" & ");
+                }
+                formula.append("(");
+                for (int i = 0; i < concepts.size(); i++) {
+                    if (0 < i) {
+                        formula.append(" | ");
+                    }
+                    if (0 == random.nextInt(6)) {
+                        formula.append("~");
+                    }
+                    formula.append(n.nodeData().getId()).append("_").append(concepts.get(i).getId());
+                }
+                formula.append(")");
+            }
+            node.nodeData().setNodeFormula(formula.toString());
+        }
+        return context;
+    }
+
+    private static IContextMapping<IAtomicConceptOfLabel> randomACoLMapping(Random random, IContext source, IContext target) {
+        IContextMapping<IAtomicConceptOfLabel> result = new HashMapping<>(source, target);
+        for (Iterator<INode> s = source.nodeIterator(); s.hasNext(); ) {
+            INode sourceNode = s.next();
+            for (Iterator<INode> t = target.nodeIterator(); t.hasNext(); ) {
+                INode targetNode = t.next();
+                for (IAtomicConceptOfLabel sourceConcept : sourceNode.nodeData().getConcepts()) {
+                    for (IAtomicConceptOfLabel targetConcept : targetNode.nodeData().getConcepts()) {
+                        result.setRelation(sourceConcept, targetConcept, RELATIONS[random.nextInt(RELATIONS.length)]);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}